@@ -0,0 +1,128 @@
+package nl.sennaoudshoorn.qiddo_register.config;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Zet de oude tekstkolom {@code person.geboortedatum} om naar de datumkolom
+ * {@code birth_date}. Hibernate maakt de nieuwe kolom (en de index) zelf aan; deze stap
+ * vult hem uit de oude waarden en verwijdert daarna de oude kolom. Zonder oude kolom
+ * (nieuwe database, of al gemigreerd) doet hij niets.
+ *
+ * <p>Waarden die in geen enkel bekend formaat te lezen zijn, worden gelogd en blijven
+ * leeg. De oude kolom blijft dan bestaan, maar mag voortaan leeg zijn, zodat nieuwe
+ * personen gewoon opgeslagen kunnen worden en de waarden met de hand te herstellen zijn.
+ */
+@Component
+public class BirthDateMigration implements InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(BirthDateMigration.class);
+
+    // Volgorde doet ertoe: strict resolven voorkomt dat een formaat een ander verkeerd leest
+    private static final List<DateTimeFormatter> FORMATS = List.of(
+            DateTimeFormatter.ISO_LOCAL_DATE,
+            formatter("uuuu-M-d"),
+            formatter("d-M-uuuu"),
+            formatter("d/M/uuuu"),
+            formatter("d.M.uuuu"),
+            formatter("uuuuMMdd"),
+            formatter("d MMMM uuuu"),
+            formatter("d MMM uuuu"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // De EntityManagerFactory wordt meegegeven zodat de kolom birth_date al bestaat
+    public BirthDateMigration(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                              EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        migrate();
+    }
+
+    /**
+     * @return het aantal omgezette geboortedata
+     */
+    public int migrate() {
+        Map<Long, String> legacy = new LinkedHashMap<>();
+        try {
+            jdbcTemplate.query("select id, geboortedatum from person where birth_date is null",
+                    rs -> {
+                        legacy.put(rs.getLong(1), rs.getString(2));
+                    });
+        } catch (BadSqlGrammarException e) {
+            // Geen oude kolom meer
+            return 0;
+        }
+
+        List<Object[]> updates = new ArrayList<>();
+        List<Long> unreadable = new ArrayList<>();
+        legacy.forEach((id, text) -> {
+            LocalDate date = parse(text);
+            if (date != null) {
+                updates.add(new Object[] { Date.valueOf(date), id });
+            } else {
+                unreadable.add(id);
+                logger.warn("Geboortedatum '{}' van persoon {} niet te lezen, blijft leeg", text, id);
+            }
+        });
+        // Versie ophogen: de ETags van de lijsten zijn daarvan afgeleid
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate("update person set birth_date = ?, version = version + 1 where id = ?", updates));
+
+        if (unreadable.isEmpty()) {
+            jdbcTemplate.execute("alter table person drop column geboortedatum");
+            logger.info("{} geboortedata omgezet naar birth_date, oude kolom verwijderd", updates.size());
+        } else {
+            jdbcTemplate.execute("alter table person modify column geboortedatum varchar(255) null");
+            logger.warn("{} geboortedata omgezet, {} niet te lezen (personen {}); oude kolom geboortedatum blijft",
+                    updates.size(), unreadable.size(), unreadable);
+        }
+        return updates.size();
+    }
+
+    /**
+     * Leest een geboortedatum in een van de bekende formaten, of {@code null}.
+     */
+    public static LocalDate parse(String text) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        String trimmed = text.trim();
+        for (DateTimeFormatter format : FORMATS) {
+            try {
+                return LocalDate.parse(trimmed, format);
+            } catch (DateTimeParseException e) {
+                // Volgende formaat proberen
+            }
+        }
+        return null;
+    }
+
+    private static DateTimeFormatter formatter(String pattern) {
+        return DateTimeFormatter.ofPattern(pattern, Locale.forLanguageTag("nl"))
+                .withResolverStyle(ResolverStyle.STRICT);
+    }
+}
@@ -0,0 +1,38 @@
+package nl.sennaoudshoorn.qiddo_register.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Caches voor ouders en kinderen, die maar een paar keer per maand wijzigen.
+ * De caches zijn begrensd op aantal en leeftijd (zie qiddo.cache.spec) en houden
+ * statistieken bij, die via /actuator/metrics/cache.gets zichtbaar zijn.
+ *
+ * <p>Puts en evicts binnen een transactie worden pas na de commit uitgevoerd. Dat houdt
+ * niet-gecommitte waarden uit de cache, maar voorkomt niet dat een lezer zonder
+ * transactie die vóór de commit las, de oude rij daarna alsnog in de cache zet. Ouders en
+ * kinderen lopen daarom via de {@link nl.sennaoudshoorn.qiddo_register.service.PersonCache},
+ * die na een schrijfactie alleen de geraakte entries weghaalt en losse kopieën bewaart
+ * in plaats van gedeelde entities.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String PARENTS = "parents";
+    public static final String CHILDREN = "children";
+    public static final String ACTIVE_CHILDREN = "activeChildren";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${qiddo.cache.spec}") String spec) {
+        CaffeineCacheManager caffeine = new CaffeineCacheManager(PARENTS, CHILDREN, ACTIVE_CHILDREN);
+        caffeine.setCacheSpecification(spec);
+        caffeine.setAllowNullValues(false);
+        return new TransactionAwareCacheManagerProxy(caffeine);
+    }
+}
@@ -0,0 +1,253 @@
+package nl.sennaoudshoorn.qiddo_register.config;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import nl.sennaoudshoorn.qiddo_register.service.AttendanceRollupService;
+import nl.sennaoudshoorn.qiddo_register.service.ParentBalanceService;
+import nl.sennaoudshoorn.qiddo_register.service.PersonDirectory;
+
+/**
+ * Vult een lege database met realistische testdata: ouders, kinderen, jaren aan
+ * aanwezigheden en maandelijkse facturen. Alleen actief met het profiel {@code seed}
+ * (zie application-seed.properties), dat standaard een H2 bestand in MySQL-modus
+ * gebruikt. Met een vaste random seed levert elke run dezelfde data op.
+ *
+ * <p>De rijen gaan in batches via JDBC rechtstreeks de database in, met eigen id's;
+ * daarna worden de sequences en IDENTITY-tellers uitgelijnd. Facturen worden alleen
+ * gemaakt voor afgesloten maanden, zodat een facturatierun voor de lopende maand
+ * het echte werk nog moet doen.
+ */
+@Component
+@Profile("seed")
+public class DataSeeder implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataSeeder.class);
+
+    private static final String[] GIRL_NAMES = {
+            "Emma", "Julia", "Mila", "Tess", "Sophie", "Zoë", "Sara", "Nora", "Yara", "Eva",
+            "Fenna", "Saar", "Lotte", "Anna", "Sanne", "Fleur", "Noor", "Liv", "Ilse", "Amira" };
+    private static final String[] BOY_NAMES = {
+            "Noah", "Sem", "Liam", "Lucas", "Daan", "Finn", "Levi", "Luuk", "Mees", "Bram",
+            "Noud", "Jesse", "Thijs", "Ruben", "Gijs", "Teun", "Stijn", "Ravi", "Adam", "Joep" };
+    private static final String[] PARENT_NAMES = {
+            "Jan", "Lisa", "Mark", "Anouk", "Peter", "Iris", "Thomas", "Eline", "Bas", "Marloes",
+            "Kees", "Sandra", "Dennis", "Femke", "Joris", "Linda", "Rik", "Esther", "Niels", "Maaike" };
+    private static final String[] LAST_NAMES = {
+            "de Vries", "Jansen", "van den Berg", "Bakker", "Visser", "Smit", "Meijer", "de Boer",
+            "Mulder", "de Groot", "Bos", "Vos", "Peters", "Hendriks", "van Leeuwen", "Dekker",
+            "Brouwer", "de Wit", "Dijkstra", "Smits", "de Graaf", "van der Meer", "Çelik", "El Amrani" };
+    private static final String[] STREETS = {
+            "Dorpsstraat", "Kerkstraat", "Schoolstraat", "Molenweg", "Stationsweg", "Julianalaan" };
+    private static final String[] ALLERGIES = { "Geen", "Geen", "Geen", "Pinda's", "Lactose", "Gluten", "Ei" };
+    private static final String[] DIETS = { "Geen", "Geen", "Vegetarisch", "Halal", "Glutenvrij" };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final IdSequenceInitializer idSequenceInitializer;
+    private final AttendanceRollupService rollupService;
+    private final PersonDirectory personDirectory;
+    private final ParentBalanceService balanceService;
+
+    private final int childCount;
+    private final int years;
+    private final int batchSize;
+    private final BigDecimal hourlyRate;
+    private final Random random;
+
+    public DataSeeder(JdbcTemplate jdbcTemplate,
+                      TransactionTemplate transactionTemplate,
+                      IdSequenceInitializer idSequenceInitializer,
+                      AttendanceRollupService rollupService,
+                      PersonDirectory personDirectory,
+                      ParentBalanceService balanceService,
+                      @Value("${qiddo.seed.children:5000}") int childCount,
+                      @Value("${qiddo.seed.years:2}") int years,
+                      @Value("${qiddo.seed.batch-size:5000}") int batchSize,
+                      @Value("${qiddo.seed.random-seed:42}") long randomSeed,
+                      @Value("${qiddo.billing.hourly-rate}") BigDecimal hourlyRate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.idSequenceInitializer = idSequenceInitializer;
+        this.rollupService = rollupService;
+        this.personDirectory = personDirectory;
+        this.balanceService = balanceService;
+        this.childCount = childCount;
+        this.years = years;
+        this.batchSize = batchSize;
+        this.hourlyRate = hourlyRate;
+        this.random = new Random(randomSeed);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Long persons = jdbcTemplate.queryForObject("select count(*) from person", Long.class);
+        if (persons != null && persons > 0) {
+            logger.info("Database bevat al {} personen, seeden overgeslagen", persons);
+            return;
+        }
+        long start = System.nanoTime();
+        LocalDate today = LocalDate.now();
+        LocalDate firstDay = today.minusYears(years);
+        YearMonth firstMonth = YearMonth.from(firstDay);
+        int months = (int) firstMonth.until(YearMonth.from(today), ChronoUnit.MONTHS) + 1;
+
+        // Gemiddeld 1,6 kind per gezin
+        int parentCount = Math.max(1, (int) Math.round(childCount / 1.6));
+        long nextId = 1;
+        long[] parentIds = new long[parentCount];
+        List<Object[]> personRows = new ArrayList<>();
+        List<Object[]> parentRows = new ArrayList<>();
+        String[] familyNames = new String[parentCount];
+        for (int i = 0; i < parentCount; i++) {
+            parentIds[i] = nextId++;
+            familyNames[i] = pick(LAST_NAMES);
+            String firstName = pick(PARENT_NAMES);
+            personRows.add(new Object[] { parentIds[i], "PARENT", firstName + " " + familyNames[i],
+                    Date.valueOf(today.minusYears(25 + random.nextInt(20)).minusDays(random.nextInt(365))),
+                    random.nextBoolean() ? "Man" : "Vrouw" });
+            parentRows.add(new Object[] { parentIds[i],
+                    firstName.toLowerCase() + "." + familyNames[i].toLowerCase().replace(" ", "") + i + "@example.com",
+                    "06" + (10_000_000 + random.nextInt(90_000_000)),
+                    pick(STREETS) + " " + (1 + random.nextInt(200)) + ", Utrecht" });
+        }
+
+        long[] childIds = new long[childCount];
+        int[] childParent = new int[childCount];
+        LocalDate[] enrolled = new LocalDate[childCount];
+        List<Object[]> childRows = new ArrayList<>();
+        for (int i = 0; i < childCount; i++) {
+            childIds[i] = nextId++;
+            // Eerst elke ouder één kind, daarna willekeurig broertjes en zusjes
+            childParent[i] = i < parentCount ? i : random.nextInt(parentCount);
+            LocalDate birthDate = today.minusDays(random.nextInt(4 * 365 + 180));
+            enrolled[i] = birthDate.plusMonths(3).isAfter(firstDay) ? birthDate.plusMonths(3) : firstDay;
+            boolean girl = random.nextBoolean();
+            personRows.add(new Object[] { childIds[i], "CHILD",
+                    pick(girl ? GIRL_NAMES : BOY_NAMES) + " " + familyNames[childParent[i]],
+                    Date.valueOf(birthDate), girl ? "Meisje" : "Jongen" });
+            childRows.add(new Object[] { childIds[i], pick(ALLERGIES), pick(DIETS), null,
+                    random.nextInt(20) != 0, parentIds[childParent[i]] });
+        }
+
+        insert("insert into person (id, dtype, naam, birth_date, gender, version) values (?, ?, ?, ?, ?, 0)",
+                personRows);
+        insert("insert into parent (id, email, phone, address) values (?, ?, ?, ?)", parentRows);
+        insert("insert into child (id, allergies, dietary_preferences, notes, active, parent_id) values (?, ?, ?, ?, ?, ?)",
+                childRows);
+        logger.info("{} ouders en {} kinderen aangemaakt", parentCount, childCount);
+
+        long[][] minutesPerParent = new long[parentCount][months];
+        long attendances = seedAttendances(childIds, childParent, enrolled, today, firstMonth, minutesPerParent);
+        long invoices = seedInvoices(parentIds, firstMonth, months, minutesPerParent, today);
+
+        idSequenceInitializer.realign("invoice");
+        // Alles is buiten de services om ingevoegd
+        rollupService.rebuild();
+        personDirectory.rebuild();
+        balanceService.rebuild();
+        logger.info("Seeden klaar: {} aanwezigheden en {} facturen in {} s", attendances, invoices,
+                (System.nanoTime() - start) / 1_000_000_000);
+    }
+
+    private long seedAttendances(long[] childIds, int[] childParent, LocalDate[] enrolled, LocalDate today,
+                                 YearMonth firstMonth, long[][] minutesPerParent) {
+        String sql = "insert into attendance (id, check_in_time, check_out_time, child_id, version) values (?, ?, ?, ?, 0)";
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        long id = 1;
+        for (int c = 0; c < childIds.length; c++) {
+            // Vaste opvangdagen per kind: twee tot vijf dagen per week
+            boolean[] days = new boolean[6];
+            int dayCount = 2 + random.nextInt(4);
+            for (int d = 0; d < dayCount; ) {
+                int day = 1 + random.nextInt(5);
+                if (!days[day]) {
+                    days[day] = true;
+                    d++;
+                }
+            }
+            for (LocalDate date = enrolled[c]; date.isBefore(today); date = date.plusDays(1)) {
+                DayOfWeek dayOfWeek = date.getDayOfWeek();
+                // Buiten de vaste dagen, of afwezig (ziek, vakantie)
+                if (dayOfWeek.getValue() > 5 || !days[dayOfWeek.getValue()] || random.nextInt(100) < 8) {
+                    continue;
+                }
+                LocalDateTime checkIn = date.atTime(7, 30).plusMinutes(random.nextInt(105));
+                LocalDateTime checkOut = date.atTime(15, 30).plusMinutes(random.nextInt(180));
+                batch.add(new Object[] { id++, Timestamp.valueOf(checkIn), Timestamp.valueOf(checkOut), childIds[c] });
+                minutesPerParent[childParent[c]][(int) firstMonth.until(YearMonth.from(date), ChronoUnit.MONTHS)]
+                        += ChronoUnit.MINUTES.between(checkIn, checkOut);
+                if (batch.size() == batchSize) {
+                    insert(sql, batch);
+                    batch.clear();
+                    if ((id - 1) % (batchSize * 100L) == 0) {
+                        logger.info("{} aanwezigheden aangemaakt", id - 1);
+                    }
+                }
+            }
+        }
+        insert(sql, batch);
+        return id - 1;
+    }
+
+    private long seedInvoices(long[] parentIds, YearMonth firstMonth, int months, long[][] minutesPerParent,
+                              LocalDate today) {
+        String sql = "insert into invoice (id, amount, paid, invoice_date, parent_id, version) values (?, ?, ?, ?, ?, 0)";
+        YearMonth current = YearMonth.from(today);
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        long id = 1;
+        for (int m = 0; m < months; m++) {
+            YearMonth month = firstMonth.plusMonths(m);
+            if (!month.isBefore(current)) {
+                break;
+            }
+            for (int p = 0; p < parentIds.length; p++) {
+                if (minutesPerParent[p][m] == 0) {
+                    continue;
+                }
+                double amount = hourlyRate.multiply(BigDecimal.valueOf(minutesPerParent[p][m]))
+                        .divide(BigDecimal.valueOf(60), 2, RoundingMode.HALF_UP).doubleValue();
+                // Oudere maanden zijn betaald, van de vorige maand ongeveer driekwart
+                boolean paid = month.isBefore(current.minusMonths(1)) || random.nextInt(4) != 0;
+                batch.add(new Object[] { id++, amount, paid, Date.valueOf(month.atDay(1)), parentIds[p] });
+                if (batch.size() == batchSize) {
+                    insert(sql, batch);
+                    batch.clear();
+                }
+            }
+        }
+        insert(sql, batch);
+        return id - 1;
+    }
+
+    private void insert(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            List<Object[]> chunk = rows.subList(from, Math.min(rows.size(), from + batchSize));
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(sql, chunk));
+        }
+    }
+
+    private <T> T pick(T[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,97 @@
+package nl.sennaoudshoorn.qiddo_register.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Thread pools voor achtergrondwerk. Zodra er een eigen Executor bean bestaat maakt
+ * Spring Boot zijn standaard applicationTaskExecutor (gebruikt voor async MVC, zoals
+ * StreamingResponseBody) niet meer aan, dus die wordt hier opnieuw gedeclareerd.
+ *
+ * <p>Met {@code spring.threads.virtual.enabled=true} draaien Tomcat en al deze executors
+ * op virtual threads. De poolgrootte blijft dan gelden als limiet op het aantal
+ * gelijktijdige taken, zodat bijvoorbeeld het renderen niet meer CPU pakt dan in de
+ * platform-modus en de billing niet meer connecties vraagt dan de pool heeft. Virtual
+ * threads vereisen Java 21; Spring Boot negeert de instelling op een oudere JRE zonder
+ * melding, dus dan weigert de applicatie te starten in plaats van stil op platform
+ * threads te draaien.
+ */
+@Configuration
+public class ExecutorConfig {
+
+    private final boolean virtualThreads;
+
+    public ExecutorConfig(Environment environment) {
+        if (environment.getProperty("spring.threads.virtual.enabled", boolean.class, false)
+                && !JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE)) {
+            throw new IllegalStateException("spring.threads.virtual.enabled=true vereist Java 21 of nieuwer, maar draait op Java "
+                    + System.getProperty("java.version"));
+        }
+        this.virtualThreads = Threading.VIRTUAL.isActive(environment);
+    }
+
+    @Bean(name = {
+            TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME })
+    @Primary
+    public AsyncTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder poolBuilder,
+                                                     SimpleAsyncTaskExecutorBuilder virtualBuilder) {
+        // Boot configureert de SimpleAsyncTaskExecutorBuilder zelf met virtual threads
+        return virtualThreads ? virtualBuilder.build() : poolBuilder.build();
+    }
+
+    /**
+     * Pool voor het renderen van factuur-PDF's, standaard zo groot als het aantal cores.
+     */
+    @Bean
+    public AsyncTaskExecutor pdfRenderExecutor(@Value("${qiddo.pdf.render-threads:0}") int threads) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return executor("pdf-render-", poolSize);
+    }
+
+    /**
+     * Pool voor de partities van een facturatierun, standaard zo groot als het aantal cores.
+     */
+    @Bean
+    public AsyncTaskExecutor billingExecutor(@Value("${qiddo.billing.threads:0}") int threads) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return executor("billing-", poolSize);
+    }
+
+    /**
+     * Pool die de buffers van de change feed clients naar hun verbinding schrijft. Met
+     * virtual threads is er geen limiet: een trage client houdt dan geen thread meer bezet.
+     */
+    @Bean
+    public AsyncTaskExecutor feedExecutor(@Value("${qiddo.feed.threads:4}") int threads) {
+        return executor("feed-", virtualThreads ? 0 : threads);
+    }
+
+    private AsyncTaskExecutor executor(String threadNamePrefix, int poolSize) {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+            executor.setVirtualThreads(true);
+            if (poolSize > 0) {
+                executor.setConcurrencyLimit(poolSize);
+            }
+            return executor;
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        return executor;
+    }
+}
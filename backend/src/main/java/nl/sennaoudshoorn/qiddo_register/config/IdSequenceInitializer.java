@@ -0,0 +1,89 @@
+package nl.sennaoudshoorn.qiddo_register.config;
+
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Zet de id-sequences van entiteiten die van IDENTITY naar een gepoolde sequence
+ * zijn overgezet voorbij de hoogste bestaande id. Op MySQL is zo'n sequence een
+ * tabel met één {@code next_val} kolom; zonder deze stap zou de sequence bij 1
+ * beginnen en botsen met bestaande rijen.
+ */
+@Component
+public class IdSequenceInitializer implements InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdSequenceInitializer.class);
+
+    /** Moet gelijk zijn aan de allocationSize van de @SequenceGenerator. */
+    static final int ALLOCATION_SIZE = 50;
+
+    // Tabel -> sequence
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "attendance", "attendance_seq",
+            "person", "person_seq");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // De EntityManagerFactory wordt meegegeven zodat het schema al is bijgewerkt
+    public IdSequenceInitializer(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        SEQUENCES.forEach(this::align);
+    }
+
+    /**
+     * Na het rechtstreeks invoegen van rijen met eigen id's (zoals de seeder doet):
+     * sequences opnieuw uitlijnen en de IDENTITY-tellers voorbij de hoogste id zetten.
+     */
+    public void realign(String... identityTables) {
+        SEQUENCES.forEach(this::align);
+        for (String table : identityTables) {
+            alignIdentity(table);
+        }
+    }
+
+    private void alignIdentity(String table) {
+        Long maxId = jdbcTemplate.queryForObject("select max(id) from " + table, Long.class);
+        if (maxId == null) {
+            return;
+        }
+        try {
+            // H2; MySQL schuift auto_increment zelf op bij een insert met een hogere id
+            jdbcTemplate.execute("alter table " + table + " alter column id restart with " + (maxId + 1));
+            logger.info("Identity van {} herstart op {}", table, maxId + 1);
+        } catch (DataAccessException e) {
+            logger.debug("Identity van {} niet herstart: {}", table, e.getMessage());
+        }
+    }
+
+    private void align(String table, String sequence) {
+        Long maxId = jdbcTemplate.queryForObject("select max(id) from " + table, Long.class);
+        if (maxId == null) {
+            return;
+        }
+        // De pooled optimizer deelt de waarden (next_val - allocationSize, next_val] uit
+        long nextValue = maxId + ALLOCATION_SIZE + 1;
+        try {
+            int updated = jdbcTemplate.update(
+                    "update " + sequence + " set next_val = ? where next_val < ?", nextValue, nextValue);
+            if (updated > 0) {
+                logger.info("Sequence {} bijgezet naar {}", sequence, nextValue);
+            }
+        } catch (DataAccessException e) {
+            // Database met echte sequences (bijv. H2)
+            jdbcTemplate.execute("alter sequence " + sequence + " restart with " + nextValue);
+            logger.info("Sequence {} herstart op {}", sequence, nextValue);
+        }
+    }
+}
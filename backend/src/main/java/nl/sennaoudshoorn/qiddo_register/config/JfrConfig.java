@@ -0,0 +1,36 @@
+package nl.sennaoudshoorn.qiddo_register.config;
+
+import nl.sennaoudshoorn.qiddo_register.jfr.RepositoryCallInterceptor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+/**
+ * Custom JFR events (package {@code jfr}) voor continuous profiling. Elke Spring Data
+ * repository krijgt een interceptor die per aanroep entity, methode, aantal rijen en duur
+ * vastlegt. De events voor requests en PDF's komen uit de
+ * {@link RequestMonitoringFilter} en de InvoicePdfService.
+ *
+ * <p>Alle events staan onder de categorie "Qiddo" en worden meegenomen in elke recording,
+ * bijvoorbeeld {@code jcmd <pid> JFR.start duration=5m filename=qiddo.jfr}.
+ */
+@Configuration
+public class JfrConfig {
+
+    @Bean
+    public static BeanPostProcessor repositoryCallEvents() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                // Vóór afterPropertiesSet, want dan maakt de factory bean de repository proxy
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, information) -> proxyFactory.addAdvice(
+                                    new RepositoryCallInterceptor(information.getDomainType()))));
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,24 @@
+package nl.sennaoudshoorn.qiddo_register.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Metrics bovenop wat Actuator zelf meet. Boot levert al timers per endpoint
+ * ({@code http.server.requests}), de HikariCP pool ({@code hikaricp.connections.*}) en
+ * met hibernate-micrometer de Hibernate statistieken ({@code hibernate.*}). Hier komt
+ * het aantal SQL statements per request bij, per endpoint als histogram
+ * ({@code qiddo.http.queries}); dat wordt gemeten in de {@link RequestMonitoringFilter}.
+ *
+ * <p>Alles is in Prometheus-formaat op te halen via {@code /actuator/prometheus}.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer queryCounterCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new QueryCounter());
+    }
+}
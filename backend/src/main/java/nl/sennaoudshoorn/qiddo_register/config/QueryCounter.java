@@ -0,0 +1,36 @@
+package nl.sennaoudshoorn.qiddo_register.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Telt de SQL statements die Hibernate op de huidige thread voorbereidt, tussen
+ * {@link #start()} en {@link #stop()}. Buiten zo'n meting doet de inspector niets.
+ * Statements van andere threads (bijvoorbeeld de render- of billing-pool) tellen niet
+ * mee bij het request dat het werk heeft gestart.
+ */
+public class QueryCounter implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        int[] count = COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+
+    public static void start() {
+        COUNT.set(new int[1]);
+    }
+
+    /**
+     * Beëindigt de meting en geeft het aantal statements sinds {@link #start()}.
+     */
+    public static int stop() {
+        int[] count = COUNT.get();
+        COUNT.remove();
+        return count != null ? count[0] : 0;
+    }
+}
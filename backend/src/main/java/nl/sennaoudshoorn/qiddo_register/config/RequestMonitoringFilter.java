@@ -0,0 +1,109 @@
+package nl.sennaoudshoorn.qiddo_register.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import nl.sennaoudshoorn.qiddo_register.jfr.HttpRequestEvent;
+import nl.sennaoudshoorn.qiddo_register.jfr.SlowRequestEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Meet elk request op de request thread: het aantal SQL statements als histogram per
+ * endpoint ({@code qiddo.http.queries}, zodat N+1 patronen direct zichtbaar zijn) en een
+ * {@link HttpRequestEvent} voor JFR. Duurt het request langer dan
+ * {@code qiddo.jfr.slow-request}, dan volgt ook een {@link SlowRequestEvent} met het pad
+ * en de betrokken id's.
+ *
+ * <p>Bij gestreamde responses (PDF, ZIP) telt alleen het deel op de request thread;
+ * het renderen zelf staat als aparte events op de render threads.
+ */
+@Component
+public class RequestMonitoringFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry registry;
+    private final long slowRequestNanos;
+
+    public RequestMonitoringFilter(MeterRegistry registry,
+                                   @Value("${qiddo.jfr.slow-request:500ms}") Duration slowRequest) {
+        this.registry = registry;
+        this.slowRequestNanos = slowRequest.toNanos();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        HttpRequestEvent event = new HttpRequestEvent();
+        SlowRequestEvent slow = new SlowRequestEvent();
+        long start = System.nanoTime();
+        event.begin();
+        slow.begin();
+        QueryCounter.start();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            int queries = QueryCounter.stop();
+            event.end();
+            slow.end();
+            long duration = System.nanoTime() - start;
+            // Zelfde uri-tag als http.server.requests; geen losse id's als tagwaarde
+            String endpoint = endpoint(request);
+
+            DistributionSummary.builder("qiddo.http.queries")
+                    .description("SQL statements per HTTP request")
+                    .tag("method", request.getMethod())
+                    .tag("uri", endpoint)
+                    .publishPercentileHistogram()
+                    .maximumExpectedValue(1000.0)
+                    .register(registry)
+                    .record(queries);
+
+            if (event.shouldCommit()) {
+                event.method = request.getMethod();
+                event.endpoint = endpoint;
+                event.status = response.getStatus();
+                event.queries = queries;
+                event.commit();
+            }
+            if (duration >= slowRequestNanos && slow.shouldCommit()) {
+                slow.method = request.getMethod();
+                slow.path = request.getRequestURI();
+                slow.endpoint = endpoint;
+                slow.ids = ids(request);
+                slow.status = response.getStatus();
+                slow.queries = queries;
+                slow.commit();
+            }
+        }
+    }
+
+    private static String endpoint(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : "UNKNOWN";
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String ids(HttpServletRequest request) {
+        StringJoiner ids = new StringJoiner(",");
+        Object variables = request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (variables instanceof Map<?, ?> map) {
+            ((Map<String, String>) map).forEach((name, value) -> ids.add(name + "=" + value));
+        }
+        request.getParameterMap().forEach((name, values) -> {
+            if (name.equals("id") || name.endsWith("Id") || name.endsWith("Ids")) {
+                ids.add(name + "=" + String.join("|", values));
+            }
+        });
+        return ids.toString();
+    }
+}
@@ -0,0 +1,9 @@
+package nl.sennaoudshoorn.qiddo_register.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
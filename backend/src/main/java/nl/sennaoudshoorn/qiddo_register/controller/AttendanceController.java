@@ -1,23 +1,44 @@
 package nl.sennaoudshoorn.qiddo_register.controller;
 
+import nl.sennaoudshoorn.qiddo_register.dto.AttendancePage;
+import nl.sennaoudshoorn.qiddo_register.dto.BulkAttendanceItem;
+import nl.sennaoudshoorn.qiddo_register.dto.BulkAttendanceResult;
+import nl.sennaoudshoorn.qiddo_register.dto.PresenceEntry;
 import nl.sennaoudshoorn.qiddo_register.model.Attendance;
 import nl.sennaoudshoorn.qiddo_register.repository.AttendanceRepository;
+import nl.sennaoudshoorn.qiddo_register.service.AttendanceService;
+import nl.sennaoudshoorn.qiddo_register.service.PresenceRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/attendances")
 public class AttendanceController {
 
+    /** Response header met de cursor voor de volgende pagina; ontbreekt op de laatste pagina. */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     @Autowired
     private AttendanceRepository attendanceRepository;
 
+    @Autowired
+    private AttendanceService attendanceService;
+
+    @Autowired
+    private PresenceRegistry presenceRegistry;
+
     @GetMapping
-    public List<Attendance> getAllAttendances() {
-        return attendanceRepository.findAll();
+    public ResponseEntity<List<Attendance>> getAllAttendances(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + AttendanceService.DEFAULT_PAGE_SIZE) int limit) {
+        return toResponse(attendanceService.getHistory(null, from, to, cursor, limit));
     }
 
     @GetMapping("/{id}")
@@ -29,33 +50,49 @@ public class AttendanceController {
 
     @PostMapping
     public Attendance createAttendance(@RequestBody Attendance attendance) {
-        return attendanceRepository.save(attendance);
+        return attendanceService.createAttendance(attendance);
+    }
+
+    @PostMapping("/bulk")
+    public List<BulkAttendanceResult> recordBulk(@RequestBody List<BulkAttendanceItem> items) {
+        return attendanceService.recordBulk(items);
+    }
+
+    @GetMapping("/present")
+    public List<PresenceEntry> getPresentChildren() {
+        return presenceRegistry.getPresent();
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<Attendance> updateAttendance(@PathVariable Long id, @RequestBody Attendance attendanceDetails) {
-        return attendanceRepository.findById(id)
-                .map(attendance -> {
-                    attendance.setCheckInTime(attendanceDetails.getCheckInTime());
-                    attendance.setCheckOutTime(attendanceDetails.getCheckOutTime());
-                    attendance.setChild(attendanceDetails.getChild());
-                    return ResponseEntity.ok(attendanceRepository.save(attendance));
-                })
+        return attendanceService.updateAttendance(id, attendanceDetails)
+                .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteAttendance(@PathVariable Long id) {
-        return attendanceRepository.findById(id)
-                .map(attendance -> {
-                    attendanceRepository.delete(attendance);
-                    return ResponseEntity.ok().build();
-                })
-                .orElse(ResponseEntity.notFound().build());
+        if (attendanceService.deleteAttendance(id)) {
+            return ResponseEntity.ok().build();
+        }
+        return ResponseEntity.notFound().build();
     }
 
     @GetMapping("/child/{childId}")
-    public List<Attendance> getAttendancesByChild(@PathVariable Long childId) {
-        return attendanceRepository.findByChildId(childId);
+    public ResponseEntity<List<Attendance>> getAttendancesByChild(
+            @PathVariable Long childId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + AttendanceService.DEFAULT_PAGE_SIZE) int limit) {
+        return toResponse(attendanceService.getHistory(childId, from, to, cursor, limit));
+    }
+
+    private ResponseEntity<List<Attendance>> toResponse(AttendancePage page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.items());
     }
 } 
\ No newline at end of file
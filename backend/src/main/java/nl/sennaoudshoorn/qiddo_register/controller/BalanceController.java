@@ -0,0 +1,39 @@
+package nl.sennaoudshoorn.qiddo_register.controller;
+
+import java.util.List;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import nl.sennaoudshoorn.qiddo_register.dto.BalanceReconciliation;
+import nl.sennaoudshoorn.qiddo_register.dto.ParentBalanceLine;
+import nl.sennaoudshoorn.qiddo_register.service.ParentBalanceService;
+
+@RestController
+@RequestMapping("/api/balances")
+public class BalanceController {
+
+    private final ParentBalanceService balanceService;
+
+    public BalanceController(ParentBalanceService balanceService) {
+        this.balanceService = balanceService;
+    }
+
+    /**
+     * Outstanding total of every family with unpaid invoices, read from the balance ledger.
+     */
+    @GetMapping
+    public List<ParentBalanceLine> getBalances() {
+        return balanceService.findAll();
+    }
+
+    /**
+     * Checks the ledger against the invoices now instead of waiting for the nightly run.
+     */
+    @PostMapping("/reconcile")
+    public BalanceReconciliation reconcile() {
+        return balanceService.reconcile();
+    }
+}
@@ -0,0 +1,30 @@
+package nl.sennaoudshoorn.qiddo_register.controller;
+
+import java.time.YearMonth;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import nl.sennaoudshoorn.qiddo_register.dto.BillingRunResult;
+import nl.sennaoudshoorn.qiddo_register.service.BillingService;
+
+@RestController
+@RequestMapping("/api/billing")
+public class BillingController {
+
+    private final BillingService billingService;
+
+    public BillingController(BillingService billingService) {
+        this.billingService = billingService;
+    }
+
+    @PostMapping("/runs")
+    public ResponseEntity<BillingRunResult> runPeriod(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth period) {
+        return ResponseEntity.ok(billingService.runPeriod(period));
+    }
+}
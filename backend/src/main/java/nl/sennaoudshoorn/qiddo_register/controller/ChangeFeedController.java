@@ -0,0 +1,25 @@
+package nl.sennaoudshoorn.qiddo_register.controller;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import nl.sennaoudshoorn.qiddo_register.service.ChangeFeedService;
+
+@RestController
+@RequestMapping("/api/feed")
+public class ChangeFeedController {
+
+    private final ChangeFeedService changeFeedService;
+
+    public ChangeFeedController(ChangeFeedService changeFeedService) {
+        this.changeFeedService = changeFeedService;
+    }
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe() {
+        return changeFeedService.subscribe();
+    }
+}
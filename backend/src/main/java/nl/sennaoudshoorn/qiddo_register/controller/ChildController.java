@@ -1,9 +1,14 @@
 package nl.sennaoudshoorn.qiddo_register.controller;
 
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,12 +17,17 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import nl.sennaoudshoorn.qiddo_register.dto.CohortCount;
+import nl.sennaoudshoorn.qiddo_register.model.AgeCohort;
 import nl.sennaoudshoorn.qiddo_register.model.Child;
 import nl.sennaoudshoorn.qiddo_register.model.Parent;
 import nl.sennaoudshoorn.qiddo_register.service.ChildService;
 import nl.sennaoudshoorn.qiddo_register.service.ParentService;
+import nl.sennaoudshoorn.qiddo_register.service.ResourceVersions;
 
 @RestController
 @RequestMapping("/api/children")
@@ -29,9 +39,12 @@ public class ChildController {
     @Autowired
     private ParentService parentService;
 
+    @Autowired
+    private ResourceVersions resourceVersions;
+
     @GetMapping
-    public ResponseEntity<List<Child>> getAllChildren() {
-        return ResponseEntity.ok(childService.getAllChildren());
+    public ResponseEntity<List<Child>> getAllChildren(WebRequest request) {
+        return withETag(request, childService::getAllChildren);
     }
 
     @GetMapping("/{id}")
@@ -92,17 +105,58 @@ public class ChildController {
     }
 
     @GetMapping("/parent/{parentId}")
-    public ResponseEntity<List<Child>> getChildrenByParent(@PathVariable Long parentId) {
-        return ResponseEntity.ok(childService.getChildrenByParentId(parentId));
+    public ResponseEntity<List<Child>> getChildrenByParent(@PathVariable Long parentId, WebRequest request) {
+        return withETag(request, () -> childService.getChildrenByParentId(parentId));
     }
 
     @GetMapping("/active")
-    public ResponseEntity<List<Child>> getActiveChildren() {
-        return ResponseEntity.ok(childService.getActiveChildren());
+    public ResponseEntity<List<Child>> getActiveChildren(WebRequest request) {
+        return withETag(request, childService::getActiveChildren);
     }
 
     @GetMapping("/inactive")
-    public ResponseEntity<List<Child>> getInactiveChildren() {
-        return ResponseEntity.ok(childService.getInactiveChildren());
+    public ResponseEntity<List<Child>> getInactiveChildren(WebRequest request) {
+        return withETag(request, childService::getInactiveChildren);
+    }
+
+    /**
+     * Number of active children per age cohort on {@code date} (default today). Not
+     * ETagged: the answer changes with the date, not only with the children.
+     */
+    @GetMapping("/cohorts")
+    public List<CohortCount> getCohortCounts(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return childService.getCohortCounts(date != null ? date : LocalDate.now());
+    }
+
+    @GetMapping("/cohorts/{cohort}")
+    public List<Child> getChildrenInCohort(@PathVariable AgeCohort cohort,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return childService.getChildrenInCohort(cohort, date != null ? date : LocalDate.now());
+    }
+
+    /**
+     * Active children who turn {@code age} in {@code month} (default this month), e.g. the
+     * ones moving from the daycare to the BSO with {@code age=4}.
+     */
+    @GetMapping("/turning")
+    public ResponseEntity<List<Child>> getChildrenTurning(@RequestParam int age,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth month) {
+        if (age < 0 || age > 150) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(childService.getChildrenTurning(age, month != null ? month : YearMonth.now()));
+    }
+
+    // Returns null (304 already set) when the client's copy is still current
+    private <T> ResponseEntity<T> withETag(WebRequest request, Supplier<T> body) {
+        String etag = resourceVersions.etag(ResourceVersions.Resource.PERSONS);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(body.get());
     }
 }
\ No newline at end of file
@@ -0,0 +1,70 @@
+package nl.sennaoudshoorn.qiddo_register.controller;
+
+import java.time.LocalDate;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import nl.sennaoudshoorn.qiddo_register.service.ExportService;
+
+/**
+ * Full history exports for bookkeeping and inspections, streamed row by row as NDJSON
+ * (default) or CSV. Both date bounds are optional and inclusive.
+ */
+@RestController
+@RequestMapping("/api/export")
+public class ExportController {
+
+    private final ExportService exportService;
+
+    public ExportController(ExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    @GetMapping("/attendances")
+    public ResponseEntity<StreamingResponseBody> exportAttendances(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        ExportService.Format exportFormat = ExportService.Format.of(format);
+        checkRange(from, to);
+        return response(exportFormat, "aanwezigheid",
+                outputStream -> exportService.writeAttendances(from, to, exportFormat, outputStream));
+    }
+
+    @GetMapping("/invoices")
+    public ResponseEntity<StreamingResponseBody> exportInvoices(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        ExportService.Format exportFormat = ExportService.Format.of(format);
+        checkRange(from, to);
+        return response(exportFormat, "facturen",
+                outputStream -> exportService.writeInvoices(from, to, exportFormat, outputStream));
+    }
+
+    private static void checkRange(LocalDate from, LocalDate to) {
+        if (from != null && to != null && to.isBefore(from)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "to ligt voor from");
+        }
+    }
+
+    private static ResponseEntity<StreamingResponseBody> response(ExportService.Format format, String name,
+                                                                  StreamingResponseBody body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(format.mediaType() + ";charset=UTF-8"));
+        headers.setContentDispositionFormData("attachment", name + "." + format.extension());
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(body);
+    }
+}
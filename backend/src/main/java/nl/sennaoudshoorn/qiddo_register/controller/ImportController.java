@@ -0,0 +1,35 @@
+package nl.sennaoudshoorn.qiddo_register.controller;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import nl.sennaoudshoorn.qiddo_register.dto.ImportResult;
+import nl.sennaoudshoorn.qiddo_register.service.PersonImportService;
+
+@RestController
+@RequestMapping("/api/import")
+public class ImportController {
+
+    private final PersonImportService importService;
+
+    public ImportController(PersonImportService importService) {
+        this.importService = importService;
+    }
+
+    /**
+     * Imports parents and children from a UTF-8 CSV request body
+     * ({@code Content-Type: text/csv}). The body is read as a stream, never buffered whole;
+     * see {@link PersonImportService} for the columns.
+     */
+    @PostMapping(value = "/persons", consumes = { "text/csv", "text/plain", "application/octet-stream" })
+    public ImportResult importPersons(InputStream body) throws IOException {
+        return importService.importCsv(new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)));
+    }
+}
@@ -2,15 +2,24 @@ package nl.sennaoudshoorn.qiddo_register.controller;
 
 import nl.sennaoudshoorn.qiddo_register.model.Invoice;
 import nl.sennaoudshoorn.qiddo_register.repository.InvoiceRepository;
+import nl.sennaoudshoorn.qiddo_register.service.InvoicePdfExportService;
 import nl.sennaoudshoorn.qiddo_register.service.InvoicePdfService;
+import nl.sennaoudshoorn.qiddo_register.service.InvoicePdfVersions;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.YearMonth;
+import java.util.List;
+
 @RestController
 @RequestMapping("/api")
 public class InvoicePdfController {
@@ -23,31 +32,84 @@ public class InvoicePdfController {
     @Autowired
     private InvoicePdfService invoicePdfService;
 
+    @Autowired
+    private InvoicePdfExportService invoicePdfExportService;
+
+    @Autowired
+    private InvoicePdfVersions invoicePdfVersions;
+
     @GetMapping("/invoice-pdf/{id}")
-    public ResponseEntity<byte[]> downloadInvoice(@PathVariable Long id) {
+    public ResponseEntity<StreamingResponseBody> downloadInvoice(@PathVariable Long id, WebRequest request) {
         logger.info("Attempting to download invoice with ID: {}", id);
-        
-        Invoice invoice = invoiceRepository.findById(id).orElse(null);
+
+        // Unchanged since the client's copy: answer 304 from the version columns alone
+        String cachedETag = invoicePdfVersions.find(id).map(InvoicePdfVersions::etag).orElse(null);
+        if (cachedETag != null && request.checkNotModified(cachedETag)) {
+            logger.info("Invoice {} not modified", id);
+            return null;
+        }
+
+        Invoice invoice = invoiceRepository.findWithParentById(id).orElse(null);
         if (invoice == null) {
             logger.warn("Invoice not found with ID: {}", id);
             return ResponseEntity.notFound().build();
         }
 
         logger.info("Found invoice: {}", invoice);
-        try {
-            byte[] pdfBytes = invoicePdfService.generateInvoicePdf(invoice);
-            logger.info("PDF generated successfully, size: {} bytes", pdfBytes.length);
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.setContentDispositionFormData("attachment", "factuur_" + id + ".pdf");
-            
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(pdfBytes);
-        } catch (Exception e) {
-            logger.error("Error generating PDF for invoice {}: {}", id, e.getMessage());
-            return ResponseEntity.internalServerError().build();
+
+        // Copied from the PDF cache when possible, otherwise rendered straight into the response
+        StreamingResponseBody body = outputStream -> {
+            try {
+                invoicePdfService.streamInvoicePdf(invoice, outputStream);
+                logger.info("PDF for invoice {} streamed successfully", id);
+            } catch (RuntimeException e) {
+                logger.error("Error generating PDF for invoice {}: {}", id, e.getMessage());
+                throw e;
+            }
+        };
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        headers.setContentDispositionFormData("attachment", "factuur_" + id + ".pdf");
+        // Taken from the loaded invoice, in case it changed after the version lookup
+        headers.setETag(InvoicePdfVersions.etag(InvoicePdfVersions.of(invoice)));
+        headers.setCacheControl(CacheControl.noCache());
+
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(body);
+    }
+
+    @GetMapping("/invoice-pdf/export")
+    public ResponseEntity<StreamingResponseBody> exportMonth(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth month) {
+        List<Long> invoiceIds = invoicePdfExportService.findInvoiceIds(month);
+        logger.info("Exporting {} invoices for {}", invoiceIds.size(), month);
+        return zipResponse(invoiceIds, "facturen_" + month + ".zip");
+    }
+
+    @PostMapping("/invoice-pdf/export")
+    public ResponseEntity<StreamingResponseBody> exportInvoices(@RequestBody List<Long> invoiceIds) {
+        if (invoiceIds == null || invoiceIds.isEmpty()) {
+            return ResponseEntity.badRequest().build();
         }
+        logger.info("Exporting {} selected invoices", invoiceIds.size());
+        return zipResponse(invoiceIds, "facturen.zip");
+    }
+
+    private ResponseEntity<StreamingResponseBody> zipResponse(List<Long> invoiceIds, String filename) {
+        StreamingResponseBody body = outputStream -> {
+            long start = System.nanoTime();
+            invoicePdfExportService.writeZip(invoiceIds, outputStream);
+            logger.info("Exported {} invoices in {} ms", invoiceIds.size(), (System.nanoTime() - start) / 1_000_000);
+        };
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("application/zip"));
+        headers.setContentDispositionFormData("attachment", filename);
+
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(body);
     }
-} 
\ No newline at end of file
+}
@@ -2,25 +2,37 @@ package nl.sennaoudshoorn.qiddo_register.controller;
 
 import java.util.List;
 
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import nl.sennaoudshoorn.qiddo_register.model.Parent;
 import nl.sennaoudshoorn.qiddo_register.service.ParentService;
+import nl.sennaoudshoorn.qiddo_register.service.ResourceVersions;
 
 @RestController
 @RequestMapping("/api/parents")
 public class ParentController {
 
     private final ParentService parentService;
+    private final ResourceVersions resourceVersions;
 
-    public ParentController(ParentService parentService) {
+    public ParentController(ParentService parentService, ResourceVersions resourceVersions) {
         this.parentService = parentService;
+        this.resourceVersions = resourceVersions;
     }
 
     @GetMapping
-    public ResponseEntity<List<Parent>> getAllParents() {
-        return ResponseEntity.ok(parentService.findAll());
+    public ResponseEntity<List<Parent>> getAllParents(WebRequest request) {
+        String etag = resourceVersions.etag(ResourceVersions.Resource.PERSONS);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(parentService.findAll());
     }
 
     @GetMapping("/{id}")
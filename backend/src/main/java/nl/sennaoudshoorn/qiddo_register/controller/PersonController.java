@@ -1,31 +1,70 @@
 package nl.sennaoudshoorn.qiddo_register.controller;
 
 import java.util.List;
+import java.util.Locale;
 
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import nl.sennaoudshoorn.qiddo_register.dto.PersonSearchHit;
 import nl.sennaoudshoorn.qiddo_register.model.Person;
+import nl.sennaoudshoorn.qiddo_register.model.PersonDirectoryEntry;
+import nl.sennaoudshoorn.qiddo_register.service.PersonSearchIndex;
 import nl.sennaoudshoorn.qiddo_register.service.PersonService;
+import nl.sennaoudshoorn.qiddo_register.service.ResourceVersions;
 
 @RestController
 @RequestMapping("/api/persons")
 public class PersonController {
 
     private final PersonService personService;
+    private final ResourceVersions resourceVersions;
+    private final PersonSearchIndex searchIndex;
 
-    public PersonController(PersonService personService) {
+    public PersonController(PersonService personService, ResourceVersions resourceVersions,
+                            PersonSearchIndex searchIndex) {
         this.personService = personService;
+        this.resourceVersions = resourceVersions;
+        this.searchIndex = searchIndex;
     }
 
+    /**
+     * Directory van alle personen (id, naam, rol, actief, ouder), optioneel gefilterd op
+     * rol (PARENT of CHILD) en actief. Voor alle gegevens: {@code /api/persons/{id}}.
+     */
     @GetMapping
-    public List<Person> getAll() {
-        return personService.findAll();
+    public ResponseEntity<List<PersonDirectoryEntry>> getAll(@RequestParam(required = false) String role,
+                                                             @RequestParam(required = false) Boolean active,
+                                                             WebRequest request) {
+        // De ETag verandert bij elke wijziging van een persoon, dus geldt ook per filter
+        String etag = resourceVersions.etag(ResourceVersions.Resource.PERSONS);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(personService.findAll(role != null ? role.toUpperCase(Locale.ROOT) : null, active));
+    }
+
+    /**
+     * Autocomplete op naam, e-mailadres en telefoonnummer uit de zoekindex in het geheugen.
+     * Elk woord in {@code q} moet het begin zijn van een woord van de persoon.
+     */
+    @GetMapping("/search")
+    public List<PersonSearchHit> search(@RequestParam String q,
+                                        @RequestParam(required = false) String role,
+                                        @RequestParam(defaultValue = "10") int limit) {
+        return searchIndex.search(q, role != null ? role.toUpperCase(Locale.ROOT) : null, limit);
     }
 
     @GetMapping("/{id}")
@@ -0,0 +1,86 @@
+package nl.sennaoudshoorn.qiddo_register.controller;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import nl.sennaoudshoorn.qiddo_register.dto.HoursReportLine;
+import nl.sennaoudshoorn.qiddo_register.dto.OccupancyTimeline;
+import nl.sennaoudshoorn.qiddo_register.service.AttendanceRollupService;
+import nl.sennaoudshoorn.qiddo_register.service.OccupancyService;
+
+/**
+ * Urenrapporten op basis van de rollup per kind per dag, en de bezetting door de tijd.
+ */
+@RestController
+@RequestMapping("/api/reports")
+public class ReportController {
+
+    private final AttendanceRollupService rollupService;
+    private final OccupancyService occupancyService;
+
+    public ReportController(AttendanceRollupService rollupService, OccupancyService occupancyService) {
+        this.rollupService = rollupService;
+        this.occupancyService = occupancyService;
+    }
+
+    @GetMapping("/hours")
+    public List<HoursReportLine> getHoursByChild(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth to) {
+        return rollupService.hoursByChild(from, checkRange(from, to));
+    }
+
+    @GetMapping("/hours/child/{childId}")
+    public List<HoursReportLine> getHoursForChild(
+            @PathVariable Long childId,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth to) {
+        return rollupService.hoursForChild(childId, from, checkRange(from, to));
+    }
+
+    @GetMapping("/hours/child/{childId}/days")
+    public List<HoursReportLine> getDailyHoursForChild(
+            @PathVariable Long childId,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth month) {
+        return rollupService.dailyHoursForChild(childId, month);
+    }
+
+    @GetMapping("/invoice-totals")
+    public List<HoursReportLine> getInvoiceTotals(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth month) {
+        return rollupService.invoiceTotals(month);
+    }
+
+    @GetMapping("/occupancy")
+    public OccupancyTimeline getOccupancy(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "15") int slot) {
+        return occupancyService.timeline(from, to != null ? to : from, slot);
+    }
+
+    @PostMapping("/hours/rebuild")
+    public Map<String, Long> rebuild() {
+        return Map.of("rows", rollupService.rebuild());
+    }
+
+    private static YearMonth checkRange(YearMonth from, YearMonth to) {
+        YearMonth end = to != null ? to : from;
+        if (end.isBefore(from)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "to ligt voor from");
+        }
+        return end;
+    }
+}
@@ -0,0 +1,35 @@
+package nl.sennaoudshoorn.qiddo_register.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Positie in de aanwezigheidshistorie: de (checkInTime, id) van de laatst
+ * geleverde rij. Wordt als opaque token naar de client gestuurd.
+ */
+public record AttendanceCursor(LocalDateTime checkInTime, Long id) {
+
+    private static final char SEPARATOR = '|';
+
+    public String encode() {
+        String raw = checkInTime.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static AttendanceCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Ongeldige cursor: " + token);
+            }
+            return new AttendanceCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Ongeldige cursor: " + token, e);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package nl.sennaoudshoorn.qiddo_register.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Eén aanwezigheid in een export; {@code checkOutTime} is null zolang het kind binnen is.
+ */
+public record AttendanceExportRow(long id, long childId, String childNaam, LocalDateTime checkInTime,
+                                  LocalDateTime checkOutTime) {
+}
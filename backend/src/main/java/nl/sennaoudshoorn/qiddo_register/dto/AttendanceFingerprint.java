@@ -0,0 +1,16 @@
+package nl.sennaoudshoorn.qiddo_register.dto;
+
+/**
+ * Aggregaat van de aanwezigheden van één ouder in een periode. Elke toegevoegde,
+ * verwijderde of gewijzigde aanwezigheid verandert minstens één van de sommen.
+ */
+public record AttendanceFingerprint(Long parentId, Long count, Long idSum, Long checkInSum, Long checkOutSum) {
+
+    public long value() {
+        long hash = count;
+        hash = 31 * hash + idSum;
+        hash = 31 * hash + checkInSum;
+        hash = 31 * hash + checkOutSum;
+        return hash;
+    }
+}
@@ -0,0 +1,9 @@
+package nl.sennaoudshoorn.qiddo_register.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Check-in/check-out interval van een kind, met de ouder waarop het gefactureerd wordt.
+ */
+public record AttendanceInterval(Long parentId, Long childId, LocalDateTime checkInTime, LocalDateTime checkOutTime) {
+}
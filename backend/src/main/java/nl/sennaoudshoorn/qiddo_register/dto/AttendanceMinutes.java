@@ -0,0 +1,8 @@
+package nl.sennaoudshoorn.qiddo_register.dto;
+
+/**
+ * Som van de aanwezige minuten uit de rollup, per kind of ouder en per maand of dag.
+ * {@code day} is {@code null} bij een maandtotaal.
+ */
+public record AttendanceMinutes(Long id, Integer year, Integer month, Integer day, Long minutes) {
+}
@@ -0,0 +1,12 @@
+package nl.sennaoudshoorn.qiddo_register.dto;
+
+import java.util.List;
+
+import nl.sennaoudshoorn.qiddo_register.model.Attendance;
+
+/**
+ * Een pagina aanwezigheden plus de cursor voor de volgende pagina
+ * ({@code null} als dit de laatste pagina is).
+ */
+public record AttendancePage(List<Attendance> items, String nextCursor) {
+}
@@ -0,0 +1,10 @@
+package nl.sennaoudshoorn.qiddo_register.dto;
+
+import java.util.List;
+
+/**
+ * Uitkomst van een controle van het saldogrootboek tegen de facturen: het aantal
+ * gecontroleerde ouders en de ouders waarvan het saldo afweek (en is hersteld).
+ */
+public record BalanceReconciliation(int parents, List<Long> mismatchedParentIds) {
+}
@@ -0,0 +1,14 @@
+package nl.sennaoudshoorn.qiddo_register.dto;
+
+/**
+ * Samenvatting van een facturatierun over één periode.
+ */
+public record BillingRunResult(String period,
+                               int parents,
+                               int recomputed,
+                               int unchanged,
+                               int invoicesCreated,
+                               int invoicesUpdated,
+                               int invoicesRemoved,
+                               int skippedPaid) {
+}
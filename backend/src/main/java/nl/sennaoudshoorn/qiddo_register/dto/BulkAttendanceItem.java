@@ -0,0 +1,15 @@
+package nl.sennaoudshoorn.qiddo_register.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Eén regel uit een bulk check-in/check-out verzoek. Zonder {@code time}
+ * wordt het moment van verwerken gebruikt.
+ */
+public record BulkAttendanceItem(Long childId, Action action, LocalDateTime time) {
+
+    public enum Action {
+        CHECK_IN,
+        CHECK_OUT
+    }
+}
@@ -0,0 +1,16 @@
+package nl.sennaoudshoorn.qiddo_register.dto;
+
+/**
+ * Resultaat van één regel uit een bulk verzoek, in dezelfde volgorde als het verzoek.
+ */
+public record BulkAttendanceResult(int index, Long childId, Status status, Long attendanceId, String message) {
+
+    public enum Status {
+        OK,
+        REJECTED
+    }
+
+    public static BulkAttendanceResult rejected(int index, Long childId, String message) {
+        return new BulkAttendanceResult(index, childId, Status.REJECTED, null, message);
+    }
+}
@@ -0,0 +1,12 @@
+package nl.sennaoudshoorn.qiddo_register.dto;
+
+import java.time.LocalDate;
+
+import nl.sennaoudshoorn.qiddo_register.model.AgeCohort;
+
+/**
+ * Aantal actieve kinderen in een leeftijdsgroep, met de geboortedata van de groep
+ * ({@code bornFrom} tot en met {@code bornTo}).
+ */
+public record CohortCount(AgeCohort cohort, LocalDate bornFrom, LocalDate bornTo, long children) {
+}
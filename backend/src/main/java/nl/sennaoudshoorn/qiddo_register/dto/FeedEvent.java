@@ -0,0 +1,7 @@
+package nl.sennaoudshoorn.qiddo_register.dto;
+
+/**
+ * Eén bericht in de change feed. {@code id} loopt op over alle berichten.
+ */
+public record FeedEvent(long id, String type, Object data) {
+}
@@ -0,0 +1,11 @@
+package nl.sennaoudshoorn.qiddo_register.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Eén regel van een urenrapport. {@code period} is een maand (yyyy-MM) of een dag
+ * (yyyy-MM-dd); {@code amount} is alleen gevuld bij de factuurtotalen per ouder.
+ */
+public record HoursReportLine(Long childId, Long parentId, String period, long minutes, BigDecimal hours,
+                              BigDecimal amount) {
+}
@@ -0,0 +1,11 @@
+package nl.sennaoudshoorn.qiddo_register.dto;
+
+import java.util.List;
+
+/**
+ * Uitkomst van een import. {@code errors} bevat hooguit {@code qiddo.import.max-errors}
+ * regels; {@code errorsTruncated} geeft aan dat er meer waren dan gerapporteerd.
+ */
+public record ImportResult(long rows, long parents, long children, long rejected, List<ImportRowError> errors,
+                           boolean errorsTruncated) {
+}
@@ -0,0 +1,7 @@
+package nl.sennaoudshoorn.qiddo_register.dto;
+
+/**
+ * Afgewezen regel uit een import, met het regelnummer in het bestand (de kopregel is 1).
+ */
+public record ImportRowError(long line, String message) {
+}
@@ -0,0 +1,11 @@
+package nl.sennaoudshoorn.qiddo_register.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Eén factuur in een export, met het bedrag op centen afgerond.
+ */
+public record InvoiceExportRow(long id, long parentId, String parentNaam, LocalDate invoiceDate,
+                               BigDecimal amount, boolean paid) {
+}
@@ -0,0 +1,7 @@
+package nl.sennaoudshoorn.qiddo_register.dto;
+
+/**
+ * Versies van een factuur en de bijbehorende ouder; samen bepalen ze de inhoud van de PDF.
+ */
+public record InvoiceVersion(Long invoiceId, long version, long parentVersion) {
+}
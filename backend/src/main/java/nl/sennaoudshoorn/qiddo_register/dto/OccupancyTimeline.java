@@ -0,0 +1,19 @@
+package nl.sennaoudshoorn.qiddo_register.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Bezetting over een periode: per tijdvak het aantal aanwezige kinderen aan het begin
+ * van het vak en het hoogste aantal binnen het vak, plus de piek per week (vanaf maandag).
+ */
+public record OccupancyTimeline(LocalDate from, LocalDate to, int slotMinutes, int peak, LocalDateTime peakAt,
+                                List<Slot> slots, List<Week> weeks) {
+
+    public record Slot(LocalDateTime start, int present, int peak) {
+    }
+
+    public record Week(LocalDate weekStart, int peak, LocalDateTime peakAt) {
+    }
+}
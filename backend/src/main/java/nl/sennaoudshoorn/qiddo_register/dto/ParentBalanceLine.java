@@ -0,0 +1,14 @@
+package nl.sennaoudshoorn.qiddo_register.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Openstaand saldo van één gezin. {@code outstanding} is {@code outstandingCents} in euro's.
+ */
+public record ParentBalanceLine(Long parentId, String naam, long outstandingCents, BigDecimal outstanding,
+                                int openInvoices) {
+
+    public ParentBalanceLine(Long parentId, String naam, long outstandingCents, int openInvoices) {
+        this(parentId, naam, outstandingCents, BigDecimal.valueOf(outstandingCents, 2), openInvoices);
+    }
+}
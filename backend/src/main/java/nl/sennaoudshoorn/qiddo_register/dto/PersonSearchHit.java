@@ -0,0 +1,9 @@
+package nl.sennaoudshoorn.qiddo_register.dto;
+
+/**
+ * Resultaat van de zoekfunctie. {@code email} en {@code phone} zijn alleen gevuld bij
+ * ouders, {@code parentId} alleen bij kinderen.
+ */
+public record PersonSearchHit(Long id, String naam, String role, boolean active, Long parentId, String email,
+                              String phone) {
+}
@@ -0,0 +1,9 @@
+package nl.sennaoudshoorn.qiddo_register.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Een kind dat op dit moment aanwezig is.
+ */
+public record PresenceEntry(Long childId, Long attendanceId, LocalDateTime checkInTime) {
+}
@@ -0,0 +1,36 @@
+package nl.sennaoudshoorn.qiddo_register.event;
+
+/**
+ * Wordt gepubliceerd bij elke wijziging van een aanwezigheid. {@code before} is
+ * {@code null} bij een nieuwe aanwezigheid, {@code after} is {@code null} bij verwijderen.
+ */
+public record AttendanceChangedEvent(Type type, AttendanceSnapshot before, AttendanceSnapshot after) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    public static AttendanceChangedEvent created(AttendanceSnapshot after) {
+        return new AttendanceChangedEvent(Type.CREATED, null, after);
+    }
+
+    public static AttendanceChangedEvent updated(AttendanceSnapshot before, AttendanceSnapshot after) {
+        return new AttendanceChangedEvent(Type.UPDATED, before, after);
+    }
+
+    public static AttendanceChangedEvent deleted(AttendanceSnapshot before) {
+        return new AttendanceChangedEvent(Type.DELETED, before, null);
+    }
+
+    /** Een kind is binnengekomen: een nieuwe, nog open aanwezigheid. */
+    public boolean isCheckIn() {
+        return type == Type.CREATED && after.isOpen();
+    }
+
+    /** Een open aanwezigheid heeft een check-out tijd gekregen. */
+    public boolean isCheckOut() {
+        return type == Type.UPDATED && before.isOpen() && !after.isOpen();
+    }
+}
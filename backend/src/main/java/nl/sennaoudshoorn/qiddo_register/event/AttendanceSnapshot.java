@@ -0,0 +1,20 @@
+package nl.sennaoudshoorn.qiddo_register.event;
+
+import java.time.LocalDateTime;
+
+import nl.sennaoudshoorn.qiddo_register.model.Attendance;
+
+/**
+ * Onveranderlijke kopie van een aanwezigheid op het moment van een wijziging.
+ */
+public record AttendanceSnapshot(Long id, Long childId, LocalDateTime checkInTime, LocalDateTime checkOutTime) {
+
+    public static AttendanceSnapshot of(Attendance attendance) {
+        Long childId = attendance.getChild() != null ? attendance.getChild().getId() : null;
+        return new AttendanceSnapshot(attendance.getId(), childId, attendance.getCheckInTime(), attendance.getCheckOutTime());
+    }
+
+    public boolean isOpen() {
+        return checkOutTime == null;
+    }
+}
@@ -0,0 +1,14 @@
+package nl.sennaoudshoorn.qiddo_register.event;
+
+/**
+ * Wordt gepubliceerd bij het aanmaken, wijzigen, deactiveren of verwijderen van een kind.
+ */
+public record ChildChangedEvent(Type type, ChildSnapshot child) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DEACTIVATED,
+        DELETED
+    }
+}
@@ -0,0 +1,19 @@
+package nl.sennaoudshoorn.qiddo_register.event;
+
+import java.time.LocalDate;
+
+import nl.sennaoudshoorn.qiddo_register.model.Child;
+
+/**
+ * Onveranderlijke kopie van een kind op het moment van een wijziging, veilig om na
+ * de transactie nog te lezen of te serialiseren.
+ */
+public record ChildSnapshot(Long id, String naam, LocalDate geboortedatum, String gender, String allergies,
+                            String dietaryPreferences, String notes, boolean active, Long parentId) {
+
+    public static ChildSnapshot of(Child child) {
+        Long parentId = child.getParent() != null ? child.getParent().getId() : null;
+        return new ChildSnapshot(child.getId(), child.getNaam(), child.getGeboortedatum(), child.getGender(),
+                child.getAllergies(), child.getDietaryPreferences(), child.getNotes(), child.isActive(), parentId);
+    }
+}
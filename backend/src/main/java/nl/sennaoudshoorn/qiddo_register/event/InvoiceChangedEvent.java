@@ -0,0 +1,21 @@
+package nl.sennaoudshoorn.qiddo_register.event;
+
+/**
+ * Wordt gepubliceerd bij elke wijziging van een factuur, binnen de transactie van die
+ * wijziging. {@code before} is {@code null} bij een nieuwe factuur, {@code after} is
+ * {@code null} bij verwijderen.
+ */
+public record InvoiceChangedEvent(InvoiceSnapshot before, InvoiceSnapshot after) {
+
+    public static InvoiceChangedEvent created(InvoiceSnapshot after) {
+        return new InvoiceChangedEvent(null, after);
+    }
+
+    public static InvoiceChangedEvent updated(InvoiceSnapshot before, InvoiceSnapshot after) {
+        return new InvoiceChangedEvent(before, after);
+    }
+
+    public static InvoiceChangedEvent deleted(InvoiceSnapshot before) {
+        return new InvoiceChangedEvent(before, null);
+    }
+}
@@ -0,0 +1,29 @@
+package nl.sennaoudshoorn.qiddo_register.event;
+
+import nl.sennaoudshoorn.qiddo_register.model.Invoice;
+
+/**
+ * Onveranderlijke kopie van een factuur op het moment van een wijziging, met het bedrag
+ * in hele centen.
+ */
+public record InvoiceSnapshot(Long id, Long parentId, long amountCents, boolean paid) {
+
+    public static InvoiceSnapshot of(Invoice invoice) {
+        Long parentId = invoice.getParent() != null ? invoice.getParent().getId() : null;
+        return new InvoiceSnapshot(invoice.getId(), parentId, cents(invoice.getAmount()),
+                Boolean.TRUE.equals(invoice.isPaid()));
+    }
+
+    /**
+     * Zelfde afronding als {@code round(amount * 100)} in SQL; bedragen hebben twee
+     * decimalen, dus er valt nooit iets op de helft af te ronden.
+     */
+    public static long cents(Double amount) {
+        return amount != null ? Math.round(amount * 100) : 0;
+    }
+
+    /** Telt deze factuur mee in het openstaande saldo van de ouder? */
+    public boolean isOutstanding() {
+        return !paid && parentId != null;
+    }
+}
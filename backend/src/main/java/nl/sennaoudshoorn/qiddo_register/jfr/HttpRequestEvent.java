@@ -0,0 +1,29 @@
+package nl.sennaoudshoorn.qiddo_register.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Eén HTTP request, van binnenkomst tot het einde van de request thread. Repository-
+ * en PDF-events op dezelfde thread binnen deze periode horen bij dit request.
+ */
+@Name("nl.sennaoudshoorn.qiddo.HttpRequest")
+@Label("HTTP Request")
+@Category({ "Qiddo", "HTTP" })
+@StackTrace(false)
+public class HttpRequestEvent extends jdk.jfr.Event {
+
+    @Label("Method")
+    public String method;
+
+    @Label("Endpoint")
+    public String endpoint;
+
+    @Label("Status")
+    public int status;
+
+    @Label("Queries")
+    public int queries;
+}
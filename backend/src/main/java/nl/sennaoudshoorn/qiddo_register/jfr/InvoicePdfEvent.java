@@ -0,0 +1,27 @@
+package nl.sennaoudshoorn.qiddo_register.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Het ophalen van één factuur-PDF, uit de cache of gerenderd.
+ */
+@Name("nl.sennaoudshoorn.qiddo.InvoicePdf")
+@Label("Invoice PDF")
+@Category({ "Qiddo", "PDF" })
+@StackTrace(false)
+public class InvoicePdfEvent extends jdk.jfr.Event {
+
+    @Label("Invoice Id")
+    public long invoiceId;
+
+    @Label("Cache Hit")
+    public boolean cacheHit;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+}
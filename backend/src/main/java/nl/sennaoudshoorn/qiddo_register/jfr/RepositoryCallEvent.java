@@ -0,0 +1,32 @@
+package nl.sennaoudshoorn.qiddo_register.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Eén aanroep van een Spring Data repository. De stack trace staat aan, zodat in JFR te
+ * zien is vanuit welke service of controller de query kwam.
+ */
+@Name("nl.sennaoudshoorn.qiddo.RepositoryCall")
+@Label("Repository Call")
+@Category({ "Qiddo", "Database" })
+@Description("Call of a Spring Data repository method")
+@StackTrace(true)
+public class RepositoryCallEvent extends jdk.jfr.Event {
+
+    @Label("Entity Type")
+    public String entityType;
+
+    @Label("Method")
+    public String method;
+
+    @Label("Rows")
+    @Description("Rows returned, or rows affected by a modifying query; -1 if unknown")
+    public long rows;
+
+    @Label("Failed")
+    public boolean failed;
+}
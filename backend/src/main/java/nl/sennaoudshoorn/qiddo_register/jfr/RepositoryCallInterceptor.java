@@ -0,0 +1,74 @@
+package nl.sennaoudshoorn.qiddo_register.jfr;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.data.domain.Slice;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Legt elke repository-aanroep vast als {@link RepositoryCallEvent}. Staat het event uit
+ * in de lopende recording, dan kost dit alleen de controle daarop.
+ */
+public class RepositoryCallInterceptor implements MethodInterceptor {
+
+    private final String entityType;
+
+    public RepositoryCallInterceptor(Class<?> domainType) {
+        this.entityType = domainType.getSimpleName();
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        RepositoryCallEvent event = new RepositoryCallEvent();
+        if (!event.isEnabled()) {
+            return invocation.proceed();
+        }
+        event.begin();
+        Object result = null;
+        boolean failed = true;
+        try {
+            result = invocation.proceed();
+            failed = false;
+            return result;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.entityType = entityType;
+                event.method = invocation.getMethod().getName();
+                event.rows = failed ? -1 : rows(result);
+                event.failed = failed;
+                event.commit();
+            }
+        }
+    }
+
+    private static long rows(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Slice<?> slice) {
+            return slice.getNumberOfElements();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        if (result instanceof Map<?, ?> map) {
+            return map.size();
+        }
+        // Een Stream wordt pas gelezen na de aanroep; een int of long is het aantal gewijzigde rijen
+        if (result instanceof Stream<?> || result instanceof Iterable<?>) {
+            return -1;
+        }
+        if (result instanceof Integer || result instanceof Long) {
+            return ((Number) result).longValue();
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,37 @@
+package nl.sennaoudshoorn.qiddo_register.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Een request dat langer duurde dan {@code qiddo.jfr.slow-request}. Bevat, anders dan
+ * {@link HttpRequestEvent}, het volledige pad en de id's uit pad en query string.
+ */
+@Name("nl.sennaoudshoorn.qiddo.SlowRequest")
+@Label("Slow Request")
+@Category({ "Qiddo", "HTTP" })
+@StackTrace(false)
+public class SlowRequestEvent extends jdk.jfr.Event {
+
+    @Label("Method")
+    public String method;
+
+    @Label("Path")
+    public String path;
+
+    @Label("Endpoint")
+    public String endpoint;
+
+    @Label("Ids")
+    @Description("Path variables and id parameters, for example id=12,childId=7")
+    public String ids;
+
+    @Label("Status")
+    public int status;
+
+    @Label("Queries")
+    public int queries;
+}
@@ -0,0 +1,44 @@
+package nl.sennaoudshoorn.qiddo_register.model;
+
+import java.time.LocalDate;
+
+/**
+ * Leeftijdsgroepen van de opvang, van {@code minAge} tot (niet tot en met) {@code maxAge}
+ * jaar.
+ */
+public enum AgeCohort {
+    BABY(0, 1),
+    DREUMES(1, 2),
+    PEUTER(2, 4),
+    BSO(4, 13);
+
+    private final int minAge;
+    private final int maxAge;
+
+    AgeCohort(int minAge, int maxAge) {
+        this.minAge = minAge;
+        this.maxAge = maxAge;
+    }
+
+    public int getMinAge() {
+        return minAge;
+    }
+
+    public int getMaxAge() {
+        return maxAge;
+    }
+
+    /**
+     * Vroegste geboortedatum (inclusief) die op {@code date} in deze groep valt.
+     */
+    public LocalDate bornFrom(LocalDate date) {
+        return date.minusYears(maxAge).plusDays(1);
+    }
+
+    /**
+     * Eerste geboortedatum die op {@code date} te jong is voor deze groep (exclusief).
+     */
+    public LocalDate bornBefore(LocalDate date) {
+        return date.minusYears(minAge).plusDays(1);
+    }
+}
@@ -1,5 +1,6 @@
 package nl.sennaoudshoorn.qiddo_register.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -7,19 +8,30 @@ import lombok.Setter;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_attendance_child_check_in", columnList = "child_id, check_in_time"),
+        @Index(name = "idx_attendance_check_in", columnList = "check_in_time"),
+        @Index(name = "idx_attendance_check_out", columnList = "check_out_time")
+})
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Getter
 @Setter
 public class Attendance {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long id;
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "attendance_seq")
+    @SequenceGenerator(name = "attendance_seq", sequenceName = "attendance_seq", allocationSize = 50)
+    private Long id; // Sequence i.p.v. IDENTITY zodat Hibernate inserts kan batchen
+
+    @Version
+    @Column(nullable = false)
+    private long version; // Optimistic locking
 
     @Column(nullable = false)
     private LocalDateTime checkInTime;
 
     private LocalDateTime checkOutTime;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "child_id", nullable = false)
     private Child child;
 
@@ -43,6 +55,14 @@ public class Attendance {
         this.id = id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public LocalDateTime getCheckInTime() {
         return checkInTime;
     }
@@ -0,0 +1,53 @@
+package nl.sennaoudshoorn.qiddo_register.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * Rollup van de aanwezigheid: per kind en dag het aantal minuten uit afgesloten
+ * aanwezigheden. Wordt bijgewerkt door de AttendanceRollupService en is altijd opnieuw
+ * op te bouwen uit de aanwezigheden. Bewust zonder foreign key naar het kind, zodat het
+ * bijwerken van de rollup nooit op locks van de person tabel hoeft te wachten.
+ */
+@Entity
+@Table(name = "attendance_day",
+        uniqueConstraints = @UniqueConstraint(name = "uk_attendance_day_child_date", columnNames = {"child_id", "attendance_date"}),
+        indexes = @Index(name = "idx_attendance_day_date", columnList = "attendance_date"))
+@Getter
+@Setter
+public class AttendanceDay {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "child_id", nullable = false)
+    private Long childId;
+
+    @Column(name = "attendance_date", nullable = false)
+    private LocalDate date;
+
+    @Column(nullable = false)
+    private long minutes; // Aanwezige minuten op deze dag
+
+    public AttendanceDay() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getChildId() {
+        return childId;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public long getMinutes() {
+        return minutes;
+    }
+}
@@ -0,0 +1,93 @@
+package nl.sennaoudshoorn.qiddo_register.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Administratie van de automatische facturatie: per ouder en periode de vingerafdruk
+ * van de aanwezigheden waarop de laatste berekening gebaseerd was. Een nieuwe run
+ * rekent alleen ouders opnieuw door waarvan de vingerafdruk veranderd is.
+ */
+@Entity
+@Table(name = "billing_period_state",
+        uniqueConstraints = @UniqueConstraint(name = "uk_billing_parent_period", columnNames = {"period", "parent_id"}))
+@Getter
+@Setter
+public class BillingPeriodState {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 7)
+    private String period; // Periode als yyyy-MM
+
+    @Column(name = "parent_id", nullable = false)
+    private Long parentId;
+
+    @Column(nullable = false)
+    private long fingerprint; // Vingerafdruk van de aanwezigheden in de periode
+
+    @Column(nullable = false)
+    private long billableMinutes; // Gefactureerde minuten
+
+    @Column(name = "invoice_id")
+    private Long invoiceId; // Aangemaakte factuur, null als er niets te factureren was
+
+    @Column(nullable = false)
+    private LocalDateTime computedAt;
+
+    public BillingPeriodState() {
+    }
+
+    public BillingPeriodState(String period, Long parentId) {
+        this.period = period;
+        this.parentId = parentId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getPeriod() {
+        return period;
+    }
+
+    public Long getParentId() {
+        return parentId;
+    }
+
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(long fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    public long getBillableMinutes() {
+        return billableMinutes;
+    }
+
+    public void setBillableMinutes(long billableMinutes) {
+        this.billableMinutes = billableMinutes;
+    }
+
+    public Long getInvoiceId() {
+        return invoiceId;
+    }
+
+    public void setInvoiceId(Long invoiceId) {
+        this.invoiceId = invoiceId;
+    }
+
+    public LocalDateTime getComputedAt() {
+        return computedAt;
+    }
+
+    public void setComputedAt(LocalDateTime computedAt) {
+        this.computedAt = computedAt;
+    }
+}
@@ -28,7 +28,7 @@ public class Child extends Person {
     @Column
     private boolean active = true; // Geeft aan of het kind nog actief is in de opvang
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "parent_id", nullable = false)
     private Parent parent; // De ouder van het kind
 
@@ -36,7 +36,7 @@ public class Child extends Person {
         super();
     }
 
-    public Child(String naam, String geboortedatum, String gender, Parent parent) {
+    public Child(String naam, LocalDate geboortedatum, String gender, Parent parent) {
         super(naam, geboortedatum, gender);
         this.parent = parent;
     }
@@ -46,6 +46,19 @@ public class Child extends Person {
         return "Kind";
     }
 
+    /**
+     * Losse kopie met een kopie van de ouder, buiten elke persistence context (voor de caches).
+     */
+    public Child copy() {
+        Child copy = copyTo(new Child());
+        copy.setAllergies(allergies);
+        copy.setDietaryPreferences(dietaryPreferences);
+        copy.setNotes(notes);
+        copy.setActive(active);
+        copy.setParent(parent != null ? parent.copy() : null);
+        return copy;
+    }
+
     // Getters and Setters
     public String getAllergies() {
         return allergies;
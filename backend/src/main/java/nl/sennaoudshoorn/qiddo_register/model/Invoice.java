@@ -1,5 +1,6 @@
 package nl.sennaoudshoorn.qiddo_register.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -7,6 +8,8 @@ import lombok.Setter;
 import java.time.LocalDate;
 
 @Entity
+@Table(indexes = @Index(name = "idx_invoice_date", columnList = "invoice_date"))
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Getter
 @Setter
 public class Invoice {
@@ -14,6 +17,10 @@ public class Invoice {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Version
+    @Column(nullable = false)
+    private long version; // Optimistic locking, ook de basis voor ETags
+
     @Column(nullable = false)
     private Double amount;
 
@@ -23,7 +30,7 @@ public class Invoice {
     @Column(nullable = false)
     private LocalDate invoiceDate;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "parent_id", nullable = false)
     private Parent parent;
 
@@ -47,6 +54,14 @@ public class Invoice {
         this.id = id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public Double getAmount() {
         return amount;
     }
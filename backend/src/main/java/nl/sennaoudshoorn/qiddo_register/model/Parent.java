@@ -29,7 +29,7 @@ public class Parent extends Person {
         super();
     }
 
-    public Parent(String naam, String geboortedatum, String gender) {
+    public Parent(String naam, LocalDate geboortedatum, String gender) {
         super(naam, geboortedatum, gender);
     }
 
@@ -38,6 +38,17 @@ public class Parent extends Person {
         return "Ouder";
     }
 
+    /**
+     * Losse kopie, buiten elke persistence context (voor de caches).
+     */
+    public Parent copy() {
+        Parent copy = copyTo(new Parent());
+        copy.setEmail(email);
+        copy.setPhone(phone);
+        copy.setAddress(address);
+        return copy;
+    }
+
     // Explicit getters and setters for compatibility
     public String getEmail() {
         return email;
@@ -0,0 +1,42 @@
+package nl.sennaoudshoorn.qiddo_register.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Openstaand saldo per ouder: de som van de onbetaalde facturen in hele centen. Wordt
+ * bijgewerkt door de ParentBalanceService in de transactie van elke factuurwijziging en
+ * is altijd opnieuw op te bouwen uit de facturen. Een ouder zonder openstaande facturen
+ * heeft geen rij. Net als de aanwezigheidsrollup zonder foreign key.
+ */
+@Entity
+@Table(name = "parent_balance")
+@Getter
+@Setter
+public class ParentBalance {
+    @Id
+    @Column(name = "parent_id")
+    private Long parentId;
+
+    @Column(name = "outstanding_cents", nullable = false)
+    private long outstandingCents;
+
+    @Column(name = "open_invoices", nullable = false)
+    private int openInvoices;
+
+    public ParentBalance() {
+    }
+
+    public Long getParentId() {
+        return parentId;
+    }
+
+    public long getOutstandingCents() {
+        return outstandingCents;
+    }
+
+    public int getOpenInvoices() {
+        return openInvoices;
+    }
+}
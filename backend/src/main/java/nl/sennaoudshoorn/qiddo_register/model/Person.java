@@ -2,6 +2,8 @@ package nl.sennaoudshoorn.qiddo_register.model;
 
 import java.time.LocalDate;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -13,19 +15,27 @@ import lombok.Setter;
 @Entity
 @Inheritance(strategy = InheritanceType.JOINED)
 @DiscriminatorColumn(name = "dtype", discriminatorType = DiscriminatorType.STRING)
+@Table(name = "person", indexes = @Index(name = "idx_person_birth_date", columnList = "birth_date"))
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"}) // Lazy proxies van ouders
 @Getter
 @Setter
 public abstract class Person {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long id;
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "person_seq")
+    @SequenceGenerator(name = "person_seq", sequenceName = "person_seq", allocationSize = 50)
+    private Long id; // Sequence i.p.v. IDENTITY zodat Hibernate inserts (zoals de import) kan batchen
 
+    @Version
     @Column(nullable = false)
-    private String naam;
+    private long version; // Optimistic locking, ook de basis voor ETags
 
     @Column(nullable = false)
-    private String geboortedatum;
+    private String naam;
+
+    // Nullable: de BirthDateMigration laat oude tekstwaarden die niet te lezen zijn leeg
+    @Column(name = "birth_date")
+    private LocalDate geboortedatum;
 
     @Column(nullable = false)
     private String gender = "Onbekend"; // Standaardwaarde voor geslacht
@@ -34,7 +44,7 @@ public abstract class Person {
         this.gender = "Onbekend";
     }
 
-    public Person(String naam, String geboortedatum, String gender) {
+    public Person(String naam, LocalDate geboortedatum, String gender) {
         this.naam = naam;
         this.geboortedatum = geboortedatum;
         this.gender = gender != null ? gender : "Onbekend";
@@ -49,6 +59,14 @@ public abstract class Person {
         this.id = id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public String getNaam() {
         return naam;
     }
@@ -56,10 +74,10 @@ public abstract class Person {
         this.naam = naam;
     }
 
-    public String getGeboortedatum() {
+    public LocalDate getGeboortedatum() {
         return geboortedatum;
     }
-    public void setGeboortedatum(String geboortedatum) {
+    public void setGeboortedatum(LocalDate geboortedatum) {
         this.geboortedatum = geboortedatum;
     }
 
@@ -70,6 +88,18 @@ public abstract class Person {
         this.gender = gender;
     }
 
+    /**
+     * Kopieert de gemeenschappelijke velden naar een nieuwe, losse instantie.
+     */
+    protected <T extends Person> T copyTo(T copy) {
+        copy.setId(id);
+        copy.setVersion(version);
+        copy.setNaam(naam);
+        copy.setGeboortedatum(geboortedatum);
+        copy.setGender(gender);
+        return copy;
+    }
+
     /**
      * Abstracte methode die door subklassen moet worden geïmplementeerd
      * om de rol van de persoon te beschrijven.
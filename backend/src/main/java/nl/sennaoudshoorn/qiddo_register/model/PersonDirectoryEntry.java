@@ -0,0 +1,50 @@
+package nl.sennaoudshoorn.qiddo_register.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Platte kopie van elke persoon voor lijsten en zoekschermen: één rij per persoon in
+ * één tabel, zonder de joins over person, parent en child die de JOINED overerving kost.
+ * Wordt bij elke wijziging bijgewerkt door de PersonDirectory en is altijd opnieuw op
+ * te bouwen uit de persoonstabellen. Het id is dat van de persoon.
+ */
+@Entity
+@Table(name = "person_directory", indexes = {
+        @Index(name = "idx_person_directory_naam", columnList = "naam, id"),
+        @Index(name = "idx_person_directory_parent", columnList = "parent_id")
+})
+@Getter
+@Setter
+public class PersonDirectoryEntry {
+
+    public static final String PARENT = "PARENT";
+    public static final String CHILD = "CHILD";
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private String naam;
+
+    @Column(nullable = false, length = 16)
+    private String role; // PARENT of CHILD, gelijk aan de discriminator van Person
+
+    @Column(nullable = false)
+    private boolean active; // Ouders zijn altijd actief
+
+    @Column(name = "parent_id")
+    private Long parentId; // Alleen bij kinderen
+
+    public PersonDirectoryEntry() {
+    }
+
+    public PersonDirectoryEntry(Long id, String naam, String role, boolean active, Long parentId) {
+        this.id = id;
+        this.naam = naam;
+        this.role = role;
+        this.active = active;
+        this.parentId = parentId;
+    }
+}
@@ -0,0 +1,69 @@
+package nl.sennaoudshoorn.qiddo_register.repository;
+
+import nl.sennaoudshoorn.qiddo_register.dto.AttendanceMinutes;
+import nl.sennaoudshoorn.qiddo_register.model.AttendanceDay;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Leest de rollup van aanwezige minuten. Het schrijven gaat via JDBC batches in de
+ * AttendanceRollupService.
+ */
+@Repository
+public interface AttendanceDayRepository extends JpaRepository<AttendanceDay, Long> {
+
+    /**
+     * Minuten per kind per maand met een dag in [from, to).
+     */
+    @Query("""
+            select new nl.sennaoudshoorn.qiddo_register.dto.AttendanceMinutes(
+                d.childId, year(d.date), month(d.date), cast(null as Integer), sum(d.minutes))
+            from AttendanceDay d
+            where d.date >= :from and d.date < :to
+            group by d.childId, year(d.date), month(d.date)
+            order by d.childId, year(d.date), month(d.date)
+            """)
+    List<AttendanceMinutes> sumByChildAndMonth(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Minuten van één kind per maand met een dag in [from, to).
+     */
+    @Query("""
+            select new nl.sennaoudshoorn.qiddo_register.dto.AttendanceMinutes(
+                d.childId, year(d.date), month(d.date), cast(null as Integer), sum(d.minutes))
+            from AttendanceDay d
+            where d.childId = :childId and d.date >= :from and d.date < :to
+            group by d.childId, year(d.date), month(d.date)
+            order by year(d.date), month(d.date)
+            """)
+    List<AttendanceMinutes> sumByMonthForChild(@Param("childId") Long childId,
+                                               @Param("from") LocalDate from,
+                                               @Param("to") LocalDate to);
+
+    List<AttendanceDay> findByChildIdAndDateGreaterThanEqualAndDateLessThanOrderByDate(Long childId,
+                                                                                        LocalDate from,
+                                                                                        LocalDate to);
+
+    /**
+     * Minuten per ouder met een dag in [from, to), via de huidige ouder van elk kind.
+     */
+    @Query("""
+            select new nl.sennaoudshoorn.qiddo_register.dto.AttendanceMinutes(
+                c.parent.id, cast(null as Integer), cast(null as Integer), cast(null as Integer), sum(d.minutes))
+            from AttendanceDay d join Child c on c.id = d.childId
+            where d.date >= :from and d.date < :to
+            group by c.parent.id
+            order by c.parent.id
+            """)
+    List<AttendanceMinutes> sumByParent(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Modifying
+    @Query("delete from AttendanceDay d where d.childId = :childId")
+    int deleteByChildId(@Param("childId") Long childId);
+}
@@ -1,12 +1,106 @@
 package nl.sennaoudshoorn.qiddo_register.repository;
 
+import nl.sennaoudshoorn.qiddo_register.dto.AttendanceFingerprint;
+import nl.sennaoudshoorn.qiddo_register.dto.AttendanceInterval;
+import nl.sennaoudshoorn.qiddo_register.event.AttendanceSnapshot;
 import nl.sennaoudshoorn.qiddo_register.model.Attendance;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
+    @Override
+    @EntityGraph(attributePaths = {"child", "child.parent"})
+    List<Attendance> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = {"child", "child.parent"})
+    Optional<Attendance> findById(Long id);
+
+    @EntityGraph(attributePaths = {"child", "child.parent"})
     List<Attendance> findByChildId(Long childId);
-} 
\ No newline at end of file
+
+    List<Attendance> findByChildIdInAndCheckOutTimeIsNull(Collection<Long> childIds);
+
+    boolean existsByChildIdAndCheckOutTimeIsNull(Long childId);
+
+    @Query("""
+            select new nl.sennaoudshoorn.qiddo_register.event.AttendanceSnapshot(
+                a.id, a.child.id, a.checkInTime, a.checkOutTime)
+            from Attendance a
+            where a.checkOutTime is null
+            """)
+    List<AttendanceSnapshot> findOpenSnapshots();
+
+    /**
+     * Keyset page over all attendances, newest first. Rows strictly before the
+     * (beforeTime, beforeId) position and not earlier than {@code from} are returned;
+     * a {@code null} {@code from} leaves the range open at the bottom.
+     */
+    @EntityGraph(attributePaths = {"child", "child.parent"})
+    @Query("""
+            select a from Attendance a
+            where (:from is null or a.checkInTime >= :from)
+              and (a.checkInTime < :beforeTime or (a.checkInTime = :beforeTime and a.id < :beforeId))
+            order by a.checkInTime desc, a.id desc
+            """)
+    List<Attendance> findPageBefore(@Param("from") LocalDateTime from,
+                                    @Param("beforeTime") LocalDateTime beforeTime,
+                                    @Param("beforeId") Long beforeId,
+                                    Limit limit);
+
+    /**
+     * Keyset page over the attendances of one child, newest first. Served by the
+     * (child_id, check_in_time) index.
+     */
+    @EntityGraph(attributePaths = {"child", "child.parent"})
+    @Query("""
+            select a from Attendance a
+            where a.child.id = :childId
+              and (:from is null or a.checkInTime >= :from)
+              and (a.checkInTime < :beforeTime or (a.checkInTime = :beforeTime and a.id < :beforeId))
+            order by a.checkInTime desc, a.id desc
+            """)
+    List<Attendance> findPageByChildBefore(@Param("childId") Long childId,
+                                           @Param("from") LocalDateTime from,
+                                           @Param("beforeTime") LocalDateTime beforeTime,
+                                           @Param("beforeId") Long beforeId,
+                                           Limit limit);
+
+    /**
+     * Vingerafdruk per ouder van alle aanwezigheden die met [from, to) overlappen.
+     */
+    @Query("""
+            select new nl.sennaoudshoorn.qiddo_register.dto.AttendanceFingerprint(
+                c.parent.id, count(a), sum(a.id),
+                sum(extract(epoch from a.checkInTime)),
+                sum(coalesce(extract(epoch from a.checkOutTime), 0)))
+            from Attendance a join a.child c
+            where a.checkInTime < :to and (a.checkOutTime is null or a.checkOutTime > :from)
+            group by c.parent.id
+            """)
+    List<AttendanceFingerprint> findFingerprintsByParent(@Param("from") LocalDateTime from,
+                                                         @Param("to") LocalDateTime to);
+
+    /**
+     * Afgesloten intervallen van de kinderen van de gegeven ouders die met [from, to) overlappen.
+     */
+    @Query("""
+            select new nl.sennaoudshoorn.qiddo_register.dto.AttendanceInterval(
+                c.parent.id, c.id, a.checkInTime, a.checkOutTime)
+            from Attendance a join a.child c
+            where c.parent.id in :parentIds and a.checkInTime < :to and a.checkOutTime > :from
+            """)
+    List<AttendanceInterval> findClosedIntervalsByParents(@Param("parentIds") Collection<Long> parentIds,
+                                                          @Param("from") LocalDateTime from,
+                                                          @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,15 @@
+package nl.sennaoudshoorn.qiddo_register.repository;
+
+import nl.sennaoudshoorn.qiddo_register.model.BillingPeriodState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BillingPeriodStateRepository extends JpaRepository<BillingPeriodState, Long> {
+    List<BillingPeriodState> findByPeriod(String period);
+
+    List<BillingPeriodState> findByPeriodAndParentIdIn(String period, Collection<Long> parentIds);
+}
@@ -2,15 +2,72 @@ package nl.sennaoudshoorn.qiddo_register.repository;
 
 import nl.sennaoudshoorn.qiddo_register.model.Child;
 import nl.sennaoudshoorn.qiddo_register.model.Parent;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.LockModeType;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+/**
+ * Kinderen worden altijd samen met hun ouder opgehaald (één join), omdat de ouder
+ * in elke response wordt meegeserialiseerd.
+ */
 @Repository
 public interface ChildRepository extends JpaRepository<Child, Long> {
+    @Override
+    @EntityGraph(attributePaths = "parent")
+    List<Child> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = "parent")
+    Optional<Child> findById(Long id);
+
+    @EntityGraph(attributePaths = "parent")
     List<Child> findByParent(Parent parent);
+
+    @EntityGraph(attributePaths = "parent")
     List<Child> findByParentId(Long parentId);
+
+    @Query("select c.id from Child c where c.parent.id = :parentId")
+    List<Long> findIdsByParentId(@Param("parentId") Long parentId);
+
+    /**
+     * Haalt kinderen op met een schrijflock op hun rij ({@code select ... for update}), zodat
+     * gelijktijdige check-ins voor hetzelfde kind op elkaar wachten. Op id gesorteerd, zodat
+     * twee verzoeken de locks in dezelfde volgorde nemen en elkaar niet kunnen deadlocken.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Child c where c.id in :ids order by c.id")
+    List<Child> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    @EntityGraph(attributePaths = "parent")
     List<Child> findByActiveTrue();
+
+    @EntityGraph(attributePaths = "parent")
     List<Child> findByActiveFalse();
-}
\ No newline at end of file
+
+    /**
+     * Actieve kinderen geboren vanaf {@code from} en vóór {@code before}, jongste eerst.
+     * Een range scan over {@code idx_person_birth_date}.
+     */
+    @EntityGraph(attributePaths = "parent")
+    @Query("""
+            select c from Child c
+            where c.active = true and c.geboortedatum >= :from and c.geboortedatum < :before
+            order by c.geboortedatum desc, c.id
+            """)
+    List<Child> findActiveBornBetween(@Param("from") LocalDate from, @Param("before") LocalDate before);
+
+    @Query("""
+            select count(c) from Child c
+            where c.active = true and c.geboortedatum >= :from and c.geboortedatum < :before
+            """)
+    long countActiveBornBetween(@Param("from") LocalDate from, @Param("before") LocalDate before);
+}
@@ -1,13 +1,39 @@
 package nl.sennaoudshoorn.qiddo_register.repository;
 
+import nl.sennaoudshoorn.qiddo_register.dto.InvoiceVersion;
 import nl.sennaoudshoorn.qiddo_register.model.Invoice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
+    @Override
+    @EntityGraph(attributePaths = "parent")
+    List<Invoice> findAll();
+
+    @EntityGraph(attributePaths = "parent")
     List<Invoice> findByParentId(Long parentId);
+
+    @EntityGraph(attributePaths = "parent")
     List<Invoice> findByParentIdAndPaidFalse(Long parentId);
-} 
\ No newline at end of file
+
+    /**
+     * Factuur met ouder, voor rendering buiten de request-transactie (PDF).
+     */
+    @EntityGraph(attributePaths = "parent")
+    Optional<Invoice> findWithParentById(Long id);
+
+    @Query("select new nl.sennaoudshoorn.qiddo_register.dto.InvoiceVersion(i.id, i.version, p.version) "
+            + "from Invoice i join i.parent p where i.id = :id")
+    Optional<InvoiceVersion> findVersionById(@Param("id") Long id);
+
+    @Query("select i.id from Invoice i where i.invoiceDate >= :from and i.invoiceDate < :to order by i.id")
+    List<Long> findIdsByInvoiceDateRange(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
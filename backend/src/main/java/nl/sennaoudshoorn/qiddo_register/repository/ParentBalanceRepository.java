@@ -0,0 +1,28 @@
+package nl.sennaoudshoorn.qiddo_register.repository;
+
+import nl.sennaoudshoorn.qiddo_register.dto.ParentBalanceLine;
+import nl.sennaoudshoorn.qiddo_register.model.ParentBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Leest het saldogrootboek. Het schrijven gaat via JDBC in de ParentBalanceService.
+ */
+@Repository
+public interface ParentBalanceRepository extends JpaRepository<ParentBalance, Long> {
+
+    /**
+     * Alle gezinnen met een openstaand saldo: een scan over de primary key van het
+     * grootboek, met de naam via de primary key van person.
+     */
+    @Query("""
+            select new nl.sennaoudshoorn.qiddo_register.dto.ParentBalanceLine(
+                b.parentId, p.naam, b.outstandingCents, b.openInvoices)
+            from ParentBalance b join Parent p on p.id = b.parentId
+            order by b.parentId
+            """)
+    List<ParentBalanceLine> findAllLines();
+}
@@ -0,0 +1,24 @@
+package nl.sennaoudshoorn.qiddo_register.repository;
+
+import nl.sennaoudshoorn.qiddo_register.model.PersonDirectoryEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PersonDirectoryRepository extends JpaRepository<PersonDirectoryEntry, Long> {
+
+    /**
+     * Alle personen op naam, optioneel alleen met de gegeven rol en/of actief-status.
+     */
+    @Query("""
+            select e from PersonDirectoryEntry e
+            where (:role is null or e.role = :role)
+              and (:active is null or e.active = :active)
+            order by e.naam, e.id
+            """)
+    List<PersonDirectoryEntry> findFiltered(@Param("role") String role, @Param("active") Boolean active);
+}
@@ -0,0 +1,316 @@
+package nl.sennaoudshoorn.qiddo_register.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import nl.sennaoudshoorn.qiddo_register.dto.AttendanceMinutes;
+import nl.sennaoudshoorn.qiddo_register.dto.HoursReportLine;
+import nl.sennaoudshoorn.qiddo_register.event.AttendanceChangedEvent;
+import nl.sennaoudshoorn.qiddo_register.event.AttendanceSnapshot;
+import nl.sennaoudshoorn.qiddo_register.event.ChildChangedEvent;
+import nl.sennaoudshoorn.qiddo_register.repository.AttendanceDayRepository;
+
+/**
+ * Houdt de rollup {@code attendance_day} bij: aanwezige minuten per kind per dag, uit
+ * afgesloten aanwezigheden. Een aanwezigheid die over middernacht loopt telt op beide
+ * dagen mee. Rapporten lezen alleen deze rollup, nooit de aanwezigheden zelf.
+ *
+ * <p>Elke wijziging van een aanwezigheid levert een verschil op: de minuten van de oude
+ * staat eraf, die van de nieuwe erbij. De verschillen worden per transactie verzameld en
+ * vlak voor de commit als één JDBC batch van upserts weggeschreven, in vaste volgorde
+ * om deadlocks tussen gelijktijdige transacties te voorkomen. Een rollback laat de
+ * rollup dus ook ongemoeid.
+ */
+@Service
+public class AttendanceRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AttendanceRollupService.class);
+
+    // Werkt op MySQL en op H2 in MySQL-modus
+    private static final String UPSERT = """
+            insert into attendance_day (child_id, attendance_date, minutes) values (?, ?, ?)
+            on duplicate key update minutes = minutes + values(minutes)""";
+    private static final String DELETE_EMPTY =
+            "delete from attendance_day where child_id = ? and attendance_date = ? and minutes <= 0";
+    private static final Comparator<DayKey> KEY_ORDER =
+            Comparator.comparing(DayKey::childId).thenComparing(DayKey::date);
+
+    private final AttendanceDayRepository attendanceDayRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BigDecimal hourlyRate;
+    private final int batchSize;
+    private final int rebuildWindow;
+
+    // Sleutel voor de verschillen van de lopende transactie
+    private final Object pendingKey = new Object();
+
+    public AttendanceRollupService(AttendanceDayRepository attendanceDayRepository,
+                                   JdbcTemplate jdbcTemplate,
+                                   TransactionTemplate transactionTemplate,
+                                   @Value("${qiddo.billing.hourly-rate}") BigDecimal hourlyRate,
+                                   @Value("${qiddo.rollup.batch-size:1000}") int batchSize,
+                                   @Value("${qiddo.rollup.rebuild-window:500}") int rebuildWindow) {
+        this.attendanceDayRepository = attendanceDayRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.hourlyRate = hourlyRate;
+        this.batchSize = batchSize;
+        this.rebuildWindow = rebuildWindow;
+    }
+
+    /**
+     * Verwerkt een wijziging binnen de transactie die hem veroorzaakte.
+     */
+    @EventListener
+    public void onAttendanceChanged(AttendanceChangedEvent event) {
+        Map<DayKey, Long> deltas = new HashMap<>();
+        if (event.before() != null) {
+            addMinutes(deltas, event.before(), -1);
+        }
+        if (event.after() != null) {
+            addMinutes(deltas, event.after(), 1);
+        }
+        deltas.values().removeIf(minutes -> minutes == 0);
+        if (deltas.isEmpty()) {
+            return;
+        }
+        Map<DayKey, Long> pending = pendingDeltas();
+        if (pending != null) {
+            deltas.forEach((key, minutes) -> pending.merge(key, minutes, Long::sum));
+        } else {
+            apply(deltas);
+        }
+    }
+
+    @EventListener
+    public void onChildChanged(ChildChangedEvent event) {
+        if (event.type() == ChildChangedEvent.Type.DELETED) {
+            attendanceDayRepository.deleteByChildId(event.child().id());
+        }
+    }
+
+    /**
+     * Bouwt de hele rollup opnieuw op in één transactie, in één doorgang over de
+     * afgesloten aanwezigheden gesorteerd op kind. Er wordt per venster van
+     * {@code qiddo.rollup.rebuild-window} kind-id's gelezen (via de index op child_id),
+     * zodat het geheugengebruik begrensd blijft zonder driver-specifieke streaming; de
+     * rijen gaan in batches van {@code qiddo.rollup.batch-size} naar de database.
+     * Lezers zien tot de commit de oude rollup.
+     *
+     * @return het aantal rijen in de nieuwe rollup
+     */
+    public long rebuild() {
+        long start = System.nanoTime();
+        Long rows = transactionTemplate.execute(status -> {
+            jdbcTemplate.update("delete from attendance_day");
+            RebuildBatch batch = new RebuildBatch();
+            // Gaten in de id's (ouders delen de sequence) overslaan met een goedkope index lookup
+            Long from = jdbcTemplate.queryForObject("select min(child_id) from attendance", Long.class);
+            while (from != null) {
+                jdbcTemplate.query("""
+                        select child_id, check_in_time, check_out_time from attendance
+                        where child_id >= ? and child_id < ? and check_out_time is not null
+                        order by child_id""",
+                        resultSet -> {
+                            batch.add(new AttendanceSnapshot(null, resultSet.getLong(1),
+                                    resultSet.getTimestamp(2).toLocalDateTime(),
+                                    resultSet.getTimestamp(3).toLocalDateTime()));
+                        },
+                        from, from + rebuildWindow);
+                from = jdbcTemplate.queryForObject(
+                        "select min(child_id) from attendance where child_id >= ?", Long.class, from + rebuildWindow);
+            }
+            batch.finish();
+            return batch.rows;
+        });
+        logger.info("Attendance rollup rebuilt: {} rows in {} ms", rows, (System.nanoTime() - start) / 1_000_000);
+        return rows;
+    }
+
+    /**
+     * Uren per kind per maand voor de gegeven maanden.
+     */
+    public List<HoursReportLine> hoursByChild(YearMonth from, YearMonth to) {
+        return attendanceDayRepository.sumByChildAndMonth(from.atDay(1), to.plusMonths(1).atDay(1)).stream()
+                .map(row -> line(row.id(), null, month(row), row.minutes(), null))
+                .toList();
+    }
+
+    /**
+     * Uren van één kind per maand voor de gegeven maanden.
+     */
+    public List<HoursReportLine> hoursForChild(Long childId, YearMonth from, YearMonth to) {
+        return attendanceDayRepository.sumByMonthForChild(childId, from.atDay(1), to.plusMonths(1).atDay(1)).stream()
+                .map(row -> line(childId, null, month(row), row.minutes(), null))
+                .toList();
+    }
+
+    /**
+     * Uren van één kind per dag in de gegeven maand.
+     */
+    public List<HoursReportLine> dailyHoursForChild(Long childId, YearMonth month) {
+        return attendanceDayRepository.findByChildIdAndDateGreaterThanEqualAndDateLessThanOrderByDate(
+                        childId, month.atDay(1), month.plusMonths(1).atDay(1)).stream()
+                .map(day -> line(childId, null, day.getDate().toString(), day.getMinutes(), null))
+                .toList();
+    }
+
+    /**
+     * Uren en het bedrag tegen het uurtarief per ouder in de gegeven maand.
+     */
+    public List<HoursReportLine> invoiceTotals(YearMonth month) {
+        return attendanceDayRepository.sumByParent(month.atDay(1), month.plusMonths(1).atDay(1)).stream()
+                .map(row -> line(null, row.id(), month.toString(), row.minutes(), amountFor(row.minutes())))
+                .toList();
+    }
+
+    private static String month(AttendanceMinutes row) {
+        return YearMonth.of(row.year(), row.month()).toString();
+    }
+
+    private static HoursReportLine line(Long childId, Long parentId, String period, long minutes, BigDecimal amount) {
+        BigDecimal hours = BigDecimal.valueOf(minutes).divide(BigDecimal.valueOf(60), 2, RoundingMode.HALF_UP);
+        return new HoursReportLine(childId, parentId, period, minutes, hours, amount);
+    }
+
+    private BigDecimal amountFor(long minutes) {
+        return hourlyRate.multiply(BigDecimal.valueOf(minutes)).divide(BigDecimal.valueOf(60), 2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Telt de minuten van een afgesloten aanwezigheid per dag op bij {@code deltas}, met
+     * het gegeven teken. Een open aanwezigheid telt (nog) niet mee.
+     */
+    static void addMinutes(Map<DayKey, Long> deltas, AttendanceSnapshot attendance, int sign) {
+        if (attendance.isOpen() || attendance.childId() == null
+                || !attendance.checkOutTime().isAfter(attendance.checkInTime())) {
+            return;
+        }
+        LocalDate day = attendance.checkInTime().toLocalDate();
+        while (!day.isAfter(attendance.checkOutTime().toLocalDate())) {
+            LocalDateTime dayStart = day.atStartOfDay();
+            LocalDateTime dayEnd = day.plusDays(1).atStartOfDay();
+            LocalDateTime start = attendance.checkInTime().isBefore(dayStart) ? dayStart : attendance.checkInTime();
+            LocalDateTime end = attendance.checkOutTime().isAfter(dayEnd) ? dayEnd : attendance.checkOutTime();
+            long minutes = Duration.between(start, end).toMinutes();
+            if (minutes > 0) {
+                deltas.merge(new DayKey(attendance.childId(), day), sign * minutes, Long::sum);
+            }
+            day = day.plusDays(1);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<DayKey, Long> pendingDeltas() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        Map<DayKey, Long> pending = (Map<DayKey, Long>) TransactionSynchronizationManager.getResource(pendingKey);
+        if (pending == null) {
+            Map<DayKey, Long> deltas = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(pendingKey, deltas);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    apply(deltas);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(pendingKey);
+                }
+            });
+            pending = deltas;
+        }
+        return pending;
+    }
+
+    private void apply(Map<DayKey, Long> deltas) {
+        List<Map.Entry<DayKey, Long>> rows = new ArrayList<>(deltas.entrySet());
+        rows.removeIf(row -> row.getValue() == 0);
+        if (rows.isEmpty()) {
+            return;
+        }
+        rows.sort(Map.Entry.comparingByKey(KEY_ORDER));
+        jdbcTemplate.batchUpdate(UPSERT, rows, batchSize, (statement, row) -> {
+            statement.setLong(1, row.getKey().childId());
+            statement.setDate(2, Date.valueOf(row.getKey().date()));
+            statement.setLong(3, row.getValue());
+        });
+        // Dagen die op nul uitkomen (verwijderd of ingekort) niet laten staan
+        List<DayKey> decreased = rows.stream().filter(row -> row.getValue() < 0).map(Map.Entry::getKey).toList();
+        if (!decreased.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_EMPTY, decreased, batchSize, (statement, key) -> {
+                statement.setLong(1, key.childId());
+                statement.setDate(2, Date.valueOf(key.date()));
+            });
+        }
+    }
+
+    record DayKey(Long childId, LocalDate date) {
+    }
+
+    /**
+     * Verzamelt tijdens de rebuild de dagen van één kind tegelijk en schrijft ze weg
+     * zodra het volgende kind begint.
+     */
+    private final class RebuildBatch {
+
+        private final Map<DayKey, Long> child = new TreeMap<>(KEY_ORDER);
+        private final List<Object[]> pending = new ArrayList<>();
+        private Long childId;
+        private long rows;
+
+        void add(AttendanceSnapshot attendance) {
+            if (!attendance.childId().equals(childId)) {
+                endChild();
+                childId = attendance.childId();
+            }
+            addMinutes(child, attendance, 1);
+        }
+
+        void finish() {
+            endChild();
+            flush();
+        }
+
+        private void endChild() {
+            child.forEach((key, minutes) -> pending.add(new Object[] { key.childId(), Date.valueOf(key.date()), minutes }));
+            rows += child.size();
+            child.clear();
+            if (pending.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (!pending.isEmpty()) {
+                jdbcTemplate.batchUpdate(
+                        "insert into attendance_day (child_id, attendance_date, minutes) values (?, ?, ?)", pending);
+                pending.clear();
+            }
+        }
+    }
+}
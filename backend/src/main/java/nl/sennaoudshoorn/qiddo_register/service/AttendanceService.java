@@ -0,0 +1,233 @@
+package nl.sennaoudshoorn.qiddo_register.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import nl.sennaoudshoorn.qiddo_register.dto.AttendanceCursor;
+import nl.sennaoudshoorn.qiddo_register.dto.AttendancePage;
+import nl.sennaoudshoorn.qiddo_register.dto.BulkAttendanceItem;
+import nl.sennaoudshoorn.qiddo_register.dto.BulkAttendanceResult;
+import nl.sennaoudshoorn.qiddo_register.event.AttendanceChangedEvent;
+import nl.sennaoudshoorn.qiddo_register.event.AttendanceSnapshot;
+import nl.sennaoudshoorn.qiddo_register.model.Attendance;
+import nl.sennaoudshoorn.qiddo_register.model.Child;
+import nl.sennaoudshoorn.qiddo_register.repository.AttendanceRepository;
+import nl.sennaoudshoorn.qiddo_register.repository.ChildRepository;
+
+@Service
+public class AttendanceService {
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 500;
+    public static final int MAX_BULK_SIZE = 1000;
+
+    // Startpositie van de eerste pagina zonder bovengrens: het einde van het DATETIME-bereik van MySQL
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    private final AttendanceRepository attendanceRepository;
+    private final ChildRepository childRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public AttendanceService(AttendanceRepository attendanceRepository, ChildRepository childRepository,
+                             ApplicationEventPublisher eventPublisher) {
+        this.attendanceRepository = attendanceRepository;
+        this.childRepository = childRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Slaat een aanwezigheid op. Een check-in (zonder check-out) neemt eerst de lock op de
+     * rij van het kind, net als {@link #recordBulk}, en wordt geweigerd als het kind al
+     * een open aanwezigheid heeft.
+     */
+    @Transactional
+    public Attendance createAttendance(Attendance attendance) {
+        Child child = attendance.getChild();
+        if (attendance.getCheckOutTime() == null && child != null && child.getId() != null
+                && !childRepository.findAllByIdForUpdate(List.of(child.getId())).isEmpty()
+                && attendanceRepository.existsByChildIdAndCheckOutTimeIsNull(child.getId())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Kind is al ingecheckt");
+        }
+        Attendance saved = attendanceRepository.save(attendance);
+        eventPublisher.publishEvent(AttendanceChangedEvent.created(AttendanceSnapshot.of(saved)));
+        return saved;
+    }
+
+    @Transactional
+    public Optional<Attendance> updateAttendance(Long id, Attendance attendanceDetails) {
+        return attendanceRepository.findById(id)
+                .map(attendance -> {
+                    AttendanceSnapshot before = AttendanceSnapshot.of(attendance);
+                    attendance.setCheckInTime(attendanceDetails.getCheckInTime());
+                    attendance.setCheckOutTime(attendanceDetails.getCheckOutTime());
+                    attendance.setChild(attendanceDetails.getChild());
+                    Attendance saved = attendanceRepository.save(attendance);
+                    eventPublisher.publishEvent(AttendanceChangedEvent.updated(before, AttendanceSnapshot.of(saved)));
+                    return saved;
+                });
+    }
+
+    @Transactional
+    public boolean deleteAttendance(Long id) {
+        return attendanceRepository.findById(id)
+                .map(attendance -> {
+                    attendanceRepository.delete(attendance);
+                    eventPublisher.publishEvent(AttendanceChangedEvent.deleted(AttendanceSnapshot.of(attendance)));
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    /**
+     * Haalt een pagina aanwezigheden op, nieuwste eerst, met keyset-paginering op
+     * (checkInTime, id). De kosten per pagina zijn onafhankelijk van de lengte van de historie.
+     *
+     * @param childId optioneel kind; {@code null} voor alle kinderen
+     * @param from    ondergrens (inclusief) voor checkInTime, of {@code null}
+     * @param to      bovengrens (exclusief) voor checkInTime, of {@code null}
+     * @param cursor  cursor uit een vorige pagina, of {@code null} voor de eerste pagina
+     * @param limit   gewenste paginagrootte
+     */
+    @Transactional(readOnly = true)
+    public AttendancePage getHistory(Long childId, LocalDateTime from, LocalDateTime to, String cursor, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "limit moet tussen 1 en " + MAX_PAGE_SIZE + " liggen");
+        }
+
+        // De bovengrens van het bereik is gewoon de startpositie van de eerste pagina
+        AttendanceCursor position = new AttendanceCursor(to != null ? to : LATEST, Long.MIN_VALUE);
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                position = AttendanceCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+            }
+        }
+
+        // Eén rij extra ophalen om te weten of er nog een volgende pagina is
+        Limit pageLimit = Limit.of(limit + 1);
+        List<Attendance> rows = childId == null
+                ? attendanceRepository.findPageBefore(from, position.checkInTime(), position.id(), pageLimit)
+                : attendanceRepository.findPageByChildBefore(childId, from, position.checkInTime(), position.id(), pageLimit);
+
+        if (rows.size() <= limit) {
+            return new AttendancePage(rows, null);
+        }
+        List<Attendance> page = rows.subList(0, limit);
+        Attendance last = page.get(limit - 1);
+        return new AttendancePage(page, new AttendanceCursor(last.getCheckInTime(), last.getId()).encode());
+    }
+
+    /**
+     * Verwerkt een reeks check-ins en check-outs in één transactie. Kinderen en open
+     * aanwezigheden worden met twee queries vooraf geladen; de inserts en updates gaan
+     * daarna als JDBC batches naar de database. Ongeldige regels worden per regel
+     * afgewezen zonder de rest van het verzoek te blokkeren.
+     * <p>
+     * De kinderen worden met een schrijflock geladen en die lock blijft staan tot de commit.
+     * Een tweede bulkverzoek of een losse check-in voor hetzelfde kind wacht daardoor tot
+     * deze transactie klaar is en ziet dan de nieuwe open aanwezigheid, in plaats van er
+     * een tweede aan te maken.
+     */
+    @Transactional
+    public List<BulkAttendanceResult> recordBulk(List<BulkAttendanceItem> items) {
+        if (items.size() > MAX_BULK_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Maximaal " + MAX_BULK_SIZE + " regels per verzoek");
+        }
+
+        Set<Long> childIds = new HashSet<>();
+        for (BulkAttendanceItem item : items) {
+            if (item != null && item.childId() != null) {
+                childIds.add(item.childId());
+            }
+        }
+        Map<Long, Child> children = new HashMap<>();
+        for (Child child : childRepository.findAllByIdForUpdate(childIds)) {
+            children.put(child.getId(), child);
+        }
+        Map<Long, Attendance> open = new HashMap<>();
+        for (Attendance attendance : attendanceRepository.findByChildIdInAndCheckOutTimeIsNull(children.keySet())) {
+            open.merge(attendance.getChild().getId(), attendance,
+                    (a, b) -> a.getCheckInTime().isAfter(b.getCheckInTime()) ? a : b);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Attendance> checkIns = new ArrayList<>();
+        // Bestaande open aanwezigheden die in dit verzoek worden afgesloten, met hun oude staat
+        Map<Attendance, AttendanceSnapshot> checkOuts = new IdentityHashMap<>();
+        List<BulkAttendanceResult> results = new ArrayList<>(items.size());
+        // Index in het verzoek -> aanwezigheid; het id is pas na de flush bekend
+        Map<Integer, Attendance> accepted = new HashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            BulkAttendanceItem item = items.get(i);
+            if (item == null || item.childId() == null || item.action() == null) {
+                results.add(BulkAttendanceResult.rejected(i, item != null ? item.childId() : null,
+                        "childId en action zijn verplicht"));
+                continue;
+            }
+            Child child = children.get(item.childId());
+            if (child == null) {
+                results.add(BulkAttendanceResult.rejected(i, item.childId(), "Kind niet gevonden"));
+                continue;
+            }
+            LocalDateTime time = item.time() != null ? item.time() : now;
+            Attendance current = open.get(child.getId());
+
+            if (item.action() == BulkAttendanceItem.Action.CHECK_IN) {
+                if (current != null) {
+                    results.add(BulkAttendanceResult.rejected(i, child.getId(), "Kind is al ingecheckt"));
+                    continue;
+                }
+                Attendance attendance = new Attendance(time, null, child);
+                checkIns.add(attendance);
+                open.put(child.getId(), attendance);
+                accepted.put(i, attendance);
+                results.add(null);
+            } else {
+                if (current == null) {
+                    results.add(BulkAttendanceResult.rejected(i, child.getId(), "Kind is niet ingecheckt"));
+                    continue;
+                }
+                if (time.isBefore(current.getCheckInTime())) {
+                    results.add(BulkAttendanceResult.rejected(i, child.getId(), "Check-out ligt voor de check-in"));
+                    continue;
+                }
+                if (current.getId() != null) {
+                    checkOuts.put(current, AttendanceSnapshot.of(current));
+                }
+                current.setCheckOutTime(time);
+                open.remove(child.getId());
+                accepted.put(i, current);
+                results.add(null);
+            }
+        }
+
+        // Nieuwe rijen krijgen hun id uit de sequence; de flush stuurt alles in batches
+        attendanceRepository.saveAll(checkIns);
+        attendanceRepository.flush();
+        checkIns.forEach(attendance -> eventPublisher.publishEvent(
+                AttendanceChangedEvent.created(AttendanceSnapshot.of(attendance))));
+        checkOuts.forEach((attendance, before) -> eventPublisher.publishEvent(
+                AttendanceChangedEvent.updated(before, AttendanceSnapshot.of(attendance))));
+
+        accepted.forEach((index, attendance) -> results.set(index, new BulkAttendanceResult(
+                index, attendance.getChild().getId(), BulkAttendanceResult.Status.OK, attendance.getId(), null)));
+        return results;
+    }
+}
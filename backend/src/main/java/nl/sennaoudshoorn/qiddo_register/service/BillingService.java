@@ -0,0 +1,257 @@
+package nl.sennaoudshoorn.qiddo_register.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import nl.sennaoudshoorn.qiddo_register.dto.AttendanceFingerprint;
+import nl.sennaoudshoorn.qiddo_register.dto.AttendanceInterval;
+import nl.sennaoudshoorn.qiddo_register.dto.BillingRunResult;
+import nl.sennaoudshoorn.qiddo_register.event.InvoiceChangedEvent;
+import nl.sennaoudshoorn.qiddo_register.event.InvoiceSnapshot;
+import nl.sennaoudshoorn.qiddo_register.model.BillingPeriodState;
+import nl.sennaoudshoorn.qiddo_register.model.Invoice;
+import nl.sennaoudshoorn.qiddo_register.repository.AttendanceRepository;
+import nl.sennaoudshoorn.qiddo_register.repository.BillingPeriodStateRepository;
+import nl.sennaoudshoorn.qiddo_register.repository.InvoiceRepository;
+import nl.sennaoudshoorn.qiddo_register.repository.ParentRepository;
+
+/**
+ * Maakt maandfacturen op basis van de geregistreerde aanwezigheid. Het werk wordt per
+ * ouder verdeeld: ouders worden in partities parallel verwerkt, elke partitie in een
+ * eigen transactie. Een run is incrementeel; met één aggregatiequery wordt per ouder
+ * een vingerafdruk van de aanwezigheden bepaald en alleen ouders waarvan die afwijkt
+ * van de vorige run worden opnieuw doorgerekend.
+ */
+@Service
+public class BillingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BillingService.class);
+
+    // Vingerafdruk voor een ouder zonder aanwezigheden in de periode
+    private static final long NO_ATTENDANCE = 0L;
+
+    private final AttendanceRepository attendanceRepository;
+    private final BillingPeriodStateRepository stateRepository;
+    private final InvoiceRepository invoiceRepository;
+    private final ParentRepository parentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AsyncTaskExecutor billingExecutor;
+    private final BigDecimal hourlyRate;
+    private final int partitionSize;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry registry;
+
+    private final Set<YearMonth> runningPeriods = ConcurrentHashMap.newKeySet();
+
+    public BillingService(AttendanceRepository attendanceRepository,
+                          BillingPeriodStateRepository stateRepository,
+                          InvoiceRepository invoiceRepository,
+                          ParentRepository parentRepository,
+                          TransactionTemplate transactionTemplate,
+                          @Qualifier("billingExecutor") AsyncTaskExecutor billingExecutor,
+                          @Value("${qiddo.billing.hourly-rate}") BigDecimal hourlyRate,
+                          @Value("${qiddo.billing.partition-size:50}") int partitionSize,
+                          ApplicationEventPublisher eventPublisher,
+                          MeterRegistry registry) {
+        this.attendanceRepository = attendanceRepository;
+        this.stateRepository = stateRepository;
+        this.invoiceRepository = invoiceRepository;
+        this.parentRepository = parentRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.billingExecutor = billingExecutor;
+        this.hourlyRate = hourlyRate;
+        this.partitionSize = partitionSize;
+        this.eventPublisher = eventPublisher;
+        this.registry = registry;
+    }
+
+    public BillingRunResult runPeriod(YearMonth period) {
+        if (!runningPeriods.add(period)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Facturatie voor " + period + " loopt al");
+        }
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "error";
+        try {
+            BillingRunResult result = doRun(period);
+            outcome = "success";
+            registry.counter("qiddo.billing.parents", "result", "recomputed").increment(result.recomputed());
+            registry.counter("qiddo.billing.parents", "result", "unchanged").increment(result.unchanged());
+            return result;
+        } finally {
+            sample.stop(Timer.builder("qiddo.billing.run")
+                    .description("Duration of a billing run for one period")
+                    .tag("outcome", outcome)
+                    .register(registry));
+            runningPeriods.remove(period);
+        }
+    }
+
+    private BillingRunResult doRun(YearMonth period) {
+        long start = System.nanoTime();
+        LocalDateTime from = period.atDay(1).atStartOfDay();
+        LocalDateTime to = period.plusMonths(1).atDay(1).atStartOfDay();
+
+        Map<Long, Long> fingerprints = new HashMap<>();
+        for (AttendanceFingerprint fingerprint : attendanceRepository.findFingerprintsByParent(from, to)) {
+            fingerprints.put(fingerprint.parentId(), fingerprint.value());
+        }
+        Map<Long, Long> previous = new HashMap<>();
+        for (BillingPeriodState state : stateRepository.findByPeriod(period.toString())) {
+            previous.put(state.getParentId(), state.getFingerprint());
+        }
+
+        // Ouders zonder aanwezigheid meer maar met een eerdere berekening tellen ook als gewijzigd
+        List<Long> changed = new ArrayList<>();
+        fingerprints.forEach((parentId, fingerprint) -> {
+            if (!fingerprint.equals(previous.get(parentId))) {
+                changed.add(parentId);
+            }
+        });
+        previous.forEach((parentId, fingerprint) -> {
+            if (!fingerprints.containsKey(parentId) && fingerprint != NO_ATTENDANCE) {
+                changed.add(parentId);
+            }
+        });
+
+        List<Future<PartitionResult>> partitions = new ArrayList<>();
+        for (int i = 0; i < changed.size(); i += partitionSize) {
+            List<Long> parentIds = changed.subList(i, Math.min(i + partitionSize, changed.size()));
+            partitions.add(billingExecutor.submit(() ->
+                    transactionTemplate.execute(status -> billPartition(period, parentIds, fingerprints))));
+        }
+
+        PartitionResult total = new PartitionResult();
+        for (Future<PartitionResult> partition : partitions) {
+            total.add(await(partition));
+        }
+
+        int parents = fingerprints.size() + (int) previous.keySet().stream()
+                .filter(parentId -> !fingerprints.containsKey(parentId)).count();
+        logger.info("Billing run {}: {} of {} parents recomputed in {} ms",
+                period, changed.size(), parents, (System.nanoTime() - start) / 1_000_000);
+        return new BillingRunResult(period.toString(), parents, changed.size(), parents - changed.size(),
+                total.created, total.updated, total.removed, total.skippedPaid);
+    }
+
+    private PartitionResult billPartition(YearMonth period, List<Long> parentIds, Map<Long, Long> fingerprints) {
+        LocalDateTime from = period.atDay(1).atStartOfDay();
+        LocalDateTime to = period.plusMonths(1).atDay(1).atStartOfDay();
+
+        Map<Long, Long> minutesByParent = new HashMap<>();
+        for (AttendanceInterval interval : attendanceRepository.findClosedIntervalsByParents(parentIds, from, to)) {
+            minutesByParent.merge(interval.parentId(), billableMinutes(interval, from, to), Long::sum);
+        }
+        Map<Long, BillingPeriodState> states = new HashMap<>();
+        for (BillingPeriodState state : stateRepository.findByPeriodAndParentIdIn(period.toString(), parentIds)) {
+            states.put(state.getParentId(), state);
+        }
+
+        PartitionResult result = new PartitionResult();
+        LocalDateTime now = LocalDateTime.now();
+        for (Long parentId : parentIds) {
+            BillingPeriodState state = states.computeIfAbsent(parentId,
+                    id -> new BillingPeriodState(period.toString(), id));
+            Invoice invoice = state.getInvoiceId() != null
+                    ? invoiceRepository.findById(state.getInvoiceId()).orElse(null)
+                    : null;
+            if (invoice != null && Boolean.TRUE.equals(invoice.isPaid())) {
+                // Een betaalde factuur wordt niet stilletjes aangepast
+                logger.warn("Attendance of parent {} changed after invoice {} for {} was paid",
+                        parentId, invoice.getId(), period);
+                result.skippedPaid++;
+                continue;
+            }
+
+            long minutes = minutesByParent.getOrDefault(parentId, 0L);
+            if (minutes == 0) {
+                if (invoice != null) {
+                    invoiceRepository.delete(invoice);
+                    eventPublisher.publishEvent(InvoiceChangedEvent.deleted(InvoiceSnapshot.of(invoice)));
+                    result.removed++;
+                }
+                state.setInvoiceId(null);
+            } else if (invoice == null) {
+                invoice = invoiceRepository.save(new Invoice(amountFor(minutes), false, period.atDay(1),
+                        parentRepository.getReferenceById(parentId)));
+                eventPublisher.publishEvent(InvoiceChangedEvent.created(InvoiceSnapshot.of(invoice)));
+                state.setInvoiceId(invoice.getId());
+                result.created++;
+            } else {
+                InvoiceSnapshot before = InvoiceSnapshot.of(invoice);
+                invoice.setAmount(amountFor(minutes));
+                eventPublisher.publishEvent(InvoiceChangedEvent.updated(before, InvoiceSnapshot.of(invoice)));
+                result.updated++;
+            }
+
+            state.setFingerprint(fingerprints.getOrDefault(parentId, NO_ATTENDANCE));
+            state.setBillableMinutes(minutes);
+            state.setComputedAt(now);
+            stateRepository.save(state);
+        }
+        return result;
+    }
+
+    /**
+     * Minuten van het interval die binnen [from, to) vallen.
+     */
+    static long billableMinutes(AttendanceInterval interval, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime start = interval.checkInTime().isBefore(from) ? from : interval.checkInTime();
+        LocalDateTime end = interval.checkOutTime().isAfter(to) ? to : interval.checkOutTime();
+        return end.isAfter(start) ? Duration.between(start, end).toMinutes() : 0;
+    }
+
+    private Double amountFor(long minutes) {
+        return hourlyRate.multiply(BigDecimal.valueOf(minutes))
+                .divide(BigDecimal.valueOf(60), 2, RoundingMode.HALF_UP)
+                .doubleValue();
+    }
+
+    private static PartitionResult await(Future<PartitionResult> partition) {
+        try {
+            return partition.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Billing run interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Billing partition failed", e.getCause());
+        }
+    }
+
+    private static final class PartitionResult {
+        private int created;
+        private int updated;
+        private int removed;
+        private int skippedPaid;
+
+        private void add(PartitionResult other) {
+            created += other.created;
+            updated += other.updated;
+            removed += other.removed;
+            skippedPaid += other.skippedPaid;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package nl.sennaoudshoorn.qiddo_register.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import nl.sennaoudshoorn.qiddo_register.dto.FeedEvent;
+import nl.sennaoudshoorn.qiddo_register.event.AttendanceChangedEvent;
+import nl.sennaoudshoorn.qiddo_register.event.ChildChangedEvent;
+
+/**
+ * Server-Sent Events feed met wijzigingen in aanwezigheid en kinderen, zodat
+ * dashboards na één initiële load alleen nog deltas ontvangen in plaats van te pollen.
+ *
+ * <p>Berichten worden pas na de commit verstuurd. Elke client heeft een eigen begrensde
+ * buffer die door de feedExecutor wordt leeggemaakt; het publiceren zelf blokkeert dus
+ * nooit op een trage verbinding. Loopt de buffer van een client vol, dan wordt die
+ * verbinding gesloten. De EventSource van de browser maakt vanzelf opnieuw verbinding
+ * en het dashboard begint dan met een verse initiële load.
+ *
+ * <p>Een drain verstuurt hooguit {@link #DRAIN_BATCH} berichten en plant zich daarna
+ * opnieuw in, zodat drukke clients om de beurt aan bod komen. Het schrijven zelf gebeurt
+ * op een aparte writer thread waar de drain hooguit {@code qiddo.feed.send-timeout} op
+ * wacht. Een client die niets meer leest blokkeert zo alleen zijn eigen writer thread
+ * (tot de write timeout van de servlet container); de drain wordt na de timeout
+ * vrijgegeven, de client afgemeld en zijn emitter met een fout afgesloten. Een paar
+ * hangende browsers houden de feed pool dus niet vast.
+ */
+@Service
+public class ChangeFeedService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeFeedService.class);
+
+    static final int DRAIN_BATCH = 16;
+
+    private final TaskExecutor feedExecutor;
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final long sendTimeoutNanos;
+
+    // Geen pool thread: een hangende send houdt alleen deze thread bezet, en daarna niets meer
+    private final ExecutorService writers = Executors.newCachedThreadPool(writerThreadFactory());
+
+    private final Map<Long, Client> clients = new ConcurrentHashMap<>();
+    private final AtomicLong clientIds = new AtomicLong();
+    private final AtomicLong eventIds = new AtomicLong();
+
+    public ChangeFeedService(@Qualifier("feedExecutor") TaskExecutor feedExecutor,
+                             @Value("${qiddo.feed.buffer-size:256}") int bufferSize,
+                             @Value("${qiddo.feed.timeout:30m}") Duration timeout,
+                             @Value("${qiddo.feed.send-timeout:10s}") Duration sendTimeout) {
+        this.feedExecutor = feedExecutor;
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeout.toMillis();
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+    }
+
+    public SseEmitter subscribe() {
+        return subscribe(new SseEmitter(timeoutMillis));
+    }
+
+    SseEmitter subscribe(SseEmitter emitter) {
+        Client client = new Client(clientIds.incrementAndGet(), emitter, new ArrayBlockingQueue<>(bufferSize));
+        clients.put(client.id, client);
+        emitter.onCompletion(() -> clients.remove(client.id));
+        emitter.onTimeout(() -> close(client));
+        emitter.onError(error -> clients.remove(client.id));
+        // Direct een eerste bericht, zodat proxies de response meteen doorgeven
+        client.queue.offer(new FeedEvent(eventIds.get(), "connected", Map.of("clients", clients.size())));
+        schedule(client);
+        return emitter;
+    }
+
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAttendanceChanged(AttendanceChangedEvent event) {
+        String type;
+        if (event.isCheckIn()) {
+            type = "attendance.check-in";
+        } else if (event.isCheckOut()) {
+            type = "attendance.check-out";
+        } else {
+            type = "attendance." + event.type().name().toLowerCase();
+        }
+        publish(type, event.after() != null ? event.after() : event.before());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChildChanged(ChildChangedEvent event) {
+        publish("child." + event.type().name().toLowerCase(), event.child());
+    }
+
+    // Houdt verbindingen via proxies open en ruimt verdwenen clients op
+    @Scheduled(fixedRateString = "${qiddo.feed.heartbeat:15s}")
+    public void heartbeat() {
+        if (!clients.isEmpty()) {
+            publish("heartbeat", null);
+        }
+    }
+
+    void publish(String type, Object data) {
+        FeedEvent event = new FeedEvent(eventIds.incrementAndGet(), type, data);
+        for (Client client : clients.values()) {
+            if (client.queue.offer(event)) {
+                schedule(client);
+            } else {
+                logger.info("Feed client {} cannot keep up, closing connection", client.id);
+                close(client);
+            }
+        }
+    }
+
+    private void schedule(Client client) {
+        if (client.draining.compareAndSet(false, true)) {
+            feedExecutor.execute(() -> drain(client));
+        }
+    }
+
+    private void drain(Client client) {
+        try {
+            FeedEvent event;
+            int sent = 0;
+            while (sent < DRAIN_BATCH && clients.containsKey(client.id) && (event = client.queue.poll()) != null) {
+                SseEmitter.SseEventBuilder message = SseEmitter.event()
+                        .id(Long.toString(event.id()))
+                        .name(event.type());
+                if (event.data() != null) {
+                    message.data(event.data(), MediaType.APPLICATION_JSON);
+                } else {
+                    message.comment(event.type());
+                }
+                send(client, message);
+                sent++;
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Verbinding is weg of al afgesloten
+            clients.remove(client.id);
+            client.queue.clear();
+        } catch (TimeoutException e) {
+            logger.info("Feed client {} stopped reading, closing connection", client.id);
+            clients.remove(client.id);
+            client.queue.clear();
+            if (client.completed.compareAndSet(false, true)) {
+                client.emitter.completeWithError(e);
+            }
+        } finally {
+            client.draining.set(false);
+        }
+        if (!clients.containsKey(client.id)) {
+            complete(client);
+        } else if (!client.queue.isEmpty()) {
+            // Rest van de buffer, of berichten die binnenkwamen terwijl deze drain afrondde
+            schedule(client);
+        }
+    }
+
+    /**
+     * Schrijft het bericht op een writer thread en wacht daar hooguit de send timeout op.
+     */
+    private void send(Client client, SseEmitter.SseEventBuilder message) throws IOException, TimeoutException {
+        Future<?> write = writers.submit(() -> {
+            client.emitter.send(message);
+            return null;
+        });
+        try {
+            write.get(sendTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while sending to feed client " + client.id, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writers.shutdownNow();
+    }
+
+    private static CustomizableThreadFactory writerThreadFactory() {
+        CustomizableThreadFactory factory = new CustomizableThreadFactory("feed-writer-");
+        factory.setDaemon(true);
+        return factory;
+    }
+
+    /**
+     * Meldt de client af. Het afsluiten van de verbinding gebeurt op de feedExecutor:
+     * {@code complete()} wacht op een lopende send en mag de publicerende thread dus niet
+     * ophouden.
+     */
+    private void close(Client client) {
+        if (clients.remove(client.id) != null) {
+            client.queue.clear();
+            schedule(client);
+        }
+    }
+
+    private void complete(Client client) {
+        if (client.completed.compareAndSet(false, true)) {
+            client.emitter.complete();
+        }
+    }
+
+    private record Client(long id, SseEmitter emitter, BlockingQueue<FeedEvent> queue, AtomicBoolean draining,
+                          AtomicBoolean completed) {
+
+        Client(long id, SseEmitter emitter, BlockingQueue<FeedEvent> queue) {
+            this(id, emitter, queue, new AtomicBoolean(), new AtomicBoolean());
+        }
+    }
+}
@@ -1,12 +1,21 @@
 package nl.sennaoudshoorn.qiddo_register.service;
 
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import nl.sennaoudshoorn.qiddo_register.config.CacheConfig;
+import nl.sennaoudshoorn.qiddo_register.dto.CohortCount;
+import nl.sennaoudshoorn.qiddo_register.event.ChildChangedEvent;
+import nl.sennaoudshoorn.qiddo_register.event.ChildSnapshot;
+import nl.sennaoudshoorn.qiddo_register.model.AgeCohort;
 import nl.sennaoudshoorn.qiddo_register.model.Child;
 import nl.sennaoudshoorn.qiddo_register.model.Parent;
 import nl.sennaoudshoorn.qiddo_register.repository.ChildRepository;
@@ -21,30 +30,40 @@ public class ChildService {
     @Autowired
     private ParentRepository parentRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PersonCache personCache;
+
     public List<Child> getAllChildren() {
         return childRepository.findAll();
     }
 
+    /**
+     * Het kind uit de cache; elke aanroep krijgt een eigen, losse kopie.
+     */
     public Optional<Child> getChildById(Long id) {
-        return childRepository.findById(id);
+        return Optional.ofNullable(personCache.get(CacheConfig.CHILDREN, id,
+                () -> childRepository.findById(id).orElse(null), Child::copy));
     }
 
     @Transactional
     public Child createChild(Child child) {
         // The Child entity extends Person, so when we save a Child,
         // JPA will automatically create both the person and child records
-        return childRepository.save(child);
+        Child saved = childRepository.save(child);
+        eventPublisher.publishEvent(new ChildChangedEvent(ChildChangedEvent.Type.CREATED, ChildSnapshot.of(saved)));
+        invalidateCaches(saved.getId());
+        return saved;
     }
 
     @Transactional
     public Optional<Child> updateChild(Long id, Child child) {
-        if (!childRepository.existsById(id)) {
-            return Optional.empty();
-        }
-
-        // Create a new Child instance with the updated data
+        // Apply the updated data to the existing child, if there is one
         Child existingChild = childRepository.findById(id).orElse(null);
         if (existingChild != null) {
+            boolean wasActive = existingChild.isActive();
             existingChild.setNaam(child.getNaam());
             existingChild.setGeboortedatum(child.getGeboortedatum());
             existingChild.setGender(child.getGender());
@@ -53,7 +72,13 @@ public class ChildService {
             existingChild.setNotes(child.getNotes());
             existingChild.setActive(child.isActive());
             existingChild.setParent(child.getParent());
-            return Optional.of(childRepository.save(existingChild));
+            Child saved = childRepository.save(existingChild);
+            ChildChangedEvent.Type type = wasActive && !saved.isActive()
+                    ? ChildChangedEvent.Type.DEACTIVATED
+                    : ChildChangedEvent.Type.UPDATED;
+            eventPublisher.publishEvent(new ChildChangedEvent(type, ChildSnapshot.of(saved)));
+            invalidateCaches(id);
+            return Optional.of(saved);
         }
         return Optional.empty();
     }
@@ -65,6 +90,9 @@ public class ChildService {
         }
 
         childRepository.deleteById(id);
+        eventPublisher.publishEvent(new ChildChangedEvent(ChildChangedEvent.Type.DELETED,
+                new ChildSnapshot(id, null, null, null, null, null, null, false, null)));
+        invalidateCaches(id);
         return true;
     }
 
@@ -73,10 +101,43 @@ public class ChildService {
     }
 
     public List<Child> getActiveChildren() {
-        return childRepository.findByActiveTrue();
+        return personCache.get(CacheConfig.ACTIVE_CHILDREN, "all", childRepository::findByActiveTrue,
+                children -> children.stream().map(Child::copy).toList());
     }
 
     public List<Child> getInactiveChildren() {
         return childRepository.findByActiveFalse();
     }
+
+    /**
+     * Actieve kinderen die op {@code date} in de leeftijdsgroep vallen.
+     */
+    public List<Child> getChildrenInCohort(AgeCohort cohort, LocalDate date) {
+        return childRepository.findActiveBornBetween(cohort.bornFrom(date), cohort.bornBefore(date));
+    }
+
+    /**
+     * Aantal actieve kinderen per leeftijdsgroep op {@code date}; één count per groep.
+     */
+    public List<CohortCount> getCohortCounts(LocalDate date) {
+        return Arrays.stream(AgeCohort.values())
+                .map(cohort -> new CohortCount(cohort, cohort.bornFrom(date), cohort.bornBefore(date).minusDays(1),
+                        childRepository.countActiveBornBetween(cohort.bornFrom(date), cohort.bornBefore(date))))
+                .toList();
+    }
+
+    /**
+     * Actieve kinderen die in {@code month} {@code age} jaar worden. Wie op 29 februari
+     * jarig is, telt in een gewoon jaar mee in februari.
+     */
+    public List<Child> getChildrenTurning(int age, YearMonth month) {
+        return childRepository.findActiveBornBetween(month.atDay(1).minusYears(age),
+                month.plusMonths(1).atDay(1).minusYears(age));
+    }
+
+    // Het kind zelf en de lijst waar het in staat (of stond)
+    private void invalidateCaches(Long id) {
+        personCache.evict(CacheConfig.CHILDREN, id);
+        personCache.invalidate(CacheConfig.ACTIVE_CHILDREN);
+    }
 }
\ No newline at end of file
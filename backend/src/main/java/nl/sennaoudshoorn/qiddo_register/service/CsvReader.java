@@ -0,0 +1,162 @@
+package nl.sennaoudshoorn.qiddo_register.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Leest CSV (RFC 4180) record voor record uit een Reader, zonder het bestand in het
+ * geheugen te laden. Velden tussen aanhalingstekens mogen scheidingstekens, regeleinden
+ * en dubbele aanhalingstekens ({@code ""}) bevatten. Het scheidingsteken is een komma,
+ * of een puntkomma als de kopregel puntkomma's maar geen komma's bevat (Excel met
+ * Nederlandse instellingen). Een byte order mark aan het begin wordt overgeslagen.
+ */
+final class CsvReader {
+
+    private final Reader reader;
+    private final int maxFieldLength;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    private char separator;
+    private long line = 1;
+    private long recordLine;
+
+    CsvReader(Reader reader, int maxFieldLength) {
+        this.reader = reader;
+        this.maxFieldLength = maxFieldLength;
+    }
+
+    /**
+     * Het volgende record, of {@code null} aan het einde. Lege regels worden overgeslagen.
+     *
+     * @throws CsvException bij een te lang veld of een niet afgesloten aanhalingsteken
+     */
+    List<String> next() throws IOException {
+        if (separator == 0) {
+            detectSeparator();
+        }
+        while (true) {
+            int c = peek();
+            if (c == -1) {
+                return null;
+            }
+            if (c != '\r' && c != '\n') {
+                break;
+            }
+            read();
+        }
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        while (true) {
+            int c = read();
+            if (c == -1 || c == '\n' || (c == '\r' && skipLineFeed())) {
+                fields.add(field.toString());
+                return fields;
+            }
+            if (c == separator) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '"' && field.isEmpty()) {
+                readQuoted(field);
+            } else {
+                append(field, (char) c);
+            }
+        }
+    }
+
+    /** Regelnummer (vanaf 1) waarop het laatst gelezen record begint. */
+    long recordLine() {
+        return recordLine;
+    }
+
+    private void readQuoted(StringBuilder field) throws IOException {
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                throw new CsvException(recordLine, "aanhalingsteken niet afgesloten");
+            }
+            if (c == '"') {
+                if (peek() != '"') {
+                    return;
+                }
+                read();
+            }
+            append(field, (char) c);
+        }
+    }
+
+    private void append(StringBuilder field, char c) {
+        if (field.length() >= maxFieldLength) {
+            throw new CsvException(recordLine, "veld langer dan " + maxFieldLength + " tekens");
+        }
+        field.append(c);
+    }
+
+    private boolean skipLineFeed() throws IOException {
+        if (peek() == '\n') {
+            read();
+        }
+        return true;
+    }
+
+    private void detectSeparator() throws IOException {
+        fill();
+        if (limit > 0 && buffer[0] == '\uFEFF') {
+            position = 1;
+        }
+        boolean semicolon = false;
+        for (int i = position; i < limit && buffer[i] != '\n' && buffer[i] != '\r'; i++) {
+            if (buffer[i] == ',') {
+                separator = ',';
+                return;
+            }
+            semicolon |= buffer[i] == ';';
+        }
+        separator = semicolon ? ';' : ',';
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        if (c != -1) {
+            position++;
+            if (c == '\n') {
+                line++;
+            }
+        }
+        return c;
+    }
+
+    private boolean fill() throws IOException {
+        int read = reader.read(buffer, 0, buffer.length);
+        position = 0;
+        limit = Math.max(read, 0);
+        return read > 0;
+    }
+
+    /**
+     * Het bestand is vanaf dit record niet meer betrouwbaar te lezen.
+     */
+    static final class CsvException extends RuntimeException {
+
+        private final long line;
+
+        CsvException(long line, String message) {
+            super(message);
+            this.line = line;
+        }
+
+        long line() {
+            return line;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package nl.sennaoudshoorn.qiddo_register.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import nl.sennaoudshoorn.qiddo_register.dto.AttendanceExportRow;
+import nl.sennaoudshoorn.qiddo_register.dto.InvoiceExportRow;
+
+/**
+ * Volledige exports van aanwezigheden en facturen als NDJSON of CSV, voor de boekhouding
+ * en de inspectie. De rijen komen uit een cursor van de database (met
+ * {@code qiddo.export.fetch-size}, zoals bij de bezettingsanalyse) en gaan direct naar de
+ * response; het geheugen hangt dus niet af van de lengte van de historie.
+ *
+ * <p>Een export loopt in één alleen-lezen transactie, zodat hij op MySQL uit één
+ * snapshot leest en wijzigingen tijdens het downloaden er niet half in komen.
+ */
+@Service
+public class ExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportService.class);
+
+    private static final List<String> ATTENDANCE_COLUMNS =
+            List.of("id", "child_id", "child_naam", "check_in_time", "check_out_time");
+    private static final List<String> INVOICE_COLUMNS =
+            List.of("id", "parent_id", "parent_naam", "invoice_date", "amount", "paid");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @param fetchSize {@code Integer.MIN_VALUE} laat de MySQL driver de rijen streamen
+     *                  in plaats van het hele resultaat in te lezen; andere databases
+     *                  verwachten een positief getal
+     */
+    public ExportService(DataSource dataSource, PlatformTransactionManager transactionManager,
+                         ObjectMapper objectMapper, @Value("${qiddo.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Schrijft de aanwezigheden met een check-in in [from, to] (beide optioneel) op volgorde
+     * van id.
+     *
+     * @return het aantal geschreven rijen
+     */
+    public long writeAttendances(LocalDate from, LocalDate to, Format format, OutputStream out) {
+        StringBuilder sql = new StringBuilder("""
+                select a.id, a.child_id, p.naam, a.check_in_time, a.check_out_time
+                from attendance a join person p on p.id = a.child_id
+                where 1 = 1""");
+        List<Object> args = new ArrayList<>();
+        if (from != null) {
+            sql.append(" and a.check_in_time >= ?");
+            args.add(from.atStartOfDay());
+        }
+        if (to != null) {
+            sql.append(" and a.check_in_time < ?");
+            args.add(to.plusDays(1).atStartOfDay());
+        }
+        sql.append(" order by a.id");
+        RowMapper<AttendanceExportRow> mapper = (rs, rowNum) -> new AttendanceExportRow(rs.getLong(1),
+                rs.getLong(2), rs.getString(3), toLocalDateTime(rs.getTimestamp(4)),
+                toLocalDateTime(rs.getTimestamp(5)));
+        return write("attendances", sql.toString(), args, mapper, format, ATTENDANCE_COLUMNS,
+                row -> List.of(row.id(), row.childId(), row.childNaam(), row.checkInTime(),
+                        row.checkOutTime() != null ? row.checkOutTime() : ""),
+                out);
+    }
+
+    /**
+     * Schrijft de facturen met een factuurdatum in [from, to] (beide optioneel) op volgorde
+     * van id.
+     *
+     * @return het aantal geschreven rijen
+     */
+    public long writeInvoices(LocalDate from, LocalDate to, Format format, OutputStream out) {
+        StringBuilder sql = new StringBuilder("""
+                select i.id, i.parent_id, p.naam, i.invoice_date, i.amount, i.paid
+                from invoice i join person p on p.id = i.parent_id
+                where 1 = 1""");
+        List<Object> args = new ArrayList<>();
+        if (from != null) {
+            sql.append(" and i.invoice_date >= ?");
+            args.add(from);
+        }
+        if (to != null) {
+            sql.append(" and i.invoice_date <= ?");
+            args.add(to);
+        }
+        sql.append(" order by i.id");
+        RowMapper<InvoiceExportRow> mapper = (rs, rowNum) -> new InvoiceExportRow(rs.getLong(1), rs.getLong(2),
+                rs.getString(3), rs.getDate(4).toLocalDate(),
+                BigDecimal.valueOf(rs.getDouble(5)).setScale(2, RoundingMode.HALF_UP), rs.getBoolean(6));
+        return write("invoices", sql.toString(), args, mapper, format, INVOICE_COLUMNS,
+                row -> List.of(row.id(), row.parentId(), row.parentNaam(), row.invoiceDate(),
+                        row.amount().toPlainString(), row.paid()),
+                out);
+    }
+
+    private <T> long write(String name, String sql, List<Object> args, RowMapper<T> mapper, Format format,
+                           List<String> columns, Function<T, List<?>> fields, OutputStream out) {
+        long start = System.nanoTime();
+        // Niet sluiten: de response stream is van de servlet container
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        Long rows = transactionTemplate.execute(status -> {
+            try (Stream<T> stream = jdbcTemplate.queryForStream(sql, mapper, args.toArray())) {
+                if (format == Format.CSV) {
+                    writeCsvLine(writer, columns);
+                }
+                long count = 0;
+                for (T row : (Iterable<T>) stream::iterator) {
+                    if (format == Format.CSV) {
+                        writeCsvLine(writer, fields.apply(row));
+                    } else {
+                        writer.write(objectMapper.writeValueAsString(row));
+                        writer.write('\n');
+                    }
+                    count++;
+                }
+                writer.flush();
+                return count;
+            } catch (IOException e) {
+                // Meestal een client die de download heeft afgebroken
+                throw new UncheckedIOException(e);
+            }
+        });
+        logger.info("Exported {} {} as {} in {} ms", rows, name, format, (System.nanoTime() - start) / 1_000_000);
+        return rows != null ? rows : 0;
+    }
+
+    private static void writeCsvLine(Writer writer, List<?> fields) throws IOException {
+        for (int i = 0; i < fields.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(csvField(String.valueOf(fields.get(i))));
+        }
+        writer.write("\r\n");
+    }
+
+    // RFC 4180: aanhalingstekens alleen waar nodig, dubbele aanhalingstekens verdubbeld
+    static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    /**
+     * Uitvoerformaat van een export.
+     */
+    public enum Format {
+
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String mediaType;
+        private final String extension;
+
+        Format(String mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public String mediaType() {
+            return mediaType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        public static Format of(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Onbekend formaat '" + value
+                        + "', kies ndjson of csv");
+            }
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package nl.sennaoudshoorn.qiddo_register.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import nl.sennaoudshoorn.qiddo_register.dto.InvoiceVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Two-tier cache of rendered invoice PDFs, keyed by invoice id, invoice version and
+ * parent version. A new version of either entity simply misses and the stale entry ages
+ * out, so correctness never depends on invalidation; {@link #invalidate(Long)} only
+ * frees the space early.
+ *
+ * <p>The memory tier is bounded by total bytes. Every rendered PDF is also written to the
+ * disk tier, which is bounded by total bytes as well and evicts the least recently used
+ * file. A disk hit is promoted back into memory by {@link #get}, and copied straight from
+ * the file by {@link #copyTo}. PDFs larger than {@code qiddo.pdf.cache.max-entry-size} are
+ * not cached at all, which bounds what a streaming download buffers for the cache. The
+ * disk tier is cleared at startup: after a database reset the same id and version can
+ * describe a different invoice.
+ */
+@Component
+public class InvoicePdfCache implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvoicePdfCache.class);
+
+    private static final String SUFFIX = "-r" + InvoicePdfTemplate.REVISION + ".pdf";
+    // Only files this cache could have written are ever deleted from the directory
+    private static final Pattern OWN_FILES = Pattern.compile("\\d+-\\d+-\\d+-r\\d+\\.pdf|render-\\d+\\.tmp");
+
+    private final Cache<InvoiceVersion, byte[]> memory;
+    private final DiskTier disk;
+    private final long maxEntryBytes;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public InvoicePdfCache(@Value("${qiddo.pdf.cache.memory-size:32MB}") DataSize memorySize,
+                           @Value("${qiddo.pdf.cache.disk-size:256MB}") DataSize diskSize,
+                           @Value("${qiddo.pdf.cache.max-entry-size:1MB}") DataSize maxEntrySize,
+                           @Value("${qiddo.pdf.cache.dir:${java.io.tmpdir}/qiddo-pdf-cache}") Path dir) {
+        this.memory = Caffeine.newBuilder()
+                .maximumWeight(memorySize.toBytes())
+                .weigher((InvoiceVersion key, byte[] pdf) -> pdf.length)
+                // Evict on the calling thread, so the byte bound holds as soon as put returns
+                .executor(Runnable::run)
+                .build();
+        this.disk = diskSize.toBytes() > 0 ? new DiskTier(dir, diskSize.toBytes()) : null;
+        this.maxEntryBytes = maxEntrySize.toBytes();
+    }
+
+    /**
+     * Returns the cached PDF, or {@code null} on a miss.
+     */
+    public byte[] get(InvoiceVersion key) {
+        byte[] pdf = memory.getIfPresent(key);
+        if (pdf != null) {
+            memoryHits.incrementAndGet();
+            return pdf;
+        }
+        pdf = disk != null ? disk.read(key) : null;
+        if (pdf != null) {
+            diskHits.incrementAndGet();
+            memory.put(key, pdf);
+            return pdf;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Writes the cached PDF to {@code out}: from memory, or copied from the disk file
+     * without loading it. Returns {@code false} on a miss, before anything is written.
+     */
+    public boolean copyTo(InvoiceVersion key, OutputStream out) throws IOException {
+        byte[] pdf = memory.getIfPresent(key);
+        if (pdf != null) {
+            memoryHits.incrementAndGet();
+            out.write(pdf);
+            return true;
+        }
+        if (disk != null && disk.copyTo(key, out)) {
+            diskHits.incrementAndGet();
+            return true;
+        }
+        misses.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Largest PDF that {@link #put} keeps; larger ones are rendered on every request.
+     */
+    public long maxEntryBytes() {
+        return maxEntryBytes;
+    }
+
+    public void put(InvoiceVersion key, byte[] pdf) {
+        if (pdf.length > maxEntryBytes) {
+            return;
+        }
+        memory.put(key, pdf);
+        if (disk != null) {
+            disk.write(key, pdf);
+        }
+    }
+
+    /**
+     * Drops every cached rendering of the invoice, whatever its version.
+     */
+    public void invalidate(Long invoiceId) {
+        memory.asMap().keySet().removeIf(key -> key.invoiceId().equals(invoiceId));
+        if (disk != null) {
+            disk.remove(invoiceId);
+        }
+    }
+
+    public double hitRatio() {
+        long hits = memoryHits.get() + diskHits.get();
+        long total = hits + misses.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public long memoryBytes() {
+        return memory.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L);
+    }
+
+    public long diskBytes() {
+        return disk != null ? disk.bytes() : 0;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("qiddo.pdf.cache.hit.ratio", this, InvoicePdfCache::hitRatio)
+                .description("Share of invoice PDF requests served without rendering")
+                .register(registry);
+        FunctionCounter.builder("qiddo.pdf.cache.gets", memoryHits, AtomicLong::get)
+                .tag("result", "memory-hit").register(registry);
+        FunctionCounter.builder("qiddo.pdf.cache.gets", diskHits, AtomicLong::get)
+                .tag("result", "disk-hit").register(registry);
+        FunctionCounter.builder("qiddo.pdf.cache.gets", misses, AtomicLong::get)
+                .tag("result", "miss").register(registry);
+        Gauge.builder("qiddo.pdf.cache.bytes", this, InvoicePdfCache::memoryBytes)
+                .tag("tier", "memory").baseUnit("bytes").register(registry);
+        Gauge.builder("qiddo.pdf.cache.bytes", this, InvoicePdfCache::diskBytes)
+                .tag("tier", "disk").baseUnit("bytes").register(registry);
+    }
+
+    private static String fileName(InvoiceVersion key) {
+        return key.invoiceId() + "-" + key.version() + "-" + key.parentVersion() + SUFFIX;
+    }
+
+    /**
+     * Files in one directory with an LRU index in memory. The index is only touched under
+     * the lock (a ReentrantLock, which unlike synchronized does not pin virtual threads);
+     * file I/O happens outside it. Files are written to a temporary name and
+     * moved into place, so a reader never sees a partial PDF.
+     */
+    private static final class DiskTier {
+
+        private final Path dir;
+        private final long maxBytes;
+        private final Map<InvoiceVersion, Long> index = new LinkedHashMap<>(256, 0.75f, true);
+        private final ReentrantLock lock = new ReentrantLock();
+        private long bytes;
+
+        DiskTier(Path dir, long maxBytes) {
+            this.dir = dir;
+            this.maxBytes = maxBytes;
+            try {
+                Files.createDirectories(dir);
+                try (Stream<Path> files = Files.list(dir)) {
+                    files.filter(file -> OWN_FILES.matcher(file.getFileName().toString()).matches())
+                            .forEach(DiskTier::deleteQuietly);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot prepare PDF cache directory " + dir, e);
+            }
+        }
+
+        byte[] read(InvoiceVersion key) {
+            lock.lock();
+            try {
+                if (index.get(key) == null) {
+                    return null;
+                }
+            } finally {
+                lock.unlock();
+            }
+            try {
+                return Files.readAllBytes(dir.resolve(fileName(key)));
+            } catch (NoSuchFileException e) {
+                // Evicted between the index check and the read
+                lock.lock();
+                try {
+                    Long size = index.remove(key);
+                    bytes -= size != null ? size : 0;
+                } finally {
+                    lock.unlock();
+                }
+                return null;
+            } catch (IOException e) {
+                logger.warn("Cannot read cached PDF {}: {}", key, e.getMessage());
+                return null;
+            }
+        }
+
+        boolean copyTo(InvoiceVersion key, OutputStream out) throws IOException {
+            lock.lock();
+            try {
+                if (index.get(key) == null) {
+                    return false;
+                }
+            } finally {
+                lock.unlock();
+            }
+            InputStream in;
+            try {
+                in = Files.newInputStream(dir.resolve(fileName(key)));
+            } catch (NoSuchFileException e) {
+                // Evicted between the index check and the open
+                lock.lock();
+                try {
+                    Long size = index.remove(key);
+                    bytes -= size != null ? size : 0;
+                } finally {
+                    lock.unlock();
+                }
+                return false;
+            }
+            // An open file stays readable even if it is evicted during the copy
+            try (in) {
+                in.transferTo(out);
+            }
+            return true;
+        }
+
+        void write(InvoiceVersion key, byte[] pdf) {
+            Path target = dir.resolve(fileName(key));
+            try {
+                Path temp = Files.createTempFile(dir, "render-", ".tmp");
+                Files.write(temp, pdf);
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                logger.warn("Cannot write cached PDF {}: {}", key, e.getMessage());
+                return;
+            }
+            List<InvoiceVersion> evicted = new ArrayList<>();
+            lock.lock();
+            try {
+                Long previous = index.put(key, (long) pdf.length);
+                bytes += pdf.length - (previous != null ? previous : 0);
+                Iterator<Map.Entry<InvoiceVersion, Long>> eldest = index.entrySet().iterator();
+                while (bytes > maxBytes && eldest.hasNext()) {
+                    Map.Entry<InvoiceVersion, Long> entry = eldest.next();
+                    bytes -= entry.getValue();
+                    evicted.add(entry.getKey());
+                    eldest.remove();
+                }
+            } finally {
+                lock.unlock();
+            }
+            evicted.forEach(this::delete);
+        }
+
+        void remove(Long invoiceId) {
+            List<InvoiceVersion> removed = new ArrayList<>();
+            lock.lock();
+            try {
+                Iterator<Map.Entry<InvoiceVersion, Long>> entries = index.entrySet().iterator();
+                while (entries.hasNext()) {
+                    Map.Entry<InvoiceVersion, Long> entry = entries.next();
+                    if (entry.getKey().invoiceId().equals(invoiceId)) {
+                        bytes -= entry.getValue();
+                        removed.add(entry.getKey());
+                        entries.remove();
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            removed.forEach(this::delete);
+        }
+
+        long bytes() {
+            lock.lock();
+            try {
+                return bytes;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void delete(InvoiceVersion key) {
+            deleteQuietly(dir.resolve(fileName(key)));
+        }
+
+        private static void deleteQuietly(Path file) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                logger.warn("Cannot delete cached PDF {}: {}", file, e.getMessage());
+            }
+        }
+    }
+}
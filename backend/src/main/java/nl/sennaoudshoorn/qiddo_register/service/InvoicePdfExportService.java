@@ -0,0 +1,151 @@
+package nl.sennaoudshoorn.qiddo_register.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.YearMonth;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import nl.sennaoudshoorn.qiddo_register.repository.InvoiceRepository;
+
+/**
+ * Exporteert een reeks facturen als één ZIP met een PDF per factuur. De PDF's worden
+ * parallel gerenderd op de pdfRenderExecutor, maar er staan nooit meer dan
+ * {@code maxInFlight} documenten tegelijk klaar: een volgende factuur wordt pas
+ * ingepland als de oudste in de ZIP is geschreven. Een trage client remt zo de
+ * rendering af in plaats van het geheugen te laten vollopen.
+ */
+@Service
+public class InvoicePdfExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvoicePdfExportService.class);
+
+    private final InvoiceRepository invoiceRepository;
+    private final InvoicePdfService invoicePdfService;
+    private final AsyncTaskExecutor pdfRenderExecutor;
+    private final int maxInFlight;
+    private final MeterRegistry registry;
+    private final DistributionSummary exportSize;
+
+    public InvoicePdfExportService(InvoiceRepository invoiceRepository,
+                                   InvoicePdfService invoicePdfService,
+                                   @Qualifier("pdfRenderExecutor") AsyncTaskExecutor pdfRenderExecutor,
+                                   @Value("${qiddo.pdf.render-threads:0}") int renderThreads,
+                                   @Value("${qiddo.pdf.export.max-in-flight:0}") int maxInFlight,
+                                   MeterRegistry registry) {
+        this.invoiceRepository = invoiceRepository;
+        this.invoicePdfService = invoicePdfService;
+        this.pdfRenderExecutor = pdfRenderExecutor;
+        // Standaard twee per render thread, zodat elke thread na zijn document meteen verder kan
+        int threads = renderThreads > 0 ? renderThreads : Runtime.getRuntime().availableProcessors();
+        this.maxInFlight = maxInFlight > 0 ? maxInFlight : 2 * threads;
+        this.registry = registry;
+        this.exportSize = DistributionSummary.builder("qiddo.pdf.export.invoices")
+                .description("Number of invoices per ZIP export")
+                .register(registry);
+    }
+
+    public List<Long> findInvoiceIds(YearMonth month) {
+        return invoiceRepository.findIdsByInvoiceDateRange(month.atDay(1), month.plusMonths(1).atDay(1));
+    }
+
+    /**
+     * Schrijft de facturen in de gegeven volgorde naar een ZIP op {@code out}. Facturen
+     * die intussen verwijderd zijn worden overgeslagen. De stream wordt niet gesloten.
+     */
+    public void writeZip(List<Long> invoiceIds, OutputStream out) throws IOException {
+        exportSize.record(invoiceIds.size());
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "error";
+        try {
+            doWriteZip(invoiceIds, out);
+            outcome = "success";
+        } finally {
+            // Omvat ook het wachten op de client; een afgebroken download telt als error
+            sample.stop(Timer.builder("qiddo.pdf.export")
+                    .description("Duration of a ZIP export of invoice PDFs")
+                    .tag("outcome", outcome)
+                    .register(registry));
+        }
+    }
+
+    private void doWriteZip(List<Long> invoiceIds, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        Deque<Future<RenderedInvoice>> inFlight = new ArrayDeque<>(maxInFlight);
+        Iterator<Long> pending = invoiceIds.iterator();
+        try {
+            while (inFlight.size() < maxInFlight && pending.hasNext()) {
+                inFlight.add(submit(pending.next()));
+            }
+            while (!inFlight.isEmpty()) {
+                RenderedInvoice rendered = await(inFlight.poll());
+                if (pending.hasNext()) {
+                    inFlight.add(submit(pending.next()));
+                }
+                if (rendered.pdf() != null) {
+                    writeEntry(zip, rendered);
+                }
+            }
+            zip.finish();
+            zip.flush();
+        } finally {
+            // Bij een fout of afgebroken download geen werk meer laten doorlopen
+            inFlight.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private Future<RenderedInvoice> submit(Long invoiceId) {
+        return pdfRenderExecutor.submit(() -> invoiceRepository.findWithParentById(invoiceId)
+                .map(invoice -> new RenderedInvoice(invoiceId, invoicePdfService.generateInvoicePdf(invoice)))
+                .orElseGet(() -> {
+                    logger.warn("Invoice {} not found during export, skipping", invoiceId);
+                    return new RenderedInvoice(invoiceId, null);
+                }));
+    }
+
+    private RenderedInvoice await(Future<RenderedInvoice> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Export interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Rendering invoice PDF failed", e.getCause());
+        }
+    }
+
+    private void writeEntry(ZipOutputStream zip, RenderedInvoice rendered) throws IOException {
+        // PDF-streams zijn al gecomprimeerd; STORED scheelt CPU zonder grotere ZIP
+        byte[] pdf = rendered.pdf();
+        CRC32 crc = new CRC32();
+        crc.update(pdf);
+        ZipEntry entry = new ZipEntry("factuur_" + rendered.invoiceId() + ".pdf");
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(pdf.length);
+        entry.setCompressedSize(pdf.length);
+        entry.setCrc(crc.getValue());
+        zip.putNextEntry(entry);
+        zip.write(pdf);
+        zip.closeEntry();
+    }
+
+    private record RenderedInvoice(Long invoiceId, byte[] pdf) {
+    }
+}
@@ -1,65 +1,147 @@
 package nl.sennaoudshoorn.qiddo_register.service;
 
-import com.itextpdf.kernel.pdf.PdfDocument;
-import com.itextpdf.kernel.pdf.PdfWriter;
-import com.itextpdf.layout.Document;
-import com.itextpdf.layout.element.Paragraph;
-import com.itextpdf.layout.element.Table;
-import com.itextpdf.layout.properties.TextAlignment;
-import com.itextpdf.layout.properties.UnitValue;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import nl.sennaoudshoorn.qiddo_register.dto.InvoiceVersion;
+import nl.sennaoudshoorn.qiddo_register.jfr.InvoicePdfEvent;
 import nl.sennaoudshoorn.qiddo_register.model.Invoice;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
-import java.time.format.DateTimeFormatter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 
 @Service
 public class InvoicePdfService {
 
-    public byte[] generateInvoicePdf(Invoice invoice) {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        PdfWriter writer = new PdfWriter(baos);
-        PdfDocument pdf = new PdfDocument(writer);
-        Document document = new Document(pdf);
+    // Typical invoice size, avoids regrowing the buffer while rendering
+    private static final int INITIAL_BUFFER_SIZE = 4 * 1024;
 
-        // Add header
-        document.add(new Paragraph("FACTUUR")
-                .setTextAlignment(TextAlignment.CENTER)
-                .setFontSize(20)
-                .setBold());
+    private final InvoicePdfTemplate template;
+    private final InvoicePdfCache cache;
+    private final Timer renderTimer;
+    private final DistributionSummary pdfSize;
 
-        // Add invoice details
-        document.add(new Paragraph("\nFactuurnummer: " + invoice.getId()));
-        document.add(new Paragraph("Datum: " + invoice.getInvoiceDate().format(DateTimeFormatter.ofPattern("dd-MM-yyyy"))));
-        document.add(new Paragraph("Klant: " + invoice.getParent().getNaam()));
-        document.add(new Paragraph("Telefoon: " + invoice.getParent().getPhone()));
-        document.add(new Paragraph("Email: " + invoice.getParent().getEmail()));
-        document.add(new Paragraph("Adres: " + invoice.getParent().getAddress()));
+    public InvoicePdfService(InvoicePdfTemplate template, InvoicePdfCache cache, MeterRegistry registry) {
+        this.template = template;
+        this.cache = cache;
+        this.renderTimer = Timer.builder("qiddo.pdf.render")
+                .description("Time to render one invoice PDF, cache misses only")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.pdfSize = DistributionSummary.builder("qiddo.pdf.size")
+                .description("Size of rendered invoice PDFs")
+                .baseUnit("bytes")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
 
-        // Add table for invoice items
-        Table table = new Table(UnitValue.createPercentArray(2)).useAllAvailableWidth();
-        table.addCell("Omschrijving");
-        table.addCell("Bedrag");
+    /**
+     * Returns the PDF for the current version of the invoice and its parent, rendering
+     * it only when no cached copy exists. The invoice must have its parent loaded.
+     */
+    public byte[] generateInvoicePdf(Invoice invoice) {
+        InvoicePdfEvent event = new InvoicePdfEvent();
+        event.begin();
+        InvoiceVersion key = InvoicePdfVersions.of(invoice);
+        byte[] pdf = cache.get(key);
+        boolean cacheHit = pdf != null;
+        if (pdf == null) {
+            pdf = renderInvoicePdf(invoice);
+            cache.put(key, pdf);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.invoiceId = invoice.getId();
+            event.cacheHit = cacheHit;
+            event.bytes = pdf.length;
+            event.commit();
+        }
+        return pdf;
+    }
 
-        table.addCell("Kinderopvang");
-        table.addCell("€ " + String.format("%.2f", invoice.getAmount()));
+    /**
+     * Writes the PDF for the current version of the invoice and its parent to {@code out}
+     * without building it as one array. A memory hit is written as is and a disk hit is
+     * copied from its file. On a miss iText writes to {@code out} and to a buffer for the
+     * cache at the same time; the buffer is dropped as soon as the PDF outgrows
+     * {@link InvoicePdfCache#maxEntryBytes()}, so a miss holds at most that much extra and
+     * a larger PDF is simply rendered again next time. The stream is not closed.
+     */
+    public void streamInvoicePdf(Invoice invoice, OutputStream out) throws IOException {
+        InvoicePdfEvent event = new InvoicePdfEvent();
+        event.begin();
+        InvoiceVersion key = InvoicePdfVersions.of(invoice);
+        CountingOutputStream counting = new CountingOutputStream(out, 0);
+        boolean cacheHit = cache.copyTo(key, counting);
+        if (!cacheHit) {
+            CountingOutputStream tee = new CountingOutputStream(out, cache.maxEntryBytes());
+            renderTimer.record(() -> writeInvoicePdf(invoice, tee));
+            pdfSize.record(tee.count);
+            if (tee.buffer != null) {
+                cache.put(key, tee.buffer.toByteArray());
+            }
+            counting = tee;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.invoiceId = invoice.getId();
+            event.cacheHit = cacheHit;
+            event.bytes = (int) counting.count;
+            event.commit();
+        }
+    }
 
-        document.add(table);
+    public byte[] renderInvoicePdf(Invoice invoice) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+        renderTimer.record(() -> writeInvoicePdf(invoice, baos));
+        pdfSize.record(baos.size());
+        return baos.toByteArray();
+    }
 
-        // Add total
-        document.add(new Paragraph("\nTotaal: € " + String.format("%.2f", invoice.getAmount()))
-                .setTextAlignment(TextAlignment.RIGHT)
-                .setBold());
+    /**
+     * Renders the invoice straight to the given stream. iText writes through a small
+     * buffer, so the document is never held in memory as a whole.
+     * The stream is flushed but not closed.
+     */
+    public void writeInvoicePdf(Invoice invoice, OutputStream out) {
+        template.render(invoice, out);
+    }
 
-        // Add payment status
-        String paymentStatus = invoice.isPaid() ? "Betaald" : "Nog te betalen";
-        document.add(new Paragraph("\nStatus: " + paymentStatus));
+    /**
+     * Passes writes through and counts them, keeping a copy for the cache until it grows
+     * past {@code maxCopy} bytes.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
 
-        // Add footer
-        document.add(new Paragraph("\n\nMet vriendelijke groet,"));
-        document.add(new Paragraph("Qiddo Register"));
+        private final long maxCopy;
+        private ByteArrayOutputStream buffer;
+        private long count;
 
-        document.close();
-        return baos.toByteArray();
+        CountingOutputStream(OutputStream out, long maxCopy) {
+            super(out);
+            this.maxCopy = maxCopy;
+            this.buffer = maxCopy > 0 ? new ByteArrayOutputStream(INITIAL_BUFFER_SIZE) : null;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+            if (buffer != null) {
+                if (count > maxCopy) {
+                    buffer = null;
+                } else {
+                    buffer.write(b, off, len);
+                }
+            }
+        }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,131 @@
+package nl.sennaoudshoorn.qiddo_register.service;
+
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.FontProgramFactory;
+import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.Style;
+import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.element.Table;
+import com.itextpdf.layout.properties.TextAlignment;
+import com.itextpdf.layout.properties.UnitValue;
+import nl.sennaoudshoorn.qiddo_register.model.Invoice;
+import nl.sennaoudshoorn.qiddo_register.model.Parent;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Precompiled invoice layout. Everything that is the same for every invoice (font
+ * programs, styles, fixed texts, column widths, formatters) is built once and only
+ * read afterwards, so a single instance is shared by all rendering threads. A render
+ * only creates the per-document objects iText requires and fills in the invoice fields.
+ */
+@Component
+public class InvoicePdfTemplate {
+
+    /**
+     * Part of the PDF ETag. Bump whenever the layout changes so clients fetch the new rendering.
+     */
+    public static final int REVISION = 1;
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+
+    private static final String TITLE = "FACTUUR";
+    private static final String[] ITEM_HEADER = { "Omschrijving", "Bedrag" };
+    private static final String ITEM_DESCRIPTION = "Kinderopvang";
+    private static final String STATUS_PAID = "\nStatus: Betaald";
+    private static final String STATUS_OPEN = "\nStatus: Nog te betalen";
+    private static final String[] FOOTER = { "\n\nMet vriendelijke groet,", "Qiddo Register" };
+
+    // Font programs (parsed AFM metrics) are immutable; PdfFont instances are per document
+    private final FontProgram regularFont;
+    private final FontProgram boldFont;
+
+    private final Style titleStyle = new Style().setTextAlignment(TextAlignment.CENTER).setFontSize(20);
+    private final Style totalStyle = new Style().setTextAlignment(TextAlignment.RIGHT);
+    private final UnitValue[] columnWidths = UnitValue.createPercentArray(2);
+
+    public InvoicePdfTemplate() {
+        try {
+            this.regularFont = FontProgramFactory.createFont(StandardFonts.HELVETICA);
+            this.boldFont = FontProgramFactory.createFont(StandardFonts.HELVETICA_BOLD);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Standard fonts could not be loaded", e);
+        }
+    }
+
+    /**
+     * Renders the invoice to the given stream. The stream is flushed but not closed.
+     */
+    public void render(Invoice invoice, OutputStream out) {
+        PdfWriter writer = new PdfWriter(out);
+        writer.setCloseStream(false);
+        PdfDocument pdf = new PdfDocument(writer);
+        PdfFont regular = PdfFontFactory.createFont(regularFont, PdfEncodings.WINANSI);
+        PdfFont bold = PdfFontFactory.createFont(boldFont, PdfEncodings.WINANSI);
+
+        Document document = new Document(pdf);
+        document.setFont(regular);
+
+        document.add(new Paragraph(TITLE).addStyle(titleStyle).setFont(bold));
+
+        Parent parent = invoice.getParent();
+        document.add(new Paragraph("\nFactuurnummer: " + invoice.getId()));
+        document.add(new Paragraph("Datum: " + DATE_FORMAT.format(invoice.getInvoiceDate())));
+        document.add(new Paragraph("Klant: " + parent.getNaam()));
+        document.add(new Paragraph("Telefoon: " + parent.getPhone()));
+        document.add(new Paragraph("Email: " + parent.getEmail()));
+        document.add(new Paragraph("Adres: " + parent.getAddress()));
+
+        String amount = formatAmount(invoice.getAmount());
+        Table table = new Table(columnWidths).useAllAvailableWidth();
+        for (String header : ITEM_HEADER) {
+            table.addCell(header);
+        }
+        table.addCell(ITEM_DESCRIPTION);
+        table.addCell(amount);
+        document.add(table);
+
+        document.add(new Paragraph("\nTotaal: " + amount).addStyle(totalStyle).setFont(bold));
+        document.add(new Paragraph(Boolean.TRUE.equals(invoice.isPaid()) ? STATUS_PAID : STATUS_OPEN));
+        for (String line : FOOTER) {
+            document.add(new Paragraph(line));
+        }
+
+        document.close();
+    }
+
+    /**
+     * Formats an amount as Dutch currency ("€ 1.020,00") without the locale lookups and
+     * regex parsing of String.format, and without a (non thread-safe) NumberFormat.
+     */
+    static String formatAmount(double amount) {
+        long cents = Math.round(amount * 100);
+        StringBuilder sb = new StringBuilder(20).append("€ ");
+        if (cents < 0) {
+            sb.append('-');
+            cents = -cents;
+        }
+        String euros = Long.toString(cents / 100);
+        int firstGroup = euros.length() % 3 == 0 ? 3 : euros.length() % 3;
+        sb.append(euros, 0, firstGroup);
+        for (int i = firstGroup; i < euros.length(); i += 3) {
+            sb.append('.').append(euros, i, i + 3);
+        }
+        long remainder = cents % 100;
+        sb.append(',');
+        if (remainder < 10) {
+            sb.append('0');
+        }
+        return sb.append(remainder).toString();
+    }
+}
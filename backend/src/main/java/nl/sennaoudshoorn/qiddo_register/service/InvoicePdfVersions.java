@@ -0,0 +1,38 @@
+package nl.sennaoudshoorn.qiddo_register.service;
+
+import nl.sennaoudshoorn.qiddo_register.dto.InvoiceVersion;
+import nl.sennaoudshoorn.qiddo_register.model.Invoice;
+import nl.sennaoudshoorn.qiddo_register.repository.InvoiceRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+/**
+ * Versions that determine the content of an invoice PDF. The lookup reads the two
+ * {@code @Version} columns on every request: a single primary-key join, cheap enough
+ * that a conditional request still never touches iText. It is deliberately not cached,
+ * since a reader racing a commit could cache an old version and answer 304 for a
+ * changed invoice.
+ */
+@Service
+public class InvoicePdfVersions {
+
+    private final InvoiceRepository invoiceRepository;
+
+    public InvoicePdfVersions(InvoiceRepository invoiceRepository) {
+        this.invoiceRepository = invoiceRepository;
+    }
+
+    public Optional<InvoiceVersion> find(Long invoiceId) {
+        return invoiceRepository.findVersionById(invoiceId);
+    }
+
+    public static InvoiceVersion of(Invoice invoice) {
+        return new InvoiceVersion(invoice.getId(), invoice.getVersion(), invoice.getParent().getVersion());
+    }
+
+    public static String etag(InvoiceVersion version) {
+        return "\"pdf-" + version.invoiceId() + "-" + version.version() + "-" + version.parentVersion()
+                + "-" + InvoicePdfTemplate.REVISION + "\"";
+    }
+}
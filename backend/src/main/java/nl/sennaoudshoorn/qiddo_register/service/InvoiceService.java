@@ -0,0 +1,84 @@
+package nl.sennaoudshoorn.qiddo_register.service;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import nl.sennaoudshoorn.qiddo_register.event.InvoiceChangedEvent;
+import nl.sennaoudshoorn.qiddo_register.event.InvoiceSnapshot;
+import nl.sennaoudshoorn.qiddo_register.model.Invoice;
+import nl.sennaoudshoorn.qiddo_register.repository.InvoiceRepository;
+
+/**
+ * Het aanmaken, wijzigen en verwijderen van losse facturen. Elke wijziging publiceert
+ * een {@link InvoiceChangedEvent} binnen de eigen transactie, zodat het saldogrootboek
+ * in dezelfde commit meegaat.
+ */
+@Service
+public class InvoiceService {
+
+    private final InvoiceRepository invoiceRepository;
+    private final InvoicePdfCache invoicePdfCache;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public InvoiceService(InvoiceRepository invoiceRepository, InvoicePdfCache invoicePdfCache,
+                          ApplicationEventPublisher eventPublisher) {
+        this.invoiceRepository = invoiceRepository;
+        this.invoicePdfCache = invoicePdfCache;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public List<Invoice> findAll() {
+        return invoiceRepository.findAll();
+    }
+
+    public Optional<Invoice> findById(Long id) {
+        return invoiceRepository.findById(id);
+    }
+
+    public List<Invoice> findByParentId(Long parentId) {
+        return invoiceRepository.findByParentId(parentId);
+    }
+
+    public List<Invoice> findUnpaidByParentId(Long parentId) {
+        return invoiceRepository.findByParentIdAndPaidFalse(parentId);
+    }
+
+    @Transactional
+    public Invoice create(Invoice invoice) {
+        Invoice saved = invoiceRepository.save(invoice);
+        eventPublisher.publishEvent(InvoiceChangedEvent.created(InvoiceSnapshot.of(saved)));
+        return saved;
+    }
+
+    @Transactional
+    public Optional<Invoice> update(Long id, Invoice details) {
+        return invoiceRepository.findById(id)
+                .map(invoice -> {
+                    InvoiceSnapshot before = InvoiceSnapshot.of(invoice);
+                    invoice.setAmount(details.getAmount());
+                    invoice.setPaid(details.isPaid());
+                    invoice.setInvoiceDate(details.getInvoiceDate());
+                    invoice.setParent(details.getParent());
+                    Invoice saved = invoiceRepository.save(invoice);
+                    eventPublisher.publishEvent(InvoiceChangedEvent.updated(before, InvoiceSnapshot.of(saved)));
+                    invoicePdfCache.invalidate(id);
+                    return saved;
+                });
+    }
+
+    @Transactional
+    public boolean delete(Long id) {
+        return invoiceRepository.findById(id)
+                .map(invoice -> {
+                    invoiceRepository.delete(invoice);
+                    eventPublisher.publishEvent(InvoiceChangedEvent.deleted(InvoiceSnapshot.of(invoice)));
+                    invoicePdfCache.invalidate(id);
+                    return true;
+                })
+                .orElse(false);
+    }
+}
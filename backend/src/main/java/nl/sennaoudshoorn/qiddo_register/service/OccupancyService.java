@@ -0,0 +1,177 @@
+package nl.sennaoudshoorn.qiddo_register.service;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import nl.sennaoudshoorn.qiddo_register.dto.OccupancyTimeline;
+
+/**
+ * Berekent hoeveel kinderen er op elk moment aanwezig waren met een sweep over de
+ * check-ins (+1) en check-outs (-1) in de periode, op tijd gesorteerd door de database.
+ * Wie al voor de periode binnen was telt mee in de beginstand. De rijen worden één voor
+ * één verwerkt; het geheugen groeit alleen met het aantal tijdvakken, niet met de
+ * lengte van de historie.
+ *
+ * <p>Bij gelijke tijden gaan check-outs voor check-ins, zodat een wissel op hetzelfde
+ * moment geen schijnbare piek geeft. Een open aanwezigheid telt mee tot het einde van
+ * de periode.
+ */
+@Service
+public class OccupancyService {
+
+    public static final int MAX_SLOTS = 50_000;
+
+    private static final String EVENTS = """
+            select check_in_time as event_time, 1 as delta from attendance
+            where check_in_time >= ? and check_in_time < ? and (check_out_time is null or check_out_time >= check_in_time)
+            union all
+            select check_out_time, -1 from attendance
+            where check_out_time >= ? and check_out_time < ? and check_out_time >= check_in_time
+            order by event_time, delta""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @param fetchSize {@code Integer.MIN_VALUE} laat de MySQL driver de rijen streamen
+     *                  in plaats van het hele resultaat in te lezen; andere databases
+     *                  verwachten een positief getal
+     */
+    public OccupancyService(DataSource dataSource,
+                            @Value("${qiddo.occupancy.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    /**
+     * @param from        eerste dag (inclusief)
+     * @param to          laatste dag (inclusief)
+     * @param slotMinutes lengte van een tijdvak in minuten
+     */
+    @Transactional(readOnly = true)
+    public OccupancyTimeline timeline(LocalDate from, LocalDate to, int slotMinutes) {
+        if (to.isBefore(from)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "to ligt voor from");
+        }
+        if (slotMinutes < 1 || 24 * 60 % slotMinutes != 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "slot moet een deler van 1440 minuten zijn");
+        }
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+        long slotCount = ChronoUnit.MINUTES.between(start, end) / slotMinutes;
+        if (slotCount > MAX_SLOTS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Maximaal " + MAX_SLOTS + " tijdvakken per verzoek; kies een kortere periode of grotere slot");
+        }
+
+        // Zelfde grens als de check-outs in EVENTS: wie precies op start vertrekt telt hier
+        // mee en gaat er met zijn check-out event weer af
+        Integer initial = jdbcTemplate.queryForObject("""
+                select count(*) from attendance
+                where check_in_time < ? and (check_out_time is null or check_out_time >= ?)""",
+                Integer.class, start, start);
+        Sweep sweep = new Sweep(start, slotMinutes, (int) slotCount, initial != null ? initial : 0);
+        jdbcTemplate.query(EVENTS,
+                resultSet -> {
+                    sweep.event(resultSet.getTimestamp(1).toLocalDateTime(), resultSet.getInt(2));
+                },
+                start, end, start, end);
+        return sweep.finish(from, to);
+    }
+
+    /**
+     * Loopt door de tijdvakken mee met de events en houdt per vak de stand aan het begin
+     * en het maximum bij. Een vak loopt van zijn begin (inclusief) tot het volgende vak.
+     */
+    private static final class Sweep {
+
+        private final LocalDateTime start;
+        private final long slotSeconds;
+        private final int slotMinutes;
+        private final int[] presentAtStart;
+        private final int[] peak;
+        private int present;
+        private int slot;
+
+        Sweep(LocalDateTime start, int slotMinutes, int slotCount, int initial) {
+            this.start = start;
+            this.slotMinutes = slotMinutes;
+            this.slotSeconds = slotMinutes * 60L;
+            this.presentAtStart = new int[slotCount];
+            this.peak = new int[slotCount];
+            this.present = initial;
+            presentAtStart[0] = initial;
+            peak[0] = initial;
+        }
+
+        void event(LocalDateTime time, int delta) {
+            Duration offset = Duration.between(start, time);
+            advanceTo((int) (offset.getSeconds() / slotSeconds));
+            present += delta;
+            if (offset.getSeconds() % slotSeconds == 0 && offset.getNano() == 0) {
+                // Precies op de grens: de stand aan het begin van het vak is die na deze events
+                presentAtStart[slot] = present;
+                peak[slot] = present;
+            } else if (present > peak[slot]) {
+                peak[slot] = present;
+            }
+        }
+
+        OccupancyTimeline finish(LocalDate from, LocalDate to) {
+            advanceTo(presentAtStart.length - 1);
+
+            List<OccupancyTimeline.Slot> slots = new ArrayList<>(presentAtStart.length);
+            List<OccupancyTimeline.Week> weeks = new ArrayList<>();
+            int overallPeak = -1;
+            LocalDateTime overallPeakAt = null;
+            LocalDate week = null;
+            int weekPeak = -1;
+            LocalDateTime weekPeakAt = null;
+            for (int i = 0; i < presentAtStart.length; i++) {
+                LocalDateTime slotStart = start.plusMinutes((long) i * slotMinutes);
+                slots.add(new OccupancyTimeline.Slot(slotStart, presentAtStart[i], peak[i]));
+
+                LocalDate slotWeek = slotStart.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                if (!slotWeek.equals(week)) {
+                    if (week != null) {
+                        weeks.add(new OccupancyTimeline.Week(week, weekPeak, weekPeakAt));
+                    }
+                    week = slotWeek;
+                    weekPeak = -1;
+                }
+                if (peak[i] > weekPeak) {
+                    weekPeak = peak[i];
+                    weekPeakAt = slotStart;
+                }
+                if (peak[i] > overallPeak) {
+                    overallPeak = peak[i];
+                    overallPeakAt = slotStart;
+                }
+            }
+            weeks.add(new OccupancyTimeline.Week(week, weekPeak, weekPeakAt));
+            return new OccupancyTimeline(from, to, slotMinutes, overallPeak, overallPeakAt, slots, weeks);
+        }
+
+        private void advanceTo(int index) {
+            while (slot < index) {
+                slot++;
+                presentAtStart[slot] = present;
+                peak[slot] = present;
+            }
+        }
+    }
+}
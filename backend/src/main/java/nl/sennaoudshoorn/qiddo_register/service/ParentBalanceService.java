@@ -0,0 +1,229 @@
+package nl.sennaoudshoorn.qiddo_register.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import nl.sennaoudshoorn.qiddo_register.dto.BalanceReconciliation;
+import nl.sennaoudshoorn.qiddo_register.dto.ParentBalanceLine;
+import nl.sennaoudshoorn.qiddo_register.event.InvoiceChangedEvent;
+import nl.sennaoudshoorn.qiddo_register.event.InvoiceSnapshot;
+import nl.sennaoudshoorn.qiddo_register.repository.ParentBalanceRepository;
+
+/**
+ * Houdt het saldogrootboek {@code parent_balance} bij: per ouder het openstaande bedrag
+ * in centen en het aantal onbetaalde facturen. Werkt net als de aanwezigheidsrollup:
+ * elke factuurwijziging levert een verschil op (oude staat eraf, nieuwe erbij), de
+ * verschillen worden per transactie verzameld en vlak voor de commit als één batch
+ * upserts weggeschreven, op volgorde van ouder.
+ *
+ * <p>Een nachtelijke controle ({@code qiddo.balance.reconcile-cron}) rekent het grootboek
+ * na uit de facturen en herstelt afwijkingen. Het herstel is een verschil bovenop de
+ * huidige rij, zodat een wijziging die tijdens de controle commit niet verloren gaat.
+ */
+@Service
+public class ParentBalanceService implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParentBalanceService.class);
+
+    // Werkt op MySQL en op H2 in MySQL-modus
+    private static final String UPSERT = """
+            insert into parent_balance (parent_id, outstanding_cents, open_invoices) values (?, ?, ?)
+            on duplicate key update outstanding_cents = outstanding_cents + values(outstanding_cents),
+                open_invoices = open_invoices + values(open_invoices)""";
+    private static final String DELETE_EMPTY =
+            "delete from parent_balance where parent_id = ? and open_invoices <= 0 and outstanding_cents = 0";
+    private static final String OUTSTANDING_FROM_INVOICES = """
+            select parent_id, sum(round(amount * 100)), count(*) from invoice
+            where paid = false group by parent_id""";
+
+    private final ParentBalanceRepository balanceRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry registry;
+
+    // Sleutel voor de verschillen van de lopende transactie
+    private final Object pendingKey = new Object();
+
+    public ParentBalanceService(ParentBalanceRepository balanceRepository, JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate, MeterRegistry registry) {
+        this.balanceRepository = balanceRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.registry = registry;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        // Bestaande database zonder grootboek
+        if (balanceRepository.count() == 0) {
+            Long open = jdbcTemplate.queryForObject("select count(*) from invoice where paid = false", Long.class);
+            if (open != null && open > 0) {
+                logger.info("Parent balance ledger is empty but {} invoices are open, rebuilding", open);
+                rebuild();
+            }
+        }
+    }
+
+    /**
+     * Alle gezinnen met openstaande facturen; gezinnen zonder staan er niet in.
+     */
+    public List<ParentBalanceLine> findAll() {
+        return balanceRepository.findAllLines();
+    }
+
+    /**
+     * Verwerkt een wijziging binnen de transactie die hem veroorzaakte.
+     */
+    @EventListener
+    public void onInvoiceChanged(InvoiceChangedEvent event) {
+        Map<Long, Delta> deltas = new HashMap<>();
+        addInvoice(deltas, event.before(), -1);
+        addInvoice(deltas, event.after(), 1);
+        deltas.values().removeIf(Delta::isZero);
+        if (deltas.isEmpty()) {
+            return;
+        }
+        Map<Long, Delta> pending = pendingDeltas();
+        if (pending != null) {
+            deltas.forEach((parentId, delta) -> pending.merge(parentId, delta, Delta::plus));
+        } else {
+            apply(deltas);
+        }
+    }
+
+    /**
+     * Vult het grootboek opnieuw met één insert-select over de onbetaalde facturen.
+     *
+     * @return het aantal ouders met een openstaand saldo
+     */
+    public int rebuild() {
+        Integer rows = transactionTemplate.execute(status -> {
+            jdbcTemplate.update("delete from parent_balance");
+            return jdbcTemplate.update("insert into parent_balance (parent_id, outstanding_cents, open_invoices) "
+                    + OUTSTANDING_FROM_INVOICES);
+        });
+        logger.info("Parent balance ledger rebuilt with {} parents", rows);
+        return rows != null ? rows : 0;
+    }
+
+    /**
+     * Rekent het grootboek na uit de facturen en herstelt afwijkingen. Beide kanten
+     * worden in één transactie gelezen (op MySQL dus uit dezelfde snapshot).
+     */
+    @Scheduled(cron = "${qiddo.balance.reconcile-cron:0 30 3 * * *}")
+    public BalanceReconciliation reconcile() {
+        BalanceReconciliation result = transactionTemplate.execute(status -> {
+            Map<Long, Delta> expected = new TreeMap<>();
+            jdbcTemplate.query(OUTSTANDING_FROM_INVOICES, rs -> {
+                expected.put(rs.getLong(1), new Delta(rs.getLong(2), rs.getInt(3)));
+            });
+            Map<Long, Delta> actual = new HashMap<>();
+            jdbcTemplate.query("select parent_id, outstanding_cents, open_invoices from parent_balance", rs -> {
+                actual.put(rs.getLong(1), new Delta(rs.getLong(2), rs.getInt(3)));
+            });
+
+            Map<Long, Delta> corrections = new TreeMap<>();
+            actual.keySet().forEach(parentId -> expected.putIfAbsent(parentId, Delta.ZERO));
+            expected.forEach((parentId, should) -> {
+                Delta is = actual.getOrDefault(parentId, Delta.ZERO);
+                if (!should.equals(is)) {
+                    logger.warn("Balance of parent {} is {} cents in {} invoices, expected {} cents in {} invoices",
+                            parentId, is.cents(), is.invoices(), should.cents(), should.invoices());
+                    corrections.put(parentId, should.plus(is.negate()));
+                }
+            });
+            apply(corrections);
+            return new BalanceReconciliation(expected.size(), List.copyOf(corrections.keySet()));
+        });
+        registry.counter("qiddo.balance.mismatches").increment(result.mismatchedParentIds().size());
+        logger.info("Parent balance reconciliation: {} parents checked, {} corrected",
+                result.parents(), result.mismatchedParentIds().size());
+        return result;
+    }
+
+    private static void addInvoice(Map<Long, Delta> deltas, InvoiceSnapshot invoice, int sign) {
+        if (invoice != null && invoice.isOutstanding()) {
+            deltas.merge(invoice.parentId(), new Delta(sign * invoice.amountCents(), sign), Delta::plus);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, Delta> pendingDeltas() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        Map<Long, Delta> pending = (Map<Long, Delta>) TransactionSynchronizationManager.getResource(pendingKey);
+        if (pending == null) {
+            Map<Long, Delta> deltas = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(pendingKey, deltas);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    apply(deltas);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(pendingKey);
+                }
+            });
+            pending = deltas;
+        }
+        return pending;
+    }
+
+    private void apply(Map<Long, Delta> deltas) {
+        List<Map.Entry<Long, Delta>> rows = new ArrayList<>(deltas.entrySet());
+        rows.removeIf(row -> row.getValue().isZero());
+        if (rows.isEmpty()) {
+            return;
+        }
+        // Vaste volgorde tegen deadlocks tussen gelijktijdige transacties
+        rows.sort(Map.Entry.comparingByKey());
+        jdbcTemplate.batchUpdate(UPSERT, rows, rows.size(), (statement, row) -> {
+            statement.setLong(1, row.getKey());
+            statement.setLong(2, row.getValue().cents());
+            statement.setInt(3, row.getValue().invoices());
+        });
+        List<Long> decreased = rows.stream()
+                .filter(row -> row.getValue().invoices() < 0 || row.getValue().cents() < 0)
+                .map(Map.Entry::getKey)
+                .toList();
+        if (!decreased.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_EMPTY, decreased, decreased.size(),
+                    (statement, parentId) -> statement.setLong(1, parentId));
+        }
+    }
+
+    record Delta(long cents, int invoices) {
+
+        static final Delta ZERO = new Delta(0, 0);
+
+        Delta plus(Delta other) {
+            return new Delta(cents + other.cents, invoices + other.invoices);
+        }
+
+        Delta negate() {
+            return new Delta(-cents, -invoices);
+        }
+
+        boolean isZero() {
+            return cents == 0 && invoices == 0;
+        }
+    }
+}
@@ -5,18 +5,28 @@ import java.util.Optional;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import nl.sennaoudshoorn.qiddo_register.config.CacheConfig;
 import nl.sennaoudshoorn.qiddo_register.model.Parent;
+import nl.sennaoudshoorn.qiddo_register.repository.ChildRepository;
 import nl.sennaoudshoorn.qiddo_register.repository.ParentRepository;
 
 @Service
 public class ParentService {
 
     private final ParentRepository parentRepository;
+    private final ChildRepository childRepository;
+    private final PersonDirectory personDirectory;
+    private final PersonCache personCache;
 
-    public ParentService(ParentRepository parentRepository) {
+    public ParentService(ParentRepository parentRepository, ChildRepository childRepository,
+                         PersonDirectory personDirectory, PersonCache personCache) {
         this.parentRepository = parentRepository;
+        this.childRepository = childRepository;
+        this.personDirectory = personDirectory;
+        this.personCache = personCache;
     }
 
     public List<Parent> findAll() {
@@ -24,21 +34,33 @@ public class ParentService {
     }
 
     public Optional<Parent> getParentById(Long id) {
-        return parentRepository.findById(id);
+        return Optional.ofNullable(findById(id));
     }
 
+    /**
+     * De ouder uit de cache; elke aanroep krijgt een eigen, losse kopie.
+     */
     public Parent findById(Long id) {
-        return parentRepository.findById(id).orElse(null);
+        return personCache.get(CacheConfig.PARENTS, id, () -> parentRepository.findById(id).orElse(null),
+                Parent::copy);
     }
 
+    @Transactional
     public Parent save(Parent parent) {
-        return parentRepository.save(parent);
+        Parent saved = parentRepository.save(parent);
+        personDirectory.update(saved);
+        invalidateCaches(saved.getId());
+        return saved;
     }
 
+    @Transactional
     public void deleteById(Long id) {
+        invalidateCaches(id);
         parentRepository.deleteById(id);
+        personDirectory.remove(id);
     }
 
+    @Transactional
     public Parent updateParent(Long id, Parent updatedParent) {
         Parent existing = parentRepository.findById(id)
             .orElseThrow(() -> new ResponseStatusException(
@@ -52,6 +74,16 @@ public class ParentService {
         existing.setEmail(updatedParent.getEmail());
         existing.setAddress(updatedParent.getAddress());
 
-        return parentRepository.save(existing);
+        Parent saved = parentRepository.save(existing);
+        personDirectory.update(saved);
+        invalidateCaches(id);
+        return saved;
+    }
+
+    // Gecachte kinderen bevatten een kopie van hun ouder, dus die van deze ouder ook
+    private void invalidateCaches(Long id) {
+        personCache.evict(CacheConfig.PARENTS, id);
+        personCache.evict(CacheConfig.CHILDREN, childRepository.findIdsByParentId(id));
+        personCache.invalidate(CacheConfig.ACTIVE_CHILDREN);
     }
 }
\ No newline at end of file
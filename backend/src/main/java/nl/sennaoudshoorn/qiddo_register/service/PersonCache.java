@@ -0,0 +1,127 @@
+package nl.sennaoudshoorn.qiddo_register.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Caches voor ouders, kinderen en lijsten van kinderen. Een schrijver haalt na zijn
+ * transactie alleen weg wat hij heeft geraakt: de entries van de gewijzigde personen
+ * ({@link #evict}) en de lijsten waar ze in staan ({@link #invalidate}). Andere entries
+ * blijven staan.
+ *
+ * <p>Een lezer die vóór de commit de oude rij las, mag die daarna niet meer in de cache
+ * zetten. Per cache loopt daarom een teller mee met elke evict: een lezer zet zijn
+ * resultaat in de cache en kijkt daarna of er sinds het begin van zijn load iets uit die
+ * cache is gehaald; zo ja, dan haalt hij zijn eigen entry weer weg. Een lijst heeft geen
+ * vaste sleutels om te evicten; die krijgt een generatie in de sleutel, die
+ * {@link #invalidate} ophoogt.
+ *
+ * <p>De cache bewaart een eigen kopie en elke lezer krijgt een nieuwe kopie: entities
+ * uit de cache zijn los van elke persistence context en worden niet tussen requests
+ * gedeeld.
+ */
+@Component
+public class PersonCache {
+
+    private final CacheManager cacheManager;
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> evictions = new ConcurrentHashMap<>();
+
+    public PersonCache(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * De waarde uit de cache, of anders uit {@code loader}; {@code null} wordt niet gecachet.
+     *
+     * @param copy maakt een losse kopie, voor de cache en voor elke lezer
+     */
+    public <T> T get(String cacheName, Object key, Supplier<T> loader, UnaryOperator<T> copy) {
+        long evicted = counter(evictions, cacheName).get();
+        Key versionedKey = new Key(counter(generations, cacheName).get(), key);
+        Cache cache = cacheManager.getCache(cacheName);
+        Cache.ValueWrapper cached = cache != null ? cache.get(versionedKey) : null;
+        if (cached != null) {
+            @SuppressWarnings("unchecked")
+            T value = (T) cached.get();
+            return copy.apply(value);
+        }
+        T loaded = loader.get();
+        if (loaded != null && cache != null) {
+            // putIfAbsent en evictIfPresent gaan direct, ook binnen een transactie
+            cache.putIfAbsent(versionedKey, copy.apply(loaded));
+            if (counter(evictions, cacheName).get() != evicted) {
+                // Er is tijdens de load geschreven; misschien is dit de oude rij
+                cache.evictIfPresent(versionedKey);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Haalt de entries met deze sleutels uit de cache zodra de lopende transactie klaar
+     * is (ook na een rollback, want lezers binnen de transactie kunnen niet-gecommitte
+     * rijen hebben gecachet), of meteen als er geen transactie is.
+     */
+    public void evict(String cacheName, Collection<?> keys) {
+        afterCompletion(() -> {
+            // Eerst de teller, dan de evict: een lezer die daarna nog put, ziet de teller
+            counter(evictions, cacheName).incrementAndGet();
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache != null) {
+                long generation = counter(generations, cacheName).get();
+                keys.forEach(key -> cache.evictIfPresent(new Key(generation, key)));
+            }
+        });
+    }
+
+    public void evict(String cacheName, Object key) {
+        evict(cacheName, List.of(key));
+    }
+
+    /**
+     * Maakt alle entries van een lijstcache ongeldig, op hetzelfde moment als {@link #evict}.
+     */
+    public void invalidate(String cacheName) {
+        afterCompletion(() -> {
+            counter(evictions, cacheName).incrementAndGet();
+            counter(generations, cacheName).incrementAndGet();
+            // Oude generaties worden nooit meer gelezen; alleen ruimte vrijmaken
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache != null) {
+                cache.invalidate();
+            }
+        });
+    }
+
+    private static void afterCompletion(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.run();
+            }
+        });
+    }
+
+    private static AtomicLong counter(Map<String, AtomicLong> counters, String cacheName) {
+        return counters.computeIfAbsent(cacheName, name -> new AtomicLong());
+    }
+
+    private record Key(long generation, Object key) {
+    }
+}
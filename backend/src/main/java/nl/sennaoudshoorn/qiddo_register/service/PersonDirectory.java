@@ -0,0 +1,141 @@
+package nl.sennaoudshoorn.qiddo_register.service;
+
+import java.sql.Types;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import nl.sennaoudshoorn.qiddo_register.dto.PersonSearchHit;
+import nl.sennaoudshoorn.qiddo_register.event.ChildChangedEvent;
+import nl.sennaoudshoorn.qiddo_register.event.ChildSnapshot;
+import nl.sennaoudshoorn.qiddo_register.model.Child;
+import nl.sennaoudshoorn.qiddo_register.model.Parent;
+import nl.sennaoudshoorn.qiddo_register.model.Person;
+import nl.sennaoudshoorn.qiddo_register.model.PersonDirectoryEntry;
+import nl.sennaoudshoorn.qiddo_register.repository.PersonDirectoryRepository;
+
+/**
+ * Houdt de tabel {@code person_directory} gelijk aan de personen. ParentService meldt
+ * zijn wijzigingen hier direct (PersonService via ParentService); kinderen volgen via het
+ * {@link ChildChangedEvent} van de ChildService. Beide gebeuren in de transactie van de
+ * wijziging zelf. Na de commit gaat dezelfde wijziging ook naar de {@link PersonSearchIndex}.
+ *
+ * <p>Schrijfpaden buiten de services om (zoals de seeder) roepen {@link #rebuild()} aan.
+ * Bij het opstarten wordt de directory herbouwd als het aantal rijen niet klopt, zodat
+ * een bestaande database zonder directory vanzelf wordt gevuld.
+ */
+@Service
+public class PersonDirectory implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersonDirectory.class);
+
+    private final PersonDirectoryRepository directoryRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PersonSearchIndex searchIndex;
+
+    public PersonDirectory(PersonDirectoryRepository directoryRepository, JdbcTemplate jdbcTemplate,
+                           TransactionTemplate transactionTemplate, PersonSearchIndex searchIndex) {
+        this.directoryRepository = directoryRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.searchIndex = searchIndex;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        Long persons = jdbcTemplate.queryForObject("select count(*) from person", Long.class);
+        long entries = directoryRepository.count();
+        if (persons != null && persons != entries) {
+            logger.info("Person directory has {} of {} persons, rebuilding", entries, persons);
+            rebuild();
+        }
+    }
+
+    public List<PersonDirectoryEntry> list(String role, Boolean active) {
+        return directoryRepository.findFiltered(role, active);
+    }
+
+    public void update(Person person) {
+        directoryRepository.save(entryFor(person));
+        searchIndex.putAfterCommit(searchHit(person));
+    }
+
+    /**
+     * Neemt nieuwe personen op met één JDBC batch, voor de import. Werkt net als
+     * {@link #update(Person)} in de lopende transactie; de zoekindex volgt na de commit.
+     */
+    public void addAll(List<? extends Person> persons) {
+        List<PersonDirectoryEntry> entries = persons.stream().map(PersonDirectory::entryFor).toList();
+        jdbcTemplate.batchUpdate("insert into person_directory (id, naam, role, active, parent_id) values (?, ?, ?, ?, ?)",
+                entries, entries.size(), (statement, entry) -> {
+                    statement.setLong(1, entry.getId());
+                    statement.setString(2, entry.getNaam());
+                    statement.setString(3, entry.getRole());
+                    statement.setBoolean(4, entry.isActive());
+                    statement.setObject(5, entry.getParentId(), Types.BIGINT);
+                });
+        searchIndex.putAllAfterCommit(persons.stream().map(PersonDirectory::searchHit).toList());
+    }
+
+    public void remove(Long id) {
+        directoryRepository.deleteById(id);
+        searchIndex.removeAfterCommit(id);
+    }
+
+    @EventListener
+    public void onChildChanged(ChildChangedEvent event) {
+        ChildSnapshot child = event.child();
+        if (event.type() == ChildChangedEvent.Type.DELETED) {
+            remove(child.id());
+        } else {
+            directoryRepository.save(new PersonDirectoryEntry(child.id(), child.naam(), PersonDirectoryEntry.CHILD,
+                    child.active(), child.parentId()));
+            searchIndex.putAfterCommit(new PersonSearchHit(child.id(), child.naam(), PersonDirectoryEntry.CHILD,
+                    child.active(), child.parentId(), null, null));
+        }
+    }
+
+    /**
+     * Vult de directory opnieuw met één insert-select over de persoonstabellen.
+     *
+     * @return het aantal personen
+     */
+    public int rebuild() {
+        Integer rows = transactionTemplate.execute(status -> {
+            jdbcTemplate.update("delete from person_directory");
+            return jdbcTemplate.update("""
+                    insert into person_directory (id, naam, role, active, parent_id)
+                    select p.id, p.naam, p.dtype, coalesce(c.active, true), c.parent_id
+                    from person p left join child c on c.id = p.id""");
+        });
+        logger.info("Person directory rebuilt with {} persons", rows);
+        searchIndex.rebuild();
+        return rows != null ? rows : 0;
+    }
+
+    private static PersonSearchHit searchHit(Person person) {
+        PersonDirectoryEntry entry = entryFor(person);
+        Parent parent = person instanceof Parent p ? p : null;
+        return new PersonSearchHit(entry.getId(), entry.getNaam(), entry.getRole(), entry.isActive(),
+                entry.getParentId(), parent != null ? parent.getEmail() : null, parent != null ? parent.getPhone() : null);
+    }
+
+    private static PersonDirectoryEntry entryFor(Person person) {
+        if (person instanceof Child child) {
+            Long parentId = child.getParent() != null ? child.getParent().getId() : null;
+            return new PersonDirectoryEntry(child.getId(), child.getNaam(), PersonDirectoryEntry.CHILD,
+                    child.isActive(), parentId);
+        }
+        if (person instanceof Parent) {
+            return new PersonDirectoryEntry(person.getId(), person.getNaam(), PersonDirectoryEntry.PARENT, true, null);
+        }
+        throw new IllegalArgumentException("Onbekend soort persoon: " + person.getClass().getSimpleName());
+    }
+}
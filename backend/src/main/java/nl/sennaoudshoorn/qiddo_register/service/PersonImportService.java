@@ -0,0 +1,299 @@
+package nl.sennaoudshoorn.qiddo_register.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import nl.sennaoudshoorn.qiddo_register.config.BirthDateMigration;
+import nl.sennaoudshoorn.qiddo_register.config.CacheConfig;
+import nl.sennaoudshoorn.qiddo_register.dto.ImportResult;
+import nl.sennaoudshoorn.qiddo_register.dto.ImportRowError;
+import nl.sennaoudshoorn.qiddo_register.model.Child;
+import nl.sennaoudshoorn.qiddo_register.model.Parent;
+import nl.sennaoudshoorn.qiddo_register.model.Person;
+import nl.sennaoudshoorn.qiddo_register.repository.ChildRepository;
+import nl.sennaoudshoorn.qiddo_register.repository.ParentRepository;
+
+/**
+ * Importeert ouders en kinderen uit een CSV-bestand, bijvoorbeeld bij het openen van een
+ * nieuwe locatie. Het bestand wordt regel voor regel gelezen; elke
+ * {@code qiddo.import.chunk-size} regels gaan in één transactie naar de database, waar
+ * Hibernate ze dankzij de person sequence in JDBC batches invoegt. Het geheugengebruik
+ * hangt dus af van de chunkgrootte en niet van de grootte van het bestand.
+ *
+ * <p>Het bestand is per gezin gegroepeerd: een kind hoort bij de dichtstbijzijnde
+ * ouderregel erboven. Kolommen (kopregel verplicht, hoofdletters en volgorde vrij):
+ * {@code type} (OUDER/PARENT of KIND/CHILD), {@code naam}, {@code geboortedatum}, en
+ * optioneel {@code gender}, {@code email}, {@code phone}, {@code address},
+ * {@code allergies}, {@code dietary_preferences}, {@code notes} en {@code active}.
+ *
+ * <p>Ongeldige regels worden overgeslagen en gerapporteerd; kinderen van een afgewezen
+ * ouder worden ook afgewezen. Mislukt een chunk in de database, dan worden al zijn regels
+ * afgewezen en gaat de import verder met de volgende. De person directory en de zoekindex
+ * worden per chunk bijgewerkt. Geïmporteerde kinderen gaan niet als losse events over de
+ * change feed; dashboards zien ze bij hun volgende initiële load.
+ */
+@Service
+public class PersonImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersonImportService.class);
+
+    private static final List<String> REQUIRED = List.of("type", "naam", "geboortedatum");
+    private static final List<String> OPTIONAL = List.of("gender", "email", "phone", "address", "allergies",
+            "dietary_preferences", "notes", "active");
+    private static final int MAX_FIELD_LENGTH = 4000;
+
+    private final ParentRepository parentRepository;
+    private final ChildRepository childRepository;
+    private final PersonDirectory personDirectory;
+    private final PersonCache personCache;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int maxErrors;
+
+    public PersonImportService(ParentRepository parentRepository, ChildRepository childRepository,
+                               PersonDirectory personDirectory, PersonCache personCache,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${qiddo.import.chunk-size:500}") int chunkSize,
+                               @Value("${qiddo.import.max-errors:1000}") int maxErrors) {
+        this.parentRepository = parentRepository;
+        this.childRepository = childRepository;
+        this.personDirectory = personDirectory;
+        this.personCache = personCache;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+    }
+
+    public ImportResult importCsv(Reader reader) throws IOException {
+        long start = System.nanoTime();
+        CsvReader csv = new CsvReader(reader, MAX_FIELD_LENGTH);
+        Map<String, Integer> columns = columns(csv.next());
+        Run run = new Run();
+        try {
+            List<String> record;
+            while ((record = csv.next()) != null) {
+                run.rows++;
+                run.add(csv.recordLine(), new Row(record, columns));
+                if (run.chunk.size() >= chunkSize) {
+                    run.flush();
+                }
+            }
+        } catch (CsvReader.CsvException e) {
+            // Na een kapot aanhalingsteken is niet meer te zeggen waar een regel begint
+            run.error(e.line(), "Bestand niet verder te lezen: " + e.getMessage());
+        }
+        run.flush();
+        logger.info("Import: {} rows, {} parents and {} children imported, {} rejected in {} ms", run.rows,
+                run.parents, run.children, run.rejected, (System.nanoTime() - start) / 1_000_000);
+        return new ImportResult(run.rows, run.parents, run.children, run.rejected, run.errors,
+                run.rejected > run.errors.size());
+    }
+
+    private static Map<String, Integer> columns(List<String> header) {
+        if (header == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Leeg bestand");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).trim().toLowerCase(Locale.ROOT);
+            if (REQUIRED.contains(name) || OPTIONAL.contains(name)) {
+                columns.putIfAbsent(name, i);
+            }
+        }
+        List<String> missing = REQUIRED.stream().filter(name -> !columns.containsKey(name)).toList();
+        if (!missing.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Kolommen ontbreken: " + missing);
+        }
+        return columns;
+    }
+
+    /**
+     * De toestand van één import: de open chunk, de huidige ouder en de tellingen.
+     */
+    private final class Run {
+
+        private final List<Pending> chunk = new ArrayList<>();
+        private final List<ImportRowError> errors = new ArrayList<>();
+        // Ouder van de kinderen die nog volgen; null voor de eerste ouderregel
+        private Pending parent;
+        private long rows;
+        private long parents;
+        private long children;
+        private long rejected;
+
+        void add(long line, Row row) {
+            String type = row.get("type").toUpperCase(Locale.ROOT);
+            boolean isParent = type.equals("OUDER") || type.equals("PARENT");
+            if (!isParent && !type.equals("KIND") && !type.equals("CHILD")) {
+                error(line, "Onbekend type '" + row.get("type") + "', verwacht OUDER of KIND");
+                return;
+            }
+            String problem = validate(row);
+            if (isParent) {
+                parent = new Pending(line, problem == null ? parent(row) : null);
+                if (problem != null) {
+                    error(line, problem);
+                } else {
+                    chunk.add(parent);
+                }
+                return;
+            }
+            if (parent == null) {
+                error(line, "Kind zonder ouderregel erboven");
+            } else if (parent.person == null) {
+                error(line, "Ouder op regel " + parent.line + " is afgewezen");
+            } else if (problem != null) {
+                error(line, problem);
+            } else {
+                chunk.add(new Pending(line, child(row, (Parent) parent.person)));
+            }
+        }
+
+        void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            List<Parent> newParents = new ArrayList<>();
+            List<Child> newChildren = new ArrayList<>();
+            for (Pending pending : chunk) {
+                if (pending.person instanceof Parent p) {
+                    newParents.add(p);
+                } else {
+                    newChildren.add((Child) pending.person);
+                }
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    parentRepository.saveAll(newParents);
+                    childRepository.saveAll(newChildren);
+                    // Id's zijn bij het persisten al toegekend; de inserts volgen bij de commit
+                    List<Person> persons = new ArrayList<>(newParents);
+                    persons.addAll(newChildren);
+                    personDirectory.addAll(persons);
+                    // Alleen nieuwe personen: geen bestaande entry geraakt, wel de lijst
+                    personCache.invalidate(CacheConfig.ACTIVE_CHILDREN);
+                });
+                parents += newParents.size();
+                children += newChildren.size();
+            } catch (RuntimeException e) {
+                logger.warn("Import of lines {}-{} failed: {}", chunk.get(0).line, chunk.get(chunk.size() - 1).line,
+                        e.getMessage());
+                for (Pending pending : chunk) {
+                    error(pending.line, "Niet opgeslagen, de hele chunk is teruggedraaid: " + rootMessage(e));
+                }
+                // Kinderen die nog volgen kunnen niet meer aan deze ouder gekoppeld worden
+                if (parent != null && chunk.contains(parent)) {
+                    parent = new Pending(parent.line, null);
+                }
+            }
+            chunk.clear();
+        }
+
+        void error(long line, String message) {
+            rejected++;
+            if (errors.size() < maxErrors) {
+                errors.add(new ImportRowError(line, message));
+            }
+        }
+    }
+
+    private static String validate(Row row) {
+        String naam = row.get("naam");
+        if (naam.isEmpty()) {
+            return "Naam ontbreekt";
+        }
+        if (naam.length() > 255) {
+            return "Naam is langer dan 255 tekens";
+        }
+        if (row.get("geboortedatum").isEmpty()) {
+            return "Geboortedatum ontbreekt";
+        }
+        LocalDate birthDate = BirthDateMigration.parse(row.get("geboortedatum"));
+        if (birthDate == null) {
+            return "Geboortedatum '" + row.get("geboortedatum") + "' niet te lezen";
+        }
+        if (birthDate.isAfter(LocalDate.now())) {
+            return "Geboortedatum ligt in de toekomst";
+        }
+        String email = row.get("email");
+        if (!email.isEmpty() && (!email.contains("@") || email.contains(" "))) {
+            return "Ongeldig e-mailadres '" + email + "'";
+        }
+        if (active(row.get("active")) == null) {
+            return "Ongeldige waarde voor active '" + row.get("active") + "'";
+        }
+        for (String column : OPTIONAL) {
+            if (row.get(column).length() > 255) {
+                return "Kolom " + column + " is langer dan 255 tekens";
+            }
+        }
+        return null;
+    }
+
+    private static Parent parent(Row row) {
+        Parent parent = new Parent(row.get("naam"), BirthDateMigration.parse(row.get("geboortedatum")),
+                row.optional("gender"));
+        parent.setEmail(row.optional("email"));
+        parent.setPhone(row.optional("phone"));
+        parent.setAddress(row.optional("address"));
+        return parent;
+    }
+
+    private static Child child(Row row, Parent parent) {
+        Child child = new Child(row.get("naam"), BirthDateMigration.parse(row.get("geboortedatum")),
+                row.optional("gender"), parent);
+        child.setAllergies(row.optional("allergies"));
+        child.setDietaryPreferences(row.optional("dietary_preferences"));
+        child.setNotes(row.optional("notes"));
+        child.setActive(active(row.get("active")));
+        return child;
+    }
+
+    private static Boolean active(String value) {
+        return switch (value.toLowerCase(Locale.ROOT)) {
+            case "", "true", "ja", "1", "actief" -> true;
+            case "false", "nee", "0", "inactief" -> false;
+            default -> null;
+        };
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable cause = e;
+        while (cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage();
+    }
+
+    /** Een persoon die in de open chunk wacht; {@code person} is null bij een afgewezen ouder. */
+    private record Pending(long line, Person person) {
+    }
+
+    /** Een CSV-regel met de velden op kolomnaam, getrimd. */
+    private record Row(List<String> fields, Map<String, Integer> columns) {
+
+        String get(String column) {
+            Integer index = columns.get(column);
+            return index != null && index < fields.size() ? fields.get(index).trim() : "";
+        }
+
+        String optional(String column) {
+            String value = get(column);
+            return value.isEmpty() ? null : value;
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package nl.sennaoudshoorn.qiddo_register.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import nl.sennaoudshoorn.qiddo_register.dto.PersonSearchHit;
+
+/**
+ * Zoekindex in het geheugen op naam, e-mail en telefoonnummer, voor "drie letters typen
+ * en het kind vinden". Elk woord wordt met al zijn prefixen opgenomen (een platgeslagen
+ * trie), dus een zoekopdracht is een paar hash lookups en een doorsnede; ieder woord uit
+ * de zoekopdracht moet het begin zijn van een woord van de persoon.
+ *
+ * <p>Normalisatie: kleine letters en zonder accenten ("Zoë" vindt "zoe"). Tussenvoegsels
+ * tellen alleen mee als er verder niets is ingetypt; "de vries" zoekt dus op "vries".
+ * Een tussenvoegsel wordt ook aan de achternaam vastgeplakt geïndexeerd, zodat
+ * "vandenb" "Van den Berg" vindt. Telefoonnummers worden op cijfers geïndexeerd, met
+ * +31 als 0.
+ *
+ * <p>Wordt bij het opstarten gevuld en daarna na elke commit bijgewerkt via de
+ * PersonDirectory. Lezen gebeurt zonder lock; elke kandidaat wordt nog tegen zijn
+ * actuele document gecontroleerd, zodat een half verwerkte wijziging nooit een fout
+ * resultaat geeft.
+ */
+@Component
+public class PersonSearchIndex implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersonSearchIndex.class);
+
+    public static final int MAX_RESULTS = 50;
+
+    // Langere prefixen worden niet geïndexeerd maar bij het controleren van kandidaten vergeleken
+    private static final int MAX_PREFIX = 12;
+    private static final Set<String> TUSSENVOEGSELS = Set.of(
+            "van", "de", "der", "den", "het", "t", "ter", "ten", "te", "in", "op", "aan", "bij", "uit", "la", "le", "du");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Long, Document> documents = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> prefixes = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    public PersonSearchIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    /**
+     * Leest alle personen opnieuw in uit de database.
+     */
+    public void rebuild() {
+        long start = System.nanoTime();
+        List<PersonSearchHit> persons = jdbcTemplate.query("""
+                select p.id, p.naam, p.dtype, coalesce(c.active, true), c.parent_id, pa.email, pa.phone
+                from person p
+                left join child c on c.id = p.id
+                left join parent pa on pa.id = p.id""",
+                (resultSet, row) -> new PersonSearchHit(resultSet.getLong(1), resultSet.getString(2),
+                        resultSet.getString(3), resultSet.getBoolean(4), (Long) resultSet.getObject(5, Long.class),
+                        resultSet.getString(6), resultSet.getString(7)));
+        writeLock.lock();
+        try {
+            documents.clear();
+            prefixes.clear();
+            persons.forEach(this::add);
+        } finally {
+            writeLock.unlock();
+        }
+        logger.info("Person search index built with {} persons in {} ms", persons.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Neemt de persoon op of werkt hem bij, na de commit van de lopende transactie.
+     */
+    public void putAfterCommit(PersonSearchHit person) {
+        afterCommit(() -> put(person));
+    }
+
+    /**
+     * Neemt een reeks personen op na de commit, met één registratie bij de transactie.
+     */
+    public void putAllAfterCommit(List<PersonSearchHit> persons) {
+        afterCommit(() -> persons.forEach(this::put));
+    }
+
+    /**
+     * Haalt de persoon uit de index, na de commit van de lopende transactie.
+     */
+    public void removeAfterCommit(Long id) {
+        afterCommit(() -> remove(id));
+    }
+
+    public void put(PersonSearchHit person) {
+        writeLock.lock();
+        try {
+            removeDocument(person.id());
+            add(person);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        writeLock.lock();
+        try {
+            removeDocument(id);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    /**
+     * Zoekt personen waarvan elk woord uit {@code query} het begin is van een van hun
+     * woorden. Volledige woorden gaan voor, daarna actieve personen, dan op naam.
+     */
+    public List<PersonSearchHit> search(String query, String role, int limit) {
+        List<String> terms = queryTerms(query);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+
+        // Begin met de kleinste kandidatenset
+        Set<Long> smallest = null;
+        for (String term : terms) {
+            Set<Long> ids = prefixes.get(indexKey(term));
+            if (ids == null) {
+                return List.of();
+            }
+            if (smallest == null || ids.size() < smallest.size()) {
+                smallest = ids;
+            }
+        }
+
+        List<Match> matches = new ArrayList<>();
+        for (Long id : smallest) {
+            Document document = documents.get(id);
+            if (document == null || (role != null && !role.equals(document.person().role()))) {
+                continue;
+            }
+            int exact = document.score(terms);
+            if (exact >= 0) {
+                matches.add(new Match(document.person(), exact));
+            }
+        }
+        int size = Math.max(1, Math.min(limit, MAX_RESULTS));
+        return matches.stream()
+                .sorted(Comparator.comparingInt(Match::exact).reversed()
+                        .thenComparing(match -> !match.person().active())
+                        .thenComparing(match -> match.person().naam(), String.CASE_INSENSITIVE_ORDER)
+                        .thenComparing(match -> match.person().id()))
+                .limit(size)
+                .map(Match::person)
+                .toList();
+    }
+
+    private void add(PersonSearchHit person) {
+        Document document = new Document(person, words(person));
+        documents.put(person.id(), document);
+        for (String key : document.keys()) {
+            prefixes.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(person.id());
+        }
+    }
+
+    private void removeDocument(Long id) {
+        Document document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        for (String key : document.keys()) {
+            prefixes.computeIfPresent(key, (k, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * De doorzoekbare woorden van een persoon: naam (ook met samengevoegde
+     * tussenvoegsels), de delen van het e-mailadres en het telefoonnummer in cijfers.
+     */
+    static Set<String> words(PersonSearchHit person) {
+        Set<String> words = new HashSet<>();
+        List<String> name = tokens(person.naam());
+        words.addAll(name);
+        StringBuilder joined = new StringBuilder();
+        for (String token : name) {
+            if (TUSSENVOEGSELS.contains(token)) {
+                joined.append(token);
+            } else if (!joined.isEmpty()) {
+                words.add(joined.append(token).toString());
+                joined.setLength(0);
+            }
+        }
+        if (person.email() != null && !person.email().isBlank()) {
+            words.addAll(tokens(person.email()));
+            words.add(normalize(person.email()).replace(" ", ""));
+        }
+        String phone = phoneDigits(person.phone());
+        if (!phone.isEmpty()) {
+            words.add(phone);
+        }
+        return words;
+    }
+
+    static List<String> queryTerms(String query) {
+        if (query == null) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>(tokens(query));
+        String digits = phoneDigits(query);
+        if (digits.length() >= 3 && digits.length() * 2 >= query.replaceAll("\\s", "").length()) {
+            // Een telefoonnummer, eventueel met spaties of streepjes ingetypt
+            return List.of(digits);
+        }
+        List<String> significant = tokens.stream().filter(token -> !TUSSENVOEGSELS.contains(token)).toList();
+        return significant.isEmpty() ? tokens : significant;
+    }
+
+    static String normalize(String text) {
+        String withoutMarks = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARATORS.matcher(withoutMarks.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private static List<String> tokens(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        String normalized = normalize(text);
+        return normalized.isEmpty() ? List.of() : List.of(normalized.split(" "));
+    }
+
+    private static String phoneDigits(String phone) {
+        if (phone == null) {
+            return "";
+        }
+        String digits = phone.replaceAll("\\D", "");
+        if (digits.startsWith("0031")) {
+            digits = "0" + digits.substring(4);
+        } else if (digits.startsWith("31") && phone.trim().startsWith("+")) {
+            digits = "0" + digits.substring(2);
+        }
+        return digits;
+    }
+
+    private static String indexKey(String term) {
+        return term.length() > MAX_PREFIX ? term.substring(0, MAX_PREFIX) : term;
+    }
+
+    private record Document(PersonSearchHit person, Set<String> words) {
+
+        Set<String> keys() {
+            Set<String> keys = new HashSet<>();
+            for (String word : words) {
+                for (int length = 1; length <= Math.min(word.length(), MAX_PREFIX); length++) {
+                    keys.add(word.substring(0, length));
+                }
+            }
+            return keys;
+        }
+
+        /**
+         * Aantal termen dat een heel woord is, of -1 als een term nergens het begin van is.
+         */
+        int score(List<String> terms) {
+            int exact = 0;
+            for (String term : terms) {
+                if (words.contains(term)) {
+                    exact++;
+                } else if (words.stream().noneMatch(word -> word.startsWith(term))) {
+                    return -1;
+                }
+            }
+            return exact;
+        }
+    }
+
+    private record Match(PersonSearchHit person, int exact) {
+    }
+}
@@ -2,33 +2,79 @@ package nl.sennaoudshoorn.qiddo_register.service;
 
 import java.util.List;
 
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
+import nl.sennaoudshoorn.qiddo_register.model.Child;
+import nl.sennaoudshoorn.qiddo_register.model.Parent;
 import nl.sennaoudshoorn.qiddo_register.model.Person;
+import nl.sennaoudshoorn.qiddo_register.model.PersonDirectoryEntry;
 import nl.sennaoudshoorn.qiddo_register.repository.PersonRepository;
 
+/**
+ * Personen ongeacht hun rol. Wijzigingen aan ouders en kinderen gaan via de
+ * ParentService en ChildService, zodat hun caches en de {@code ChildChangedEvent}s
+ * hetzelfde gedrag hebben als via {@code /api/parents} en {@code /api/children}.
+ */
 @Service
 public class PersonService {
 
     private final PersonRepository personRepository;
+    private final PersonDirectory personDirectory;
+    private final ParentService parentService;
+    private final ChildService childService;
 
-    public PersonService(PersonRepository personRepository) {
+    public PersonService(PersonRepository personRepository, PersonDirectory personDirectory,
+                         ParentService parentService, ChildService childService) {
         this.personRepository = personRepository;
+        this.personDirectory = personDirectory;
+        this.parentService = parentService;
+        this.childService = childService;
     }
 
-    public List<Person> findAll() {
-        return personRepository.findAll();
+    /**
+     * Lijst uit de platte directory; zie {@link #findById} voor de volledige persoon.
+     */
+    public List<PersonDirectoryEntry> findAll(String role, Boolean active) {
+        return personDirectory.list(role, active);
     }
 
     public Person findById(Long id) {
         return personRepository.findById(id).orElse(null);
     }
 
+    /**
+     * Een kind met een id wordt bijgewerkt; bestaat dat id niet, dan volgt een 404 in
+     * plaats van een nieuw kind, zodat het id van de client nooit stil wordt vervangen.
+     */
+    @Transactional
     public Person save(Person person) {
-        return personRepository.save(person);
+        if (person instanceof Parent parent) {
+            return parentService.save(parent);
+        }
+        if (person instanceof Child child) {
+            return child.getId() != null
+                    ? childService.updateChild(child.getId(), child).orElseThrow(() -> new ResponseStatusException(
+                            HttpStatus.NOT_FOUND, "Kind niet gevonden met id " + child.getId()))
+                    : childService.createChild(child);
+        }
+        Person saved = personRepository.save(person);
+        personDirectory.update(saved);
+        return saved;
     }
 
+    @Transactional
     public void deleteById(Long id) {
-        personRepository.deleteById(id);
+        Person person = personRepository.findById(id).orElse(null);
+        if (person instanceof Parent) {
+            parentService.deleteById(id);
+        } else if (person instanceof Child) {
+            childService.deleteChild(id);
+        } else {
+            personRepository.deleteById(id);
+            personDirectory.remove(id);
+        }
     }
 }
\ No newline at end of file
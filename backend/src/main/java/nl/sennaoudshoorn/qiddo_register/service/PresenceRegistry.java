@@ -0,0 +1,121 @@
+package nl.sennaoudshoorn.qiddo_register.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import nl.sennaoudshoorn.qiddo_register.dto.PresenceEntry;
+import nl.sennaoudshoorn.qiddo_register.event.AttendanceChangedEvent;
+import nl.sennaoudshoorn.qiddo_register.event.AttendanceSnapshot;
+import nl.sennaoudshoorn.qiddo_register.repository.AttendanceRepository;
+
+/**
+ * Houdt in het geheugen bij welke kinderen op dit moment aanwezig zijn. Wordt bij het
+ * opstarten gevuld met de open aanwezigheden en daarna bijgewerkt na elke commit.
+ *
+ * <p>Per kind staat de laatst bekende aanwezigheid, ook als die al is afgesloten. Events
+ * van twee tablets kunnen in een andere volgorde binnenkomen dan ze gecommit zijn; met
+ * die afgesloten aanwezigheid als referentie maakt een te laat binnenkomende check-in
+ * een al verwerkte check-out niet meer ongedaan. Alle wijzigingen per kind gaan via
+ * {@link ConcurrentHashMap#compute} en zijn daarmee atomair.
+ */
+@Component
+public class PresenceRegistry implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(PresenceRegistry.class);
+
+    private final AttendanceRepository attendanceRepository;
+    private final Map<Long, State> byChild = new ConcurrentHashMap<>();
+
+    public PresenceRegistry(AttendanceRepository attendanceRepository) {
+        this.attendanceRepository = attendanceRepository;
+    }
+
+    // Draait voordat de webserver start, dus voordat er check-ins binnen kunnen komen
+    @Override
+    public void afterSingletonsInstantiated() {
+        List<AttendanceSnapshot> open = attendanceRepository.findOpenSnapshots();
+        open.forEach(snapshot -> byChild.merge(snapshot.childId(), State.of(snapshot),
+                (a, b) -> b.isNewerThan(a) ? b : a));
+        logger.info("Presence registry initialised with {} children present", open.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAttendanceChanged(AttendanceChangedEvent event) {
+        AttendanceSnapshot before = event.before();
+        AttendanceSnapshot after = event.after();
+
+        // Aanwezigheid verhuisd naar een ander kind of verwijderd: oude kind afsluiten
+        if (before != null && (after == null || !before.childId().equals(after.childId()))) {
+            byChild.computeIfPresent(before.childId(), (childId, current) ->
+                    current.attendanceId().equals(before.id()) ? current.closed() : current);
+        }
+        if (after == null) {
+            return;
+        }
+
+        boolean reopened = before != null && !before.isOpen() && after.isOpen();
+        State incoming = State.of(after);
+        byChild.compute(after.childId(), (childId, current) -> {
+            if (current == null) {
+                return incoming;
+            }
+            if (current.attendanceId().equals(after.id())) {
+                // Afgesloten blijft afgesloten, tenzij de check-out expliciet is weggehaald
+                return !current.present() && incoming.present() && !reopened ? current : incoming;
+            }
+            return incoming.isNewerThan(current) ? incoming : current;
+        });
+    }
+
+    public boolean isPresent(Long childId) {
+        State state = byChild.get(childId);
+        return state != null && state.present();
+    }
+
+    public Optional<PresenceEntry> get(Long childId) {
+        State state = byChild.get(childId);
+        return state != null && state.present() ? Optional.of(state.toEntry()) : Optional.empty();
+    }
+
+    public List<PresenceEntry> getPresent() {
+        List<PresenceEntry> present = new ArrayList<>();
+        for (State state : byChild.values()) {
+            if (state.present()) {
+                present.add(state.toEntry());
+            }
+        }
+        present.sort(Comparator.comparing(PresenceEntry::checkInTime));
+        return present;
+    }
+
+    private record State(Long childId, Long attendanceId, LocalDateTime checkInTime, boolean present) {
+
+        static State of(AttendanceSnapshot snapshot) {
+            return new State(snapshot.childId(), snapshot.id(), snapshot.checkInTime(), snapshot.isOpen());
+        }
+
+        State closed() {
+            return new State(childId, attendanceId, checkInTime, false);
+        }
+
+        boolean isNewerThan(State other) {
+            int byTime = checkInTime.compareTo(other.checkInTime);
+            return byTime > 0 || byTime == 0 && attendanceId > other.attendanceId;
+        }
+
+        PresenceEntry toEntry() {
+            return new PresenceEntry(childId, attendanceId, checkInTime);
+        }
+    }
+}
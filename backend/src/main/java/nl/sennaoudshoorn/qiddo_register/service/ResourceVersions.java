@@ -0,0 +1,48 @@
+package nl.sennaoudshoorn.qiddo_register.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * ETags voor list endpoints, afgeleid van de data zelf: aantal rijen, hoogste en som
+ * van de id's, en de som van de {@code @Version} kolom. Elke insert en delete verandert
+ * het aantal of de id's, elke update via JPA verhoogt een versie. Zo geldt een ETag voor
+ * alle instanties tegelijk, ook na een herstart, en ook voor wijzigingen via een andere
+ * instantie. Schrijfpaden buiten JPA om moeten de versie zelf ophogen.
+ *
+ * <p>Eén aggregatie over de primaire sleutel per request; goedkoper dan de lijst zelf
+ * opbouwen en serialiseren. De controllers bepalen de ETag vóór de body, zodat een
+ * wijziging daartussen hooguit een extra 200 oplevert en nooit een onterechte 304.
+ */
+@Component
+public class ResourceVersions {
+
+    public enum Resource {
+        PERSONS("persons", "person");
+
+        private final String tag;
+        private final String query;
+
+        Resource(String tag, String table) {
+            this.tag = tag;
+            this.query = "select count(*), coalesce(max(id), 0), coalesce(sum(id), 0), coalesce(sum(version), 0) from "
+                    + table;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ResourceVersions(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Sterke ETag (inclusief quotes) voor de huidige inhoud van de resource.
+     */
+    public String etag(Resource resource) {
+        String version = jdbcTemplate.queryForObject(resource.query, (resultSet, row) ->
+                Long.toString(resultSet.getLong(1), 36) + "-" + Long.toString(resultSet.getLong(2), 36) + "-"
+                        + Long.toString(resultSet.getLong(3), 36) + "-" + Long.toString(resultSet.getLong(4), 36));
+        return "\"" + resource.tag + "-" + version + "\"";
+    }
+}
@@ -1,5 +1,5 @@
 -- Insert Parents into person table
-INSERT INTO person (id, naam, geboortedatum) VALUES
+INSERT INTO person (id, naam, birth_date) VALUES
 (1, 'Jan de Vries', '1980-05-15'),
 (2, 'Lisa Jansen', '1982-08-22'),
 (3, 'Peter Bakker', '1978-03-10'),
@@ -15,7 +15,7 @@ INSERT INTO parent (id, telefoonnummer, email) VALUES
 (5, '0677788899', 'mark.deboer@example.com');
 
 -- Insert Children into person table
-INSERT INTO person (id, naam, geboortedatum) VALUES
+INSERT INTO person (id, naam, birth_date) VALUES
 (6, 'Emma de Vries', '2018-02-14'),
 (7, 'Lucas Jansen', '2019-06-25'),
 (8, 'Sophie Bakker', '2017-09-03'),
@@ -0,0 +1,116 @@
+package nl.sennaoudshoorn.qiddo_register.benchmark;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.element.Table;
+import com.itextpdf.layout.properties.TextAlignment;
+import com.itextpdf.layout.properties.UnitValue;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nl.sennaoudshoorn.qiddo_register.model.Invoice;
+import nl.sennaoudshoorn.qiddo_register.model.Parent;
+import nl.sennaoudshoorn.qiddo_register.service.InvoicePdfCache;
+import nl.sennaoudshoorn.qiddo_register.service.InvoicePdfService;
+import nl.sennaoudshoorn.qiddo_register.service.InvoicePdfTemplate;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vergelijkt het renderen van een factuur met het gedeelde {@link InvoicePdfTemplate}
+ * met de oorspronkelijke aanpak waarin alles per aanroep opnieuw werd opgebouwd, en
+ * met {@link InvoicePdfService#generateInvoicePdf} als de PDF al in de cache staat.
+ * Resultaat in renders per seconde; draai met {@code mvn -Pbenchmark verify -Djmh.include=InvoicePdfRender}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InvoicePdfRenderBenchmark {
+
+    private InvoicePdfService invoicePdfService;
+    private InvoicePdfService cachedInvoicePdfService;
+    private Invoice invoice;
+
+    @Setup
+    public void setUp() {
+        // Zonder cache: hier gaat het om de rendering zelf
+        invoicePdfService = new InvoicePdfService(new InvoicePdfTemplate(),
+                new InvoicePdfCache(DataSize.ofBytes(0), DataSize.ofBytes(0), DataSize.ofMegabytes(1), null), new SimpleMeterRegistry());
+        // Zoals in de applicatie, maar alleen met de geheugenlaag
+        cachedInvoicePdfService = new InvoicePdfService(new InvoicePdfTemplate(),
+                new InvoicePdfCache(DataSize.ofMegabytes(1), DataSize.ofBytes(0), DataSize.ofMegabytes(1), null), new SimpleMeterRegistry());
+
+        Parent parent = new Parent("Jan de Vries", LocalDate.of(1980, 5, 15), "Man");
+        parent.setId(1L);
+        parent.setPhone("0612345678");
+        parent.setEmail("jan.devries@example.com");
+        parent.setAddress("Dorpsstraat 1, Utrecht");
+
+        invoice = new Invoice(1020.00, false, LocalDate.of(2023, 9, 1), parent);
+        invoice.setId(3L);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public byte[] template() {
+        return invoicePdfService.renderInvoicePdf(invoice);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public byte[] templateConcurrent() {
+        return invoicePdfService.renderInvoicePdf(invoice);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public byte[] cachedConcurrent() {
+        return cachedInvoicePdfService.generateInvoicePdf(invoice);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public byte[] legacy() {
+        return renderLegacy(invoice);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public byte[] legacyConcurrent() {
+        return renderLegacy(invoice);
+    }
+
+    // De rendering van voor de template, als referentie
+    private static byte[] renderLegacy(Invoice invoice) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        Document document = new Document(new PdfDocument(new PdfWriter(baos)));
+        document.add(new Paragraph("FACTUUR").setTextAlignment(TextAlignment.CENTER).setFontSize(20).setBold());
+        document.add(new Paragraph("\nFactuurnummer: " + invoice.getId()));
+        document.add(new Paragraph("Datum: " + invoice.getInvoiceDate().format(DateTimeFormatter.ofPattern("dd-MM-yyyy"))));
+        document.add(new Paragraph("Klant: " + invoice.getParent().getNaam()));
+        document.add(new Paragraph("Telefoon: " + invoice.getParent().getPhone()));
+        document.add(new Paragraph("Email: " + invoice.getParent().getEmail()));
+        document.add(new Paragraph("Adres: " + invoice.getParent().getAddress()));
+        Table table = new Table(UnitValue.createPercentArray(2)).useAllAvailableWidth();
+        table.addCell("Omschrijving");
+        table.addCell("Bedrag");
+        table.addCell("Kinderopvang");
+        table.addCell("€ " + String.format("%.2f", invoice.getAmount()));
+        document.add(table);
+        document.add(new Paragraph("\nTotaal: € " + String.format("%.2f", invoice.getAmount()))
+                .setTextAlignment(TextAlignment.RIGHT).setBold());
+        document.add(new Paragraph("\nStatus: " + (invoice.isPaid() ? "Betaald" : "Nog te betalen")));
+        document.add(new Paragraph("\n\nMet vriendelijke groet,"));
+        document.add(new Paragraph("Qiddo Register"));
+        document.close();
+        return baos.toByteArray();
+    }
+}
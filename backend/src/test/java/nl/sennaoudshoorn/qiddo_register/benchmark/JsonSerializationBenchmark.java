@@ -0,0 +1,80 @@
+package nl.sennaoudshoorn.qiddo_register.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import nl.sennaoudshoorn.qiddo_register.model.Attendance;
+import nl.sennaoudshoorn.qiddo_register.model.Child;
+import nl.sennaoudshoorn.qiddo_register.model.Parent;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meet de JSON-serialisatie van grote lijsten zoals {@code GET /api/children} en
+ * {@code GET /api/attendances} die teruggeven, inclusief de geneste ouder en kind.
+ * Draai met {@code mvn -Pbenchmark verify -DskipTests -Djmh.include=JsonSerialization}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({ "100", "5000" })
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private List<Child> children;
+    private List<Attendance> attendances;
+
+    @Setup
+    public void setUp() {
+        // Dezelfde standaardinstellingen als de ObjectMapper van Spring MVC
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        List<Parent> parents = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, size / 2); i++) {
+            Parent parent = new Parent("Ouder " + i, LocalDate.of(1980, 5, 15), "Vrouw");
+            parent.setId((long) i);
+            parent.setEmail("ouder" + i + "@example.com");
+            parent.setPhone("0612345678");
+            parent.setAddress("Dorpsstraat " + i + ", Utrecht");
+            parents.add(parent);
+        }
+
+        children = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Child child = new Child("Kind " + i, LocalDate.of(2019, 6, 25), "Jongen", parents.get(i % parents.size()));
+            child.setId((long) i);
+            child.setAllergies("Geen");
+            child.setDietaryPreferences("Vegetarisch");
+            child.setNotes("Houdt van tekenen");
+            children.add(child);
+        }
+
+        attendances = new ArrayList<>(size);
+        LocalDateTime start = LocalDateTime.of(2023, 9, 1, 8, 0);
+        for (int i = 0; i < size; i++) {
+            Attendance attendance = new Attendance(start.plusDays(i / 40), start.plusDays(i / 40).plusHours(8),
+                    children.get(i % children.size()));
+            attendance.setId((long) i);
+            attendances.add(attendance);
+        }
+    }
+
+    @Benchmark
+    public byte[] children() throws Exception {
+        return objectMapper.writeValueAsBytes(children);
+    }
+
+    @Benchmark
+    public byte[] attendances() throws Exception {
+        return objectMapper.writeValueAsBytes(attendances);
+    }
+}
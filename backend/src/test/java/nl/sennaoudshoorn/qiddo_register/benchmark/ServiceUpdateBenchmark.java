@@ -0,0 +1,72 @@
+package nl.sennaoudshoorn.qiddo_register.benchmark;
+
+import nl.sennaoudshoorn.qiddo_register.QiddoRegisterApplication;
+import nl.sennaoudshoorn.qiddo_register.model.Child;
+import nl.sennaoudshoorn.qiddo_register.model.Parent;
+import nl.sennaoudshoorn.qiddo_register.repository.ChildRepository;
+import nl.sennaoudshoorn.qiddo_register.repository.ParentRepository;
+import nl.sennaoudshoorn.qiddo_register.service.ChildService;
+import nl.sennaoudshoorn.qiddo_register.service.ParentService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meet de update-paden van {@link ChildService} en {@link ParentService} tegen de
+ * embedded H2 database van het testprofiel, met de volledige Spring context
+ * (transacties, caches, events). Elke aanroep wijzigt een veld, zodat er echt een
+ * UPDATE naar de database gaat.
+ * Draai met {@code mvn -Pbenchmark verify -DskipTests -Djmh.include=ServiceUpdate}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceUpdateBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private ChildService childService;
+    private ParentService parentService;
+
+    private Parent parent;
+    private Child child;
+    private long counter;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(QiddoRegisterApplication.class)
+                .profiles("test")
+                .web(WebApplicationType.NONE)
+                .run();
+        childService = context.getBean(ChildService.class);
+        parentService = context.getBean(ParentService.class);
+
+        parent = context.getBean(ParentRepository.class).save(new Parent("Jan de Vries", LocalDate.of(1980, 5, 15), "Man"));
+        child = context.getBean(ChildRepository.class).save(new Child("Emma de Vries", LocalDate.of(2018, 2, 14), "Meisje", parent));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object updateChild() {
+        Child update = new Child("Emma de Vries", LocalDate.of(2018, 2, 14), "Meisje", parent);
+        update.setNotes("Notitie " + counter++);
+        return childService.updateChild(child.getId(), update);
+    }
+
+    @Benchmark
+    public Object updateParent() {
+        Parent update = new Parent("Jan de Vries", LocalDate.of(1980, 5, 15), "Man");
+        update.setPhone("06" + (10_000_000 + counter++ % 90_000_000));
+        return parentService.updateParent(parent.getId(), update);
+    }
+}
@@ -0,0 +1,94 @@
+package nl.sennaoudshoorn.qiddo_register.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simuleert de check-in piek: een burst van requests die elk kort CPU gebruiken en
+ * daarna blokkeren op een database round trip. Vergelijkt een pool van platform
+ * threads (zoals Tomcat en de executors nu) met virtual threads bij dezelfde limiet
+ * op gelijktijdige taken, en met virtual threads zonder limiet.
+ *
+ * <p>De virtual varianten hebben Java 21 of nieuwer nodig en weigeren op een oudere JRE
+ * te starten, zodat ze nooit stil platform threads meten:
+ * {@code mvn -Pbenchmark verify -DskipTests -Djmh.include=ThreadingModeBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ThreadingModeBenchmark {
+
+    @Param({ "platform", "virtual", "virtual-unbounded" })
+    public String mode;
+
+    // Gelijk aan de standaard max threads van Tomcat
+    @Param({ "200" })
+    public int poolSize;
+
+    @Param({ "2000" })
+    public int requests;
+
+    // Wachttijd op MySQL per request
+    @Param({ "5" })
+    public int ioMillis;
+
+    private AsyncTaskExecutor executor;
+
+    @Setup
+    public void setUp() {
+        if (mode.equals("platform")) {
+            ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+            pool.setCorePoolSize(poolSize);
+            pool.setMaxPoolSize(poolSize);
+            pool.setThreadNamePrefix("platform-");
+            pool.initialize();
+            executor = pool;
+            return;
+        }
+        SimpleAsyncTaskExecutor virtual = new SimpleAsyncTaskExecutor("virtual-");
+        try {
+            virtual.setVirtualThreads(true);
+        } catch (UnsupportedOperationException e) {
+            throw new IllegalStateException("Virtual threads vereisen Java 21 of nieuwer", e);
+        }
+        if (mode.equals("virtual")) {
+            virtual.setConcurrencyLimit(poolSize);
+        }
+        executor = virtual;
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            pool.shutdown();
+        } else if (executor instanceof SimpleAsyncTaskExecutor virtual) {
+            virtual.close();
+        }
+    }
+
+    @Benchmark
+    public void checkInBurst(Blackhole blackhole) throws Exception {
+        List<Future<?>> futures = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            futures.add(executor.submit(() -> {
+                Blackhole.consumeCPU(2_000);
+                Thread.sleep(ioMillis);
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            blackhole.consume(future.get());
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package nl.sennaoudshoorn.qiddo_register.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BirthDateMigrationTest {
+
+    @Autowired
+    private BirthDateMigration migration;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("alter table person drop column if exists geboortedatum");
+        // Deze test voegt alleen person rijen in, zonder parent rij
+        jdbcTemplate.update("delete from person where id not in (select id from parent) and id not in (select id from child)");
+    }
+
+    /**
+     * Test dat bekende tekstformaten worden omgezet en de oude kolom pas verdwijnt als
+     * alle waarden te lezen zijn.
+     */
+    @Test
+    void migrate_ShouldConvertLegacyTextAndDropColumnWhenComplete() {
+        jdbcTemplate.execute("alter table person add column geboortedatum varchar(255) not null default ''");
+        long iso = insertLegacy("Jan de Vries", "1980-05-15");
+        long dutch = insertLegacy("Lisa Jansen", "22-08-1982");
+        long written = insertLegacy("Peter Bakker", " 3 maart 1978 ");
+        long unknown = insertLegacy("Sanne van Dijk", "onbekend");
+
+        assertEquals(3, migration.migrate());
+
+        assertEquals(LocalDate.of(1980, 5, 15), birthDate(iso));
+        assertEquals(LocalDate.of(1982, 8, 22), birthDate(dutch));
+        assertEquals(LocalDate.of(1978, 3, 3), birthDate(written));
+        assertNull(birthDate(unknown));
+        // De oude kolom blijft, maar een nieuwe persoon hoeft hem niet te vullen
+        jdbcTemplate.update("insert into person (id, dtype, naam, birth_date, gender, version) "
+                + "values (next value for person_seq, 'PARENT', 'Nieuw', '1990-01-01', 'Onbekend', 0)");
+
+        jdbcTemplate.update("update person set geboortedatum = '30-11-1985' where id = ?", unknown);
+        assertEquals(1, migration.migrate());
+
+        assertEquals(LocalDate.of(1985, 11, 30), birthDate(unknown));
+        assertEquals(0, migration.migrate());
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from information_schema.columns "
+                + "where lower(table_name) = 'person' and lower(column_name) = 'geboortedatum'", Integer.class));
+    }
+
+    /**
+     * Test dat onmogelijke of dubbelzinnige data niet worden geraden.
+     */
+    @Test
+    void parse_ShouldRejectInvalidDates() {
+        assertEquals(LocalDate.of(2020, 2, 29), BirthDateMigration.parse("29/2/2020"));
+        assertEquals(LocalDate.of(2019, 6, 25), BirthDateMigration.parse("20190625"));
+        assertNull(BirthDateMigration.parse("29-02-2019"));
+        assertNull(BirthDateMigration.parse("2019"));
+        assertNull(BirthDateMigration.parse(""));
+    }
+
+    private long insertLegacy(String naam, String geboortedatum) {
+        jdbcTemplate.update("insert into person (id, dtype, naam, geboortedatum, gender, version) "
+                + "values (next value for person_seq, 'PARENT', ?, ?, 'Onbekend', 0)", naam, geboortedatum);
+        return jdbcTemplate.queryForObject("select id from person where naam = ?", Long.class, naam);
+    }
+
+    private LocalDate birthDate(long id) {
+        return jdbcTemplate.queryForObject("select birth_date from person where id = ?", LocalDate.class, id);
+    }
+}
@@ -0,0 +1,33 @@
+package nl.sennaoudshoorn.qiddo_register.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+class ExecutorConfigTest {
+
+    /**
+     * Test dat virtual threads aanzetten op een JRE ouder dan 21 het opstarten laat
+     * mislukken, in plaats van stil op platform threads te draaien.
+     */
+    @Test
+    void virtualThreads_BeforeJava21_ShouldFailFast() {
+        assumeFalse(JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE));
+        MockEnvironment environment = new MockEnvironment().withProperty("spring.threads.virtual.enabled", "true");
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> new ExecutorConfig(environment));
+        assertTrue(e.getMessage().contains("Java 21"));
+    }
+
+    @Test
+    void platformThreads_ShouldUseFixedPools() {
+        ExecutorConfig config = new ExecutorConfig(new MockEnvironment());
+
+        ThreadPoolTaskExecutor feed = assertInstanceOf(ThreadPoolTaskExecutor.class, config.feedExecutor(4));
+        assertEquals(4, feed.getMaxPoolSize());
+    }
+}
@@ -0,0 +1,144 @@
+package nl.sennaoudshoorn.qiddo_register.controller;
+
+import nl.sennaoudshoorn.qiddo_register.model.Invoice;
+import nl.sennaoudshoorn.qiddo_register.model.Parent;
+import nl.sennaoudshoorn.qiddo_register.repository.InvoiceRepository;
+import nl.sennaoudshoorn.qiddo_register.repository.ParentRepository;
+import nl.sennaoudshoorn.qiddo_register.service.ParentService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ConditionalGetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ParentService parentService;
+
+    @Autowired
+    private ParentRepository parentRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Parent jan;
+    private Invoice invoice;
+
+    @BeforeEach
+    void setUp() {
+        jan = parentService.save(new Parent("Jan de Vries", LocalDate.of(1980, 5, 15), "Man"));
+        invoice = invoiceRepository.save(new Invoice(150.0, false, LocalDate.of(2023, 9, 1), jan));
+    }
+
+    @AfterEach
+    void tearDown() {
+        invoiceRepository.deleteAll();
+        parentRepository.findAll().forEach(parent -> parentService.deleteById(parent.getId()));
+    }
+
+    /**
+     * Test dat een ongewijzigde lijst 304 geeft en een wijziging een nieuwe ETag oplevert.
+     */
+    @Test
+    void parentList_WithMatchingETag_ShouldReturnNotModified() throws Exception {
+        String etag = mockMvc.perform(get("/api/parents"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        mockMvc.perform(get("/api/parents").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/children/active").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        parentService.updateParent(jan.getId(), new Parent("Jan de Vries-Bakker", LocalDate.of(1980, 5, 15), "Man"));
+
+        mockMvc.perform(get("/api/parents").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    /**
+     * Test dat de lijst-ETag uit de data komt: een wijziging die niet via deze instantie
+     * loopt (zoals op een tweede instantie) geeft geen 304 meer, en dezelfde data geeft
+     * dezelfde ETag.
+     */
+    @Test
+    void parentList_ChangedElsewhere_ShouldNotReturnNotModified() throws Exception {
+        String etag = mockMvc.perform(get("/api/parents"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertEquals(etag, mockMvc.perform(get("/api/parents"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG));
+
+        jdbcTemplate.update("update person set naam = 'Jan Bakker', version = version + 1 where id = ?", jan.getId());
+
+        mockMvc.perform(get("/api/parents").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    /**
+     * Test dat een PDF met een geldige ETag niet opnieuw wordt gerenderd,
+     * en dat een gewijzigde factuur wel een nieuwe PDF oplevert.
+     */
+    @Test
+    void invoicePdf_WithMatchingETag_ShouldReturnNotModified() throws Exception {
+        String url = "/api/invoice-pdf/" + invoice.getId();
+        MvcResult started = mockMvc.perform(get(url)).andReturn();
+        MvcResult first = mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk()).andReturn();
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        MvcResult repeat = mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andReturn();
+        assertFalse(repeat.getRequest().isAsyncStarted());
+
+        Invoice paid = invoiceRepository.findById(invoice.getId()).orElseThrow();
+        paid.setPaid(true);
+        invoiceRepository.save(paid);
+
+        MvcResult changed = mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag)).andReturn();
+        mockMvc.perform(asyncDispatch(changed)).andExpect(status().isOk());
+        assertNotEquals(etag, changed.getResponse().getHeader(HttpHeaders.ETAG));
+    }
+
+    /**
+     * Test dat de ETag-controle de versie uit de database leest: ook een wijziging die
+     * buiten Hibernate om gaat geeft geen 304 meer.
+     */
+    @Test
+    void invoicePdf_ChangedOutsideHibernate_ShouldNotReturnNotModified() throws Exception {
+        String url = "/api/invoice-pdf/" + invoice.getId();
+        MvcResult started = mockMvc.perform(get(url)).andReturn();
+        String etag = mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        jdbcTemplate.update("update invoice set paid = true, version = version + 1 where id = ?", invoice.getId());
+
+        MvcResult changed = mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag)).andReturn();
+        assertTrue(changed.getRequest().isAsyncStarted());
+        mockMvc.perform(asyncDispatch(changed)).andExpect(status().isOk());
+    }
+}
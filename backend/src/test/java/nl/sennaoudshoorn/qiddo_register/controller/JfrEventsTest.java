@@ -0,0 +1,107 @@
+package nl.sennaoudshoorn.qiddo_register.controller;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import nl.sennaoudshoorn.qiddo_register.model.Invoice;
+import nl.sennaoudshoorn.qiddo_register.model.Parent;
+import nl.sennaoudshoorn.qiddo_register.repository.InvoiceRepository;
+import nl.sennaoudshoorn.qiddo_register.repository.ParentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Drempel 0: elk request telt als traag
+@SpringBootTest(properties = "qiddo.jfr.slow-request=0ms")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class JfrEventsTest {
+
+    private static final List<String> EVENTS = List.of(
+            "nl.sennaoudshoorn.qiddo.RepositoryCall",
+            "nl.sennaoudshoorn.qiddo.InvoicePdf",
+            "nl.sennaoudshoorn.qiddo.HttpRequest",
+            "nl.sennaoudshoorn.qiddo.SlowRequest");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ParentRepository parentRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    private Invoice invoice;
+
+    @BeforeEach
+    void setUp() {
+        Parent jan = parentRepository.save(new Parent("Jan de Vries", LocalDate.of(1980, 5, 15), "Man"));
+        invoice = invoiceRepository.save(new Invoice(150.0, false, LocalDate.of(2023, 9, 1), jan));
+    }
+
+    @AfterEach
+    void tearDown() {
+        invoiceRepository.deleteAll();
+        parentRepository.deleteAll();
+    }
+
+    /**
+     * Test dat het downloaden van een factuur events oplevert voor de repository-aanroep,
+     * de PDF en het request, en dat het trage request het pad en de id bevat.
+     */
+    @Test
+    void invoiceDownload_ShouldEmitCustomEvents() throws Exception {
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            EVENTS.forEach(name -> recording.enable(name).withoutThreshold());
+            recording.start();
+
+            MvcResult started = mockMvc.perform(get("/api/invoice-pdf/" + invoice.getId())).andReturn();
+            mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk());
+
+            recording.stop();
+            Path file = Files.createTempFile("qiddo", ".jfr");
+            try {
+                recording.dump(file);
+                events = RecordingFile.readAllEvents(file);
+            } finally {
+                Files.delete(file);
+            }
+        }
+
+        assertTrue(events.stream().anyMatch(event -> isType(event, "RepositoryCall")
+                && event.getString("entityType").equals("Invoice")
+                && event.getString("method").equals("findWithParentById")
+                && event.getLong("rows") == 1));
+        assertTrue(events.stream().anyMatch(event -> isType(event, "InvoicePdf")
+                && event.getLong("invoiceId") == invoice.getId()
+                && event.getLong("bytes") > 0));
+        assertTrue(events.stream().anyMatch(event -> isType(event, "HttpRequest")
+                && event.getString("endpoint").equals("/api/invoice-pdf/{id}")
+                && event.getInt("queries") > 0));
+        assertTrue(events.stream().anyMatch(event -> isType(event, "SlowRequest")
+                && event.getString("path").equals("/api/invoice-pdf/" + invoice.getId())
+                && event.getString("ids").equals("id=" + invoice.getId())));
+    }
+
+    private static boolean isType(RecordedEvent event, String name) {
+        return event.getEventType().getName().equals("nl.sennaoudshoorn.qiddo." + name);
+    }
+}
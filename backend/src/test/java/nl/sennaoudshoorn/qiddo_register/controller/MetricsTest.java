@@ -0,0 +1,86 @@
+package nl.sennaoudshoorn.qiddo_register.controller;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import nl.sennaoudshoorn.qiddo_register.model.Invoice;
+import nl.sennaoudshoorn.qiddo_register.model.Parent;
+import nl.sennaoudshoorn.qiddo_register.repository.InvoiceRepository;
+import nl.sennaoudshoorn.qiddo_register.repository.ParentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("test")
+class MetricsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private ParentRepository parentRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @BeforeEach
+    void setUp() {
+        Parent jan = parentRepository.save(new Parent("Jan de Vries", LocalDate.of(1980, 5, 15), "Man"));
+        invoiceRepository.save(new Invoice(150.0, false, LocalDate.of(2023, 9, 1), jan));
+    }
+
+    @AfterEach
+    void tearDown() {
+        invoiceRepository.deleteAll();
+        parentRepository.deleteAll();
+    }
+
+    /**
+     * Test dat het aantal SQL statements per request wordt vastgelegd onder het endpoint-patroon.
+     */
+    @Test
+    void request_ShouldRecordQueryCountPerEndpoint() throws Exception {
+        mockMvc.perform(get("/api/invoices")).andExpect(status().isOk());
+
+        DistributionSummary queries = registry.get("qiddo.http.queries")
+                .tag("method", "GET")
+                .tag("uri", "/api/invoices")
+                .summary();
+        assertEquals(1, queries.count());
+        assertTrue(queries.totalAmount() >= 1);
+    }
+
+    /**
+     * Test dat endpoint-, Hibernate-, pool- en eigen metrics in Prometheus-formaat beschikbaar zijn.
+     */
+    @Test
+    void prometheusEndpoint_ShouldExposeApplicationMetrics() throws Exception {
+        mockMvc.perform(get("/api/invoices")).andExpect(status().isOk());
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertTrue(scrape.contains("http_server_requests_seconds_bucket"));
+        assertTrue(scrape.contains("qiddo_http_queries_bucket"));
+        assertTrue(scrape.contains("hibernate_entities_loads"));
+        assertTrue(scrape.contains("hikaricp_connections_acquire_seconds_bucket"));
+        assertTrue(scrape.contains("qiddo_pdf_render_seconds"));
+    }
+}
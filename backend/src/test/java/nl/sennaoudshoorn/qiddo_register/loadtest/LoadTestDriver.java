@@ -0,0 +1,250 @@
+package nl.sennaoudshoorn.qiddo_register.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Speelt twee drukke momenten na tegen een draaiende applicatie (bijvoorbeeld met het
+ * seed profiel) en rapporteert per soort request p50/p99 latency en throughput.
+ *
+ * <ol>
+ *   <li>Ochtendpiek: elk actief kind wordt apart ingecheckt, terwijl tablets de lijst
+ *       met aanwezige kinderen verversen; daarna één bulk check-out om op te ruimen.</li>
+ *   <li>Maandafsluiting: een facturatierun, gevolgd door het downloaden van alle
+ *       facturen van die maand.</li>
+ *   <li>Exports: aanwezigheden en facturen van die maand als CSV en NDJSON. Een export die
+ *       mislukt of leeg is breekt de run af, zodat een ontbrekende instelling voor de
+ *       database van het profiel (zoals de fetch size) meteen opvalt.</li>
+ * </ol>
+ *
+ * Draai met {@code mvn -Ploadtest verify -DskipTests -Dloadtest.url=http://localhost:8080
+ * -Dloadtest.concurrency=50 -Dloadtest.period=2024-05}.
+ */
+public class LoadTestDriver {
+
+    private final String baseUrl;
+    private final int concurrency;
+    private final HttpClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Stats> stats = new LinkedHashMap<>();
+
+    LoadTestDriver(String baseUrl, int concurrency) {
+        this.baseUrl = baseUrl;
+        this.concurrency = concurrency;
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(concurrency))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = System.getProperty("loadtest.url", "http://localhost:8080");
+        int concurrency = Integer.getInteger("loadtest.concurrency", 50);
+        String period = System.getProperty("loadtest.period", "");
+        YearMonth month = period.isBlank() ? YearMonth.now() : YearMonth.parse(period);
+
+        LoadTestDriver driver = new LoadTestDriver(baseUrl, concurrency);
+        System.out.printf("Load test tegen %s met %d gelijktijdige clients%n%n", baseUrl, concurrency);
+        int status = 0;
+        try {
+            driver.checkInBurst();
+            driver.monthEnd(month);
+            driver.exports(month);
+        } catch (IllegalStateException e) {
+            System.err.println(e.getMessage());
+            status = 1;
+        }
+        driver.report();
+        System.exit(status);
+    }
+
+    void checkInBurst() throws Exception {
+        JsonNode children = objectMapper.readTree(get("/api/children/active", "children.active"));
+        List<Long> childIds = new ArrayList<>();
+        children.forEach(child -> childIds.add(child.get("id").asLong()));
+        System.out.printf("Ochtendpiek: %d kinderen inchecken%n", childIds.size());
+
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        AtomicInteger done = new AtomicInteger();
+        Phase phase = new Phase("ochtendpiek");
+        run(childIds, childId -> {
+            send("POST", "/api/attendances", "attendance.check-in",
+                    "{\"checkInTime\":\"" + now + "\",\"child\":{\"id\":" + childId + "}}");
+            // Ongeveer elke tiende actie ververst een tablet het aanwezigheidsoverzicht
+            if (done.incrementAndGet() % 10 == 0) {
+                get("/api/attendances/present", "attendance.present");
+            }
+        });
+        phase.end(childIds.size());
+
+        // De bulk endpoint accepteert maximaal 1000 regels per verzoek
+        for (int from = 0; from < childIds.size(); from += 1000) {
+            List<Long> chunk = childIds.subList(from, Math.min(childIds.size(), from + 1000));
+            send("POST", "/api/attendances/bulk", "attendance.bulk-check-out", bulkCheckOut(chunk));
+        }
+    }
+
+    void monthEnd(YearMonth month) throws Exception {
+        System.out.printf("Maandafsluiting: facturatierun voor %s%n", month);
+        send("POST", "/api/billing/runs?period=" + month, "billing.run", "");
+
+        JsonNode invoices = objectMapper.readTree(get("/api/invoices", "invoices.list"));
+        List<Long> invoiceIds = new ArrayList<>();
+        String invoiceDate = month.atDay(1).toString();
+        invoices.forEach(invoice -> {
+            if (invoiceDate.equals(invoice.get("invoiceDate").asText())) {
+                invoiceIds.add(invoice.get("id").asLong());
+            }
+        });
+        System.out.printf("Maandafsluiting: %d facturen downloaden%n", invoiceIds.size());
+
+        Phase phase = new Phase("facturen downloaden");
+        run(invoiceIds, id -> get("/api/invoice-pdf/" + id, "invoice.pdf"));
+        phase.end(invoiceIds.size());
+    }
+
+    void exports(YearMonth month) throws Exception {
+        String range = "from=" + month.atDay(1) + "&to=" + month.atEndOfMonth();
+        System.out.printf("Exports: aanwezigheden en facturen van %s%n", month);
+        for (String export : List.of("attendances", "invoices")) {
+            for (String format : List.of("csv", "ndjson")) {
+                HttpResponse<String> response = exchange("GET", "/api/export/" + export + "?format=" + format
+                        + "&" + range, "export." + export + "." + format, null);
+                if (response.statusCode() >= 400 || response.body().isBlank()) {
+                    throw new IllegalStateException("Export " + export + " (" + format + ") mislukt: HTTP "
+                            + response.statusCode() + " " + response.body());
+                }
+            }
+        }
+    }
+
+    private String bulkCheckOut(List<Long> childIds) {
+        StringBuilder body = new StringBuilder("[");
+        for (Long childId : childIds) {
+            body.append(body.length() > 1 ? "," : "")
+                    .append("{\"childId\":").append(childId).append(",\"action\":\"CHECK_OUT\"}");
+        }
+        return body.append("]").toString();
+    }
+
+    private String get(String path, String name) throws Exception {
+        return send("GET", path, name, null);
+    }
+
+    private String send(String method, String path, String name, String json) throws Exception {
+        return exchange(method, path, name, json).body();
+    }
+
+    private HttpResponse<String> exchange(String method, String path, String name, String json) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofMinutes(5));
+        if (json != null) {
+            request.header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofString(json));
+        } else {
+            request.method(method, HttpRequest.BodyPublishers.noBody());
+        }
+        long start = System.nanoTime();
+        HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        stats(name).record(System.nanoTime() - start, response.statusCode() < 400);
+        return response;
+    }
+
+    private <T> void run(List<T> items, Task<T> task) throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Future<?>> futures = new ArrayList<>(items.size());
+            for (T item : items) {
+                futures.add(clients.submit(() -> {
+                    task.run(item);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            clients.shutdown();
+        }
+    }
+
+    private synchronized Stats stats(String name) {
+        return stats.computeIfAbsent(name, key -> new Stats());
+    }
+
+    void report() {
+        System.out.printf("%n%-28s %8s %7s %10s %10s %10s %10s%n",
+                "request", "aantal", "fouten", "p50 ms", "p99 ms", "max ms", "req/s");
+        stats.forEach((name, s) -> s.print(name));
+    }
+
+    @FunctionalInterface
+    private interface Task<T> {
+        void run(T item) throws Exception;
+    }
+
+    private static final class Phase {
+
+        private final String name;
+        private final long start = System.nanoTime();
+
+        Phase(String name) {
+            this.name = name;
+        }
+
+        void end(int operations) {
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("  %s: %d acties in %.1f s (%.0f/s)%n", name, operations, seconds, operations / seconds);
+        }
+    }
+
+    private static final class Stats {
+
+        private long[] latencies = new long[1024];
+        private int count;
+        private int errors;
+        private long first = Long.MAX_VALUE;
+        private long last;
+
+        synchronized void record(long nanos, boolean ok) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            errors += ok ? 0 : 1;
+            long now = System.nanoTime();
+            first = Math.min(first, now - nanos);
+            last = Math.max(last, now);
+        }
+
+        synchronized void print(String name) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            double seconds = Math.max(1e-9, (last - first) / 1e9);
+            System.out.printf("%-28s %8d %7d %10.1f %10.1f %10.1f %10.0f%n", name, count, errors,
+                    percentile(sorted, 50), percentile(sorted, 99), sorted[count - 1] / 1e6, count / seconds);
+        }
+
+        private static double percentile(long[] sorted, int percentile) {
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package nl.sennaoudshoorn.qiddo_register.repository;
+
+import nl.sennaoudshoorn.qiddo_register.model.Attendance;
+import nl.sennaoudshoorn.qiddo_register.model.Child;
+import nl.sennaoudshoorn.qiddo_register.model.Invoice;
+import nl.sennaoudshoorn.qiddo_register.model.Parent;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Controleert dat de lijst-queries een vast aantal SQL statements kosten, ongeacht het
+ * aantal rijen: de ouders en kinderen worden meegeladen in plaats van per rij opgehaald.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class ListQueryCountTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ChildRepository childRepository;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        LocalDateTime day = LocalDateTime.of(2023, 9, 1, 8, 0);
+        for (int p = 0; p < 4; p++) {
+            Parent parent = entityManager.persist(new Parent("Ouder " + p, LocalDate.of(1980, 1, 1), "Onbekend"));
+            entityManager.persist(new Invoice(680.0, false, LocalDate.of(2023, 9, 1), parent));
+            for (int c = 0; c < 2; c++) {
+                Child child = entityManager.persist(new Child("Kind " + p + "." + c, LocalDate.of(2019, 1, 1), "Onbekend", parent));
+                for (int d = 0; d < 3; d++) {
+                    entityManager.persist(new Attendance(day.plusDays(d), day.plusDays(d).plusHours(9), child));
+                }
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findAllChildren_ShouldLoadParentsInSameQuery() {
+        List<Child> children = childRepository.findAll();
+        children.forEach(child -> child.getParent().getNaam());
+
+        assertEquals(8, children.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findAllAttendances_ShouldLoadChildAndParentInSameQuery() {
+        List<Attendance> attendances = attendanceRepository.findAll();
+        attendances.forEach(attendance -> attendance.getChild().getParent().getNaam());
+
+        assertEquals(24, attendances.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void attendancePage_ShouldLoadChildAndParentInSameQuery() {
+        List<Attendance> page = attendanceRepository.findPageBefore(LocalDateTime.of(2023, 1, 1, 0, 0),
+                LocalDateTime.of(2024, 1, 1, 0, 0), Long.MIN_VALUE, Limit.of(10));
+        page.forEach(attendance -> attendance.getChild().getParent().getNaam());
+
+        assertEquals(10, page.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    /**
+     * Test dat een pagina zonder ondergrens ook aanwezigheden van voor 1970 bevat.
+     */
+    @Test
+    void attendancePage_WithoutFrom_ShouldReachOldestRows() {
+        Child child = childRepository.findAll().get(0);
+        Attendance old = entityManager.persistFlushFind(
+                new Attendance(LocalDateTime.of(1965, 3, 1, 8, 0), LocalDateTime.of(1965, 3, 1, 17, 0), child));
+
+        List<Attendance> page = attendanceRepository.findPageBefore(null, LocalDateTime.of(2023, 9, 1, 0, 0),
+                Long.MIN_VALUE, Limit.of(10));
+
+        assertEquals(List.of(old.getId()), page.stream().map(Attendance::getId).toList());
+    }
+
+    @Test
+    void findAllInvoices_ShouldLoadParentsInSameQuery() {
+        List<Invoice> invoices = invoiceRepository.findAll();
+        invoices.forEach(invoice -> invoice.getParent().getNaam());
+
+        assertEquals(4, invoices.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,141 @@
+package nl.sennaoudshoorn.qiddo_register.service;
+
+import nl.sennaoudshoorn.qiddo_register.dto.BulkAttendanceItem;
+import nl.sennaoudshoorn.qiddo_register.dto.BulkAttendanceResult;
+import nl.sennaoudshoorn.qiddo_register.model.Attendance;
+import nl.sennaoudshoorn.qiddo_register.model.Child;
+import nl.sennaoudshoorn.qiddo_register.model.Parent;
+import nl.sennaoudshoorn.qiddo_register.repository.AttendanceDayRepository;
+import nl.sennaoudshoorn.qiddo_register.repository.AttendanceRepository;
+import nl.sennaoudshoorn.qiddo_register.repository.ChildRepository;
+import nl.sennaoudshoorn.qiddo_register.repository.ParentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static nl.sennaoudshoorn.qiddo_register.dto.BulkAttendanceItem.Action.CHECK_IN;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AttendanceConcurrencyTest {
+
+    @Autowired
+    private AttendanceService attendanceService;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private AttendanceDayRepository attendanceDayRepository;
+
+    @Autowired
+    private ChildRepository childRepository;
+
+    @Autowired
+    private ParentRepository parentRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    private Child emma;
+
+    @BeforeEach
+    void setUp() {
+        Parent jan = parentRepository.save(new Parent("Jan de Vries", LocalDate.of(1980, 5, 15), "Man"));
+        emma = childRepository.save(new Child("Emma de Vries", LocalDate.of(2018, 2, 14), "Meisje", jan));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        attendanceRepository.deleteAll();
+        attendanceDayRepository.deleteAll();
+        childRepository.deleteAll();
+        parentRepository.deleteAll();
+    }
+
+    /**
+     * Test dat gelijktijdige bulkverzoeken die hetzelfde kind inchecken samen precies één
+     * open aanwezigheid opleveren; de andere verzoeken krijgen de regel afgewezen.
+     */
+    @Test
+    void recordBulk_ConcurrentCheckIns_ShouldOpenOneAttendance() throws Exception {
+        int requests = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<BulkAttendanceResult>>> futures = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return attendanceService.recordBulk(List.of(new BulkAttendanceItem(emma.getId(), CHECK_IN, null)));
+            }));
+        }
+        start.countDown();
+
+        int accepted = 0;
+        for (Future<List<BulkAttendanceResult>> future : futures) {
+            if (future.get(10, TimeUnit.SECONDS).get(0).status() == BulkAttendanceResult.Status.OK) {
+                accepted++;
+            }
+        }
+        assertEquals(1, accepted);
+        assertEquals(1, openAttendances());
+    }
+
+    /**
+     * Test dat een losse check-in wacht op een bulkverzoek dat hetzelfde kind nog in een
+     * open transactie heeft, en daarna met 409 wordt geweigerd.
+     */
+    @Test
+    void createAttendance_WhileBulkHoldsChild_ShouldWaitAndConflict() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> bulk = executor.submit(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            attendanceService.recordBulk(List.of(new BulkAttendanceItem(emma.getId(), CHECK_IN, null)));
+            locked.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertTrue(locked.await(10, TimeUnit.SECONDS));
+
+        Future<Attendance> single = executor.submit(() ->
+                attendanceService.createAttendance(new Attendance(LocalDateTime.now(), null, emma)));
+        // Zolang het bulkverzoek niet gecommit is, blijft de losse check-in op de lock staan
+        assertThrows(TimeoutException.class, () -> single.get(500, TimeUnit.MILLISECONDS));
+
+        release.countDown();
+        bulk.get(10, TimeUnit.SECONDS);
+        ExecutionException e = assertThrows(ExecutionException.class, () -> single.get(10, TimeUnit.SECONDS));
+        ResponseStatusException conflict = assertInstanceOf(ResponseStatusException.class, e.getCause());
+        assertEquals(HttpStatus.CONFLICT, conflict.getStatusCode());
+        assertEquals(1, openAttendances());
+    }
+
+    private long openAttendances() {
+        return attendanceRepository.findByChildIdInAndCheckOutTimeIsNull(List.of(emma.getId())).size();
+    }
+}
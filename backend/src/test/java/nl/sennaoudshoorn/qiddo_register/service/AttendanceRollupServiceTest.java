@@ -0,0 +1,156 @@
+package nl.sennaoudshoorn.qiddo_register.service;
+
+import nl.sennaoudshoorn.qiddo_register.dto.BulkAttendanceItem;
+import nl.sennaoudshoorn.qiddo_register.dto.HoursReportLine;
+import nl.sennaoudshoorn.qiddo_register.model.Attendance;
+import nl.sennaoudshoorn.qiddo_register.model.AttendanceDay;
+import nl.sennaoudshoorn.qiddo_register.model.Child;
+import nl.sennaoudshoorn.qiddo_register.model.Parent;
+import nl.sennaoudshoorn.qiddo_register.repository.AttendanceDayRepository;
+import nl.sennaoudshoorn.qiddo_register.repository.AttendanceRepository;
+import nl.sennaoudshoorn.qiddo_register.repository.ChildRepository;
+import nl.sennaoudshoorn.qiddo_register.repository.ParentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class AttendanceRollupServiceTest {
+
+    private static final YearMonth SEPTEMBER = YearMonth.of(2023, 9);
+
+    @Autowired
+    private AttendanceRollupService rollupService;
+
+    @Autowired
+    private AttendanceService attendanceService;
+
+    @Autowired
+    private AttendanceDayRepository attendanceDayRepository;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private ChildRepository childRepository;
+
+    @Autowired
+    private ParentRepository parentRepository;
+
+    private Parent jan;
+    private Child emma;
+    private Child lucas;
+
+    @BeforeEach
+    void setUp() {
+        jan = parentRepository.save(new Parent("Jan de Vries", LocalDate.of(1980, 5, 15), "Man"));
+        emma = childRepository.save(new Child("Emma de Vries", LocalDate.of(2018, 2, 14), "Meisje", jan));
+        lucas = childRepository.save(new Child("Lucas de Vries", LocalDate.of(2019, 6, 25), "Jongen", jan));
+    }
+
+    @AfterEach
+    void tearDown() {
+        attendanceRepository.deleteAll();
+        attendanceDayRepository.deleteAll();
+        childRepository.deleteAll();
+        parentRepository.deleteAll();
+    }
+
+    /**
+     * Test dat de rollup pas bij de check-out minuten krijgt en een bewerking of
+     * verwijdering precies het verschil verwerkt.
+     */
+    @Test
+    void checkOutEditAndDelete_ShouldUpdateRollupIncrementally() {
+        Attendance attendance = attendanceService.createAttendance(
+                new Attendance(LocalDateTime.of(2023, 9, 1, 8, 0), null, emma));
+        assertEquals(0, attendanceDayRepository.count());
+
+        attendanceService.recordBulk(List.of(new BulkAttendanceItem(emma.getId(),
+                BulkAttendanceItem.Action.CHECK_OUT, LocalDateTime.of(2023, 9, 1, 17, 0))));
+        assertEquals(List.of(line("2023-09-01", 540)), rollupService.dailyHoursForChild(emma.getId(), SEPTEMBER));
+
+        attendanceService.updateAttendance(attendance.getId(), new Attendance(
+                LocalDateTime.of(2023, 9, 1, 8, 0), LocalDateTime.of(2023, 9, 1, 12, 30), emma));
+        assertEquals(List.of(line("2023-09-01", 270)), rollupService.dailyHoursForChild(emma.getId(), SEPTEMBER));
+
+        attendanceService.deleteAttendance(attendance.getId());
+        assertEquals(0, attendanceDayRepository.count());
+    }
+
+    /**
+     * Test dat een aanwezigheid over middernacht over beide dagen wordt verdeeld en dat
+     * de maandtotalen per kind en per ouder uit de rollup komen.
+     */
+    @Test
+    void reports_ShouldSplitOvernightStaysAndSumPerMonth() {
+        attendanceService.createAttendance(new Attendance(
+                LocalDateTime.of(2023, 9, 29, 20, 0), LocalDateTime.of(2023, 9, 30, 2, 0), emma));
+        attendanceService.createAttendance(new Attendance(
+                LocalDateTime.of(2023, 9, 30, 22, 0), LocalDateTime.of(2023, 10, 1, 1, 0), emma));
+        attendanceService.createAttendance(new Attendance(
+                LocalDateTime.of(2023, 9, 4, 8, 0), LocalDateTime.of(2023, 9, 4, 18, 0), lucas));
+
+        assertEquals(List.of(line("2023-09-29", 240), line("2023-09-30", 120 + 120)),
+                rollupService.dailyHoursForChild(emma.getId(), SEPTEMBER));
+
+        List<HoursReportLine> months = rollupService.hoursForChild(emma.getId(), SEPTEMBER, SEPTEMBER.plusMonths(1));
+        assertEquals(2, months.size());
+        assertEquals(480, months.get(0).minutes());
+        assertEquals(60, months.get(1).minutes());
+
+        List<HoursReportLine> totals = rollupService.invoiceTotals(SEPTEMBER);
+        assertEquals(1, totals.size());
+        assertEquals(jan.getId(), totals.get(0).parentId());
+        assertEquals(480 + 600, totals.get(0).minutes());
+        assertEquals(new BigDecimal("153.00"), totals.get(0).amount()); // 18 uur x 8,50
+    }
+
+    /**
+     * Test dat het opnieuw opbouwen dezelfde rollup oplevert als het incrementele bijwerken,
+     * ook voor aanwezigheden die buiten de services om zijn opgeslagen.
+     */
+    @Test
+    void rebuild_ShouldMatchIncrementalRollup() {
+        attendanceService.createAttendance(new Attendance(
+                LocalDateTime.of(2023, 9, 1, 8, 0), LocalDateTime.of(2023, 9, 1, 17, 15), emma));
+        attendanceService.createAttendance(new Attendance(
+                LocalDateTime.of(2023, 9, 1, 23, 0), LocalDateTime.of(2023, 9, 2, 6, 0), lucas));
+        attendanceService.createAttendance(new Attendance(LocalDateTime.of(2023, 9, 5, 8, 0), null, lucas));
+        List<String> incremental = rollup();
+
+        attendanceRepository.save(new Attendance(
+                LocalDateTime.of(2023, 9, 6, 8, 0), LocalDateTime.of(2023, 9, 6, 9, 0), emma));
+        assertEquals(4, rollupService.rebuild());
+
+        List<String> rebuilt = rollup();
+        assertEquals(incremental.size() + 1, rebuilt.size());
+        assertTrue(rebuilt.containsAll(incremental));
+    }
+
+    private HoursReportLine line(String day, long minutes) {
+        return new HoursReportLine(emma.getId(), null, day, minutes,
+                BigDecimal.valueOf(minutes).divide(BigDecimal.valueOf(60), 2, RoundingMode.HALF_UP), null);
+    }
+
+    private List<String> rollup() {
+        return attendanceDayRepository.findAll().stream()
+                .sorted(Comparator.comparing(AttendanceDay::getChildId).thenComparing(AttendanceDay::getDate))
+                .map(day -> day.getChildId() + "/" + day.getDate() + "/" + day.getMinutes())
+                .toList();
+    }
+}
@@ -0,0 +1,113 @@
+package nl.sennaoudshoorn.qiddo_register.service;
+
+import nl.sennaoudshoorn.qiddo_register.dto.BulkAttendanceItem;
+import nl.sennaoudshoorn.qiddo_register.dto.BulkAttendanceResult;
+import nl.sennaoudshoorn.qiddo_register.event.AttendanceChangedEvent;
+import nl.sennaoudshoorn.qiddo_register.model.Attendance;
+import nl.sennaoudshoorn.qiddo_register.model.Child;
+import nl.sennaoudshoorn.qiddo_register.repository.AttendanceRepository;
+import nl.sennaoudshoorn.qiddo_register.repository.ChildRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static nl.sennaoudshoorn.qiddo_register.dto.BulkAttendanceItem.Action.CHECK_IN;
+import static nl.sennaoudshoorn.qiddo_register.dto.BulkAttendanceItem.Action.CHECK_OUT;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AttendanceServiceTest {
+
+    @Mock
+    private AttendanceRepository attendanceRepository;
+
+    @Mock
+    private ChildRepository childRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private AttendanceService attendanceService;
+
+    private Child emma;
+    private Child lucas;
+
+    @BeforeEach
+    void setUp() {
+        emma = new Child();
+        emma.setId(6L);
+        emma.setNaam("Emma de Vries");
+
+        lucas = new Child();
+        lucas.setId(7L);
+        lucas.setNaam("Lucas Jansen");
+    }
+
+    /**
+     * Test een ochtendspits: nieuwe check-ins, een dubbele check-in en een onbekend kind
+     * in één verzoek. Alleen de geldige regels worden opgeslagen.
+     */
+    @Test
+    void recordBulk_MixedItems_ShouldReportPerItem() {
+        // Arrange
+        LocalDateTime morning = LocalDateTime.of(2024, 9, 2, 7, 45);
+        when(childRepository.findAllByIdForUpdate(anyCollection())).thenReturn(List.of(emma, lucas));
+        when(attendanceRepository.findByChildIdInAndCheckOutTimeIsNull(anyCollection())).thenReturn(List.of());
+
+        // Act
+        List<BulkAttendanceResult> results = attendanceService.recordBulk(List.of(
+                new BulkAttendanceItem(6L, CHECK_IN, morning),
+                new BulkAttendanceItem(7L, CHECK_IN, morning),
+                new BulkAttendanceItem(6L, CHECK_IN, morning.plusMinutes(5)),
+                new BulkAttendanceItem(99L, CHECK_IN, morning)));
+
+        // Assert
+        assertEquals(4, results.size());
+        assertEquals(BulkAttendanceResult.Status.OK, results.get(0).status());
+        assertEquals(BulkAttendanceResult.Status.OK, results.get(1).status());
+        assertEquals(BulkAttendanceResult.Status.REJECTED, results.get(2).status());
+        assertEquals(BulkAttendanceResult.Status.REJECTED, results.get(3).status());
+        verify(attendanceRepository).saveAll(argThat(list -> ((List<?>) list).size() == 2));
+        verify(attendanceRepository).flush();
+        verify(eventPublisher, times(2)).publishEvent(any(AttendanceChangedEvent.class));
+    }
+
+    /**
+     * Test dat een check-out de open aanwezigheid sluit en een check-out zonder
+     * open aanwezigheid wordt afgewezen.
+     */
+    @Test
+    void recordBulk_CheckOut_ShouldCloseOpenAttendance() {
+        // Arrange
+        Attendance open = new Attendance(LocalDateTime.of(2024, 9, 2, 8, 0), null, emma);
+        open.setId(10L);
+        when(childRepository.findAllByIdForUpdate(anyCollection())).thenReturn(List.of(emma, lucas));
+        when(attendanceRepository.findByChildIdInAndCheckOutTimeIsNull(anyCollection())).thenReturn(List.of(open));
+
+        // Act
+        LocalDateTime afternoon = LocalDateTime.of(2024, 9, 2, 17, 0);
+        List<BulkAttendanceResult> results = attendanceService.recordBulk(List.of(
+                new BulkAttendanceItem(6L, CHECK_OUT, afternoon),
+                new BulkAttendanceItem(7L, CHECK_OUT, afternoon)));
+
+        // Assert
+        assertEquals(BulkAttendanceResult.Status.OK, results.get(0).status());
+        assertEquals(10L, results.get(0).attendanceId());
+        assertEquals(afternoon, open.getCheckOutTime());
+        assertEquals(BulkAttendanceResult.Status.REJECTED, results.get(1).status());
+        verify(attendanceRepository).saveAll(anyList());
+        verify(eventPublisher).publishEvent(argThat((AttendanceChangedEvent event) -> event.isCheckOut()));
+    }
+}
@@ -0,0 +1,127 @@
+package nl.sennaoudshoorn.qiddo_register.service;
+
+import nl.sennaoudshoorn.qiddo_register.dto.BillingRunResult;
+import nl.sennaoudshoorn.qiddo_register.model.Attendance;
+import nl.sennaoudshoorn.qiddo_register.model.Child;
+import nl.sennaoudshoorn.qiddo_register.model.Invoice;
+import nl.sennaoudshoorn.qiddo_register.model.Parent;
+import nl.sennaoudshoorn.qiddo_register.repository.AttendanceRepository;
+import nl.sennaoudshoorn.qiddo_register.repository.BillingPeriodStateRepository;
+import nl.sennaoudshoorn.qiddo_register.repository.ChildRepository;
+import nl.sennaoudshoorn.qiddo_register.repository.InvoiceRepository;
+import nl.sennaoudshoorn.qiddo_register.repository.ParentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BillingServiceTest {
+
+    private static final YearMonth SEPTEMBER = YearMonth.of(2023, 9);
+
+    @Autowired
+    private BillingService billingService;
+
+    @Autowired
+    private ParentRepository parentRepository;
+
+    @Autowired
+    private ChildRepository childRepository;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private BillingPeriodStateRepository stateRepository;
+
+    @Autowired
+    private ParentBalanceService balanceService;
+
+    private Child emma;
+    private Child lucas;
+
+    @BeforeEach
+    void setUp() {
+        Parent jan = parentRepository.save(new Parent("Jan de Vries", LocalDate.of(1980, 5, 15), "Man"));
+        Parent lisa = parentRepository.save(new Parent("Lisa Jansen", LocalDate.of(1982, 8, 22), "Vrouw"));
+        emma = childRepository.save(new Child("Emma de Vries", LocalDate.of(2018, 2, 14), "Meisje", jan));
+        lucas = childRepository.save(new Child("Lucas Jansen", LocalDate.of(2019, 6, 25), "Jongen", lisa));
+
+        attendanceRepository.saveAll(List.of(
+                attendance(emma, "2023-09-01T08:00", "2023-09-01T17:00"),
+                attendance(emma, "2023-09-04T08:00", "2023-09-04T12:30"),
+                attendance(lucas, "2023-09-01T08:30", "2023-09-01T17:30"),
+                // Valt buiten de periode
+                attendance(lucas, "2023-10-02T08:30", "2023-10-02T17:30")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        stateRepository.deleteAll();
+        invoiceRepository.deleteAll();
+        attendanceRepository.deleteAll();
+        childRepository.deleteAll();
+        parentRepository.deleteAll();
+    }
+
+    /**
+     * Test dat een run per ouder één factuur maakt op basis van de aanwezige uren.
+     */
+    @Test
+    void runPeriod_ShouldInvoiceAttendedHoursPerParent() {
+        BillingRunResult result = billingService.runPeriod(SEPTEMBER);
+
+        assertEquals(2, result.parents());
+        assertEquals(2, result.invoicesCreated());
+        // Emma: 9 + 4,5 uur, Lucas: 9 uur, a 8,50
+        assertEquals(114.75, amountFor(emma.getParent()));
+        assertEquals(76.50, amountFor(lucas.getParent()));
+    }
+
+    /**
+     * Test dat een tweede run alleen ouders met gewijzigde aanwezigheid opnieuw doorrekent,
+     * en dat het saldogrootboek elke run volgt.
+     */
+    @Test
+    void runPeriod_Rerun_ShouldOnlyRecomputeChangedParents() {
+        // Andere tests verwijderen facturen buiten het grootboek om
+        balanceService.rebuild();
+        billingService.runPeriod(SEPTEMBER);
+
+        BillingRunResult unchanged = billingService.runPeriod(SEPTEMBER);
+        assertEquals(0, unchanged.recomputed());
+        assertEquals(2, unchanged.unchanged());
+
+        attendanceRepository.save(attendance(lucas, "2023-09-05T08:00", "2023-09-05T10:00"));
+        BillingRunResult rerun = billingService.runPeriod(SEPTEMBER);
+        assertEquals(1, rerun.recomputed());
+        assertEquals(1, rerun.invoicesUpdated());
+        assertEquals(93.50, amountFor(lucas.getParent()));
+        assertEquals(2, invoiceRepository.count());
+        assertEquals(List.of(), balanceService.reconcile().mismatchedParentIds());
+    }
+
+    private Double amountFor(Parent parent) {
+        List<Invoice> invoices = invoiceRepository.findByParentId(parent.getId());
+        assertEquals(1, invoices.size());
+        return invoices.get(0).getAmount();
+    }
+
+    private static Attendance attendance(Child child, String checkIn, String checkOut) {
+        return new Attendance(LocalDateTime.parse(checkIn), LocalDateTime.parse(checkOut), child);
+    }
+}
@@ -0,0 +1,194 @@
+package nl.sennaoudshoorn.qiddo_register.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeFeedServiceTest {
+
+    private static final Duration TIMEOUT = Duration.ofMinutes(30);
+
+    /**
+     * Test dat berichten in volgorde van publiceren bij de client aankomen, na het
+     * eerste "connected" bericht.
+     */
+    @Test
+    void publish_ShouldDeliverInOrder() {
+        ChangeFeedService feed = new ChangeFeedService(Runnable::run, 8, TIMEOUT, Duration.ofSeconds(10));
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.subscribe(emitter);
+
+        feed.publish("child.created", "a");
+        feed.publish("child.updated", "b");
+        feed.publish("heartbeat", null);
+
+        assertEquals(List.of("connected", "child.created", "child.updated", "heartbeat"), emitter.names);
+        assertFalse(emitter.completed);
+    }
+
+    /**
+     * Test dat een client waarvan de buffer vol loopt wordt afgemeld en dat de verbinding
+     * pas op de feedExecutor wordt gesloten, niet op de publicerende thread.
+     */
+    @Test
+    void publish_WhenBufferIsFull_ShouldCloseClient() {
+        ManualExecutor executor = new ManualExecutor();
+        ChangeFeedService feed = new ChangeFeedService(executor, 2, TIMEOUT, Duration.ofSeconds(10));
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.subscribe(emitter);
+
+        feed.publish("child.created", "a");
+        feed.publish("child.updated", "b");
+
+        assertEquals(0, feed.getClientCount());
+        assertFalse(emitter.completed);
+        executor.runAll();
+        assertTrue(emitter.completed);
+        // De buffer is weggegooid: er gaat niets meer naar de afgesloten client
+        assertEquals(List.of(), emitter.names);
+    }
+
+    /**
+     * Test dat een drain na een batch stopt en zichzelf opnieuw inplant voor de rest van
+     * de buffer, zodat andere clients ertussendoor kunnen.
+     */
+    @Test
+    void drain_ShouldRescheduleAfterBatch() {
+        ManualExecutor executor = new ManualExecutor();
+        ChangeFeedService feed = new ChangeFeedService(executor, 64, TIMEOUT, Duration.ofSeconds(10));
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.subscribe(emitter);
+        IntStream.range(0, ChangeFeedService.DRAIN_BATCH + 4).forEach(i -> feed.publish("event-" + i, i));
+        assertEquals(1, executor.tasks.size());
+
+        executor.runNext();
+
+        assertEquals(ChangeFeedService.DRAIN_BATCH, emitter.names.size());
+        assertEquals(1, executor.tasks.size());
+        executor.runAll();
+        assertEquals(ChangeFeedService.DRAIN_BATCH + 5, emitter.names.size());
+        assertEquals("event-" + (ChangeFeedService.DRAIN_BATCH + 3), emitter.names.get(emitter.names.size() - 1));
+        assertTrue(executor.tasks.isEmpty());
+    }
+
+    /**
+     * Test dat een client die in een send blijft hangen de feed thread na de send timeout
+     * vrijgeeft: de client wordt afgemeld en met een fout afgesloten, en dezelfde thread
+     * bedient daarna gewoon de andere clients.
+     */
+    @Test
+    void drain_WhenSendBlocks_ShouldTimeOutAndFreeFeedThread() throws Exception {
+        ManualExecutor executor = new ManualExecutor();
+        ChangeFeedService feed = new ChangeFeedService(executor, 8, TIMEOUT, Duration.ofMillis(50));
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter stuck = new RecordingEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.send(builder);
+            }
+        };
+        RecordingEmitter other = new RecordingEmitter();
+        try {
+            feed.subscribe(stuck);
+            feed.subscribe(other);
+
+            // Draait op de testthread: zou zonder timeout blijven hangen tot release
+            executor.runAll();
+
+            assertEquals(1, feed.getClientCount());
+            assertInstanceOf(TimeoutException.class, stuck.error);
+            assertEquals(List.of("connected"), other.names);
+
+            feed.publish("child.created", "a");
+            executor.runAll();
+            assertEquals(List.of("connected", "child.created"), other.names);
+            assertTrue(stuck.names.isEmpty());
+        } finally {
+            release.countDown();
+            feed.shutdown();
+        }
+    }
+
+    /** Houdt de namen van de verstuurde berichten bij in plaats van ze te schrijven. */
+    private static class RecordingEmitter extends SseEmitter {
+
+        private static final Pattern NAME = Pattern.compile("^event:(.*)$", Pattern.MULTILINE);
+
+        final List<String> names = Collections.synchronizedList(new ArrayList<>());
+        volatile boolean completed;
+        volatile Throwable error;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            StringBuilder text = new StringBuilder();
+            builder.build().forEach(part -> text.append(part.getData()));
+            Matcher matcher = NAME.matcher(text);
+            if (matcher.find()) {
+                names.add(matcher.group(1));
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+
+        @Override
+        public void completeWithError(Throwable ex) {
+            error = ex;
+            completed = true;
+        }
+    }
+
+    /** Executor die taken pas uitvoert als de test dat vraagt. */
+    private static class ManualExecutor implements TaskExecutor {
+
+        final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public synchronized void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void runNext() {
+            Runnable task;
+            synchronized (this) {
+                task = tasks.poll();
+            }
+            task.run();
+        }
+
+        void runAll() {
+            while (true) {
+                Runnable task;
+                synchronized (this) {
+                    task = tasks.poll();
+                }
+                if (task == null) {
+                    return;
+                }
+                task.run();
+            }
+        }
+    }
+}
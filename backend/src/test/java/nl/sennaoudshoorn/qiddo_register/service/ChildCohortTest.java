@@ -0,0 +1,101 @@
+package nl.sennaoudshoorn.qiddo_register.service;
+
+import nl.sennaoudshoorn.qiddo_register.dto.CohortCount;
+import nl.sennaoudshoorn.qiddo_register.model.AgeCohort;
+import nl.sennaoudshoorn.qiddo_register.model.Child;
+import nl.sennaoudshoorn.qiddo_register.model.Parent;
+import nl.sennaoudshoorn.qiddo_register.repository.ChildRepository;
+import nl.sennaoudshoorn.qiddo_register.repository.ParentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ChildCohortTest {
+
+    private static final LocalDate DATE = LocalDate.of(2024, 5, 15);
+
+    @Autowired
+    private ChildService childService;
+
+    @Autowired
+    private ChildRepository childRepository;
+
+    @Autowired
+    private ParentRepository parentRepository;
+
+    private Parent parent;
+
+    @BeforeEach
+    void setUp() {
+        childRepository.deleteAll();
+        parentRepository.deleteAll();
+        parent = parentRepository.save(new Parent("Jan de Vries", LocalDate.of(1980, 5, 15), "Man"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        childRepository.deleteAll();
+        parentRepository.deleteAll();
+    }
+
+    /**
+     * Test dat de grenzen van een leeftijdsgroep op de verjaardag liggen: op zijn eerste
+     * verjaardag is een kind een dreumes.
+     */
+    @Test
+    void getChildrenInCohort_ShouldSplitOnBirthdays() {
+        Child baby = child("Baby", LocalDate.of(2023, 5, 16));
+        Child dreumes = child("Dreumes", LocalDate.of(2023, 5, 15));
+        Child peuter = child("Peuter", LocalDate.of(2020, 5, 16));
+        Child bso = child("Bso", LocalDate.of(2020, 5, 15));
+        Child inactive = child("Gestopt", LocalDate.of(2023, 6, 1));
+        inactive.setActive(false);
+        childRepository.save(inactive);
+
+        assertEquals(List.of(baby.getId()), ids(childService.getChildrenInCohort(AgeCohort.BABY, DATE)));
+        assertEquals(List.of(dreumes.getId()), ids(childService.getChildrenInCohort(AgeCohort.DREUMES, DATE)));
+        assertEquals(List.of(peuter.getId()), ids(childService.getChildrenInCohort(AgeCohort.PEUTER, DATE)));
+        assertEquals(List.of(bso.getId()), ids(childService.getChildrenInCohort(AgeCohort.BSO, DATE)));
+
+        List<CohortCount> counts = childService.getCohortCounts(DATE);
+        assertEquals(new CohortCount(AgeCohort.PEUTER, LocalDate.of(2020, 5, 16), LocalDate.of(2022, 5, 15), 1),
+                counts.get(2));
+        assertEquals(List.of(1L, 1L, 1L, 1L), counts.stream().map(CohortCount::children).toList());
+    }
+
+    /**
+     * Test dat "wordt deze maand 4" de hele maand dekt, inclusief 29 februari.
+     */
+    @Test
+    void getChildrenTurning_ShouldCoverWholeMonth() {
+        Child first = child("Eerste", LocalDate.of(2020, 2, 1));
+        Child leap = child("Schrikkel", LocalDate.of(2020, 2, 29));
+        child("Maart", LocalDate.of(2020, 3, 1));
+        child("Januari", LocalDate.of(2020, 1, 31));
+        child("Jonger", LocalDate.of(2021, 2, 10));
+
+        assertEquals(List.of(leap.getId(), first.getId()),
+                ids(childService.getChildrenTurning(4, YearMonth.of(2024, 2))));
+        assertEquals(List.of(leap.getId(), first.getId()),
+                ids(childService.getChildrenTurning(5, YearMonth.of(2025, 2))));
+    }
+
+    private Child child(String naam, LocalDate birthDate) {
+        return childRepository.save(new Child(naam, birthDate, "Onbekend", parent));
+    }
+
+    private static List<Long> ids(List<Child> children) {
+        return children.stream().map(Child::getId).toList();
+    }
+}
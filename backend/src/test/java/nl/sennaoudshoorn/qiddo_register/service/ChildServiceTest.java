@@ -9,8 +9,12 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
 
+import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -28,6 +32,12 @@ class ChildServiceTest {
     @Mock
     private ParentRepository parentRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private PersonCache personCache = new PersonCache(new NoOpCacheManager());
+
     @InjectMocks
     private ChildService childService;
 
@@ -39,7 +49,7 @@ class ChildServiceTest {
         testParent = new Parent();
         testParent.setId(1L);
         testParent.setNaam("Test Ouder");
-        testParent.setGeboortedatum("1980-01-01");
+        testParent.setGeboortedatum(LocalDate.of(1980, 1, 1));
         testParent.setGender("Man");
         testParent.setEmail("test@example.com");
         testParent.setPhone("0612345678");
@@ -48,7 +58,7 @@ class ChildServiceTest {
         testChild = new Child();
         testChild.setId(1L);
         testChild.setNaam("Test Kind");
-        testChild.setGeboortedatum("2018-01-01");
+        testChild.setGeboortedatum(LocalDate.of(2018, 1, 1));
         testChild.setGender("Onbekend");
         testChild.setParent(testParent);
         testChild.setAllergies("Geen");
@@ -64,7 +74,6 @@ class ChildServiceTest {
     @Test
     void createChild_WithExistingParent_ShouldSucceed() {
         // Arrange
-        when(parentRepository.findById(1L)).thenReturn(Optional.of(testParent));
         when(childRepository.save(any(Child.class))).thenReturn(testChild);
 
         // Act
@@ -0,0 +1,132 @@
+package nl.sennaoudshoorn.qiddo_register.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import nl.sennaoudshoorn.qiddo_register.model.Attendance;
+import nl.sennaoudshoorn.qiddo_register.model.Child;
+import nl.sennaoudshoorn.qiddo_register.model.Invoice;
+import nl.sennaoudshoorn.qiddo_register.model.Parent;
+import nl.sennaoudshoorn.qiddo_register.repository.AttendanceRepository;
+import nl.sennaoudshoorn.qiddo_register.repository.ChildRepository;
+import nl.sennaoudshoorn.qiddo_register.repository.InvoiceRepository;
+import nl.sennaoudshoorn.qiddo_register.repository.ParentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ExportServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2023, 9, 4);
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private ChildRepository childRepository;
+
+    @Autowired
+    private ParentRepository parentRepository;
+
+    private Parent jan;
+    private Child emma;
+
+    @BeforeEach
+    void setUp() {
+        jan = parentRepository.save(new Parent("Jan \"JJ\" de Vries", LocalDate.of(1980, 5, 15), "Man"));
+        emma = childRepository.save(new Child("Vries, Emma de", LocalDate.of(2018, 2, 14), "Meisje", jan));
+    }
+
+    @AfterEach
+    void tearDown() {
+        attendanceRepository.deleteAll();
+        invoiceRepository.deleteAll();
+        childRepository.deleteAll();
+        parentRepository.deleteAll();
+    }
+
+    /**
+     * Test dat de CSV-export alleen aanwezigheden in de periode bevat, op volgorde van id,
+     * met velden tussen aanhalingstekens waar nodig en een lege check-out voor een kind
+     * dat nog binnen is.
+     */
+    @Test
+    void writeAttendances_AsCsv_ShouldWriteRowsInRange() {
+        Attendance before = attendanceRepository.save(
+                new Attendance(DAY.minusDays(1).atTime(8, 0), DAY.minusDays(1).atTime(17, 0), emma));
+        Attendance closed = attendanceRepository.save(new Attendance(DAY.atTime(8, 0), DAY.atTime(12, 30), emma));
+        Attendance open = attendanceRepository.save(new Attendance(DAY.plusDays(1).atTime(23, 0), null, emma));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = exportService.writeAttendances(DAY, DAY.plusDays(1), ExportService.Format.CSV, out);
+
+        assertEquals(2, rows);
+        assertEquals(String.join("\r\n",
+                "id,child_id,child_naam,check_in_time,check_out_time",
+                closed.getId() + "," + emma.getId() + ",\"Vries, Emma de\",2023-09-04T08:00,2023-09-04T12:30",
+                open.getId() + "," + emma.getId() + ",\"Vries, Emma de\",2023-09-05T23:00,") + "\r\n",
+                out.toString(StandardCharsets.UTF_8));
+        assertNotNull(before.getId());
+    }
+
+    /**
+     * Test dat de NDJSON-export één JSON-object per regel schrijft, met het bedrag op
+     * centen en de datumgrenzen inclusief.
+     */
+    @Test
+    void writeInvoices_AsNdjson_ShouldWriteOneObjectPerLine() throws Exception {
+        Invoice september = invoiceRepository.save(new Invoice(120.5, false, DAY, jan));
+        Invoice october = invoiceRepository.save(new Invoice(80.0, true, DAY.plusMonths(1), jan));
+        invoiceRepository.save(new Invoice(10.0, false, DAY.plusMonths(2), jan));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = exportService.writeInvoices(null, DAY.plusMonths(1), ExportService.Format.NDJSON, out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(2, rows);
+        assertEquals(2, lines.size());
+        JsonNode first = objectMapper.readTree(lines.get(0));
+        assertEquals(september.getId(), first.get("id").asLong());
+        assertEquals(jan.getId(), first.get("parentId").asLong());
+        assertEquals("Jan \"JJ\" de Vries", first.get("parentNaam").asText());
+        assertEquals("2023-09-04", first.get("invoiceDate").asText());
+        assertTrue(lines.get(0).contains("\"amount\":120.50"), lines.get(0));
+        assertFalse(first.get("paid").asBoolean());
+        assertEquals(october.getId(), objectMapper.readTree(lines.get(1)).get("id").asLong());
+    }
+
+    @Test
+    void csvField_ShouldQuoteOnlyWhenNeeded() {
+        assertEquals("Emma", ExportService.csvField("Emma"));
+        assertEquals("\"Jan \"\"JJ\"\"\"", ExportService.csvField("Jan \"JJ\""));
+        assertEquals("\"regel\nregel\"", ExportService.csvField("regel\nregel"));
+    }
+
+    @Test
+    void format_ShouldAcceptAnyCaseAndRejectUnknown() {
+        assertEquals(ExportService.Format.CSV, ExportService.Format.of("csv"));
+        assertEquals(ExportService.Format.NDJSON, ExportService.Format.of("NDJSON"));
+        assertThrows(ResponseStatusException.class, () -> ExportService.Format.of("xlsx"));
+    }
+}
@@ -0,0 +1,106 @@
+package nl.sennaoudshoorn.qiddo_register.service;
+
+import nl.sennaoudshoorn.qiddo_register.dto.InvoiceVersion;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvoicePdfCacheTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Test dat een nieuwe versie van de factuur niet de oude PDF oplevert.
+     */
+    @Test
+    void get_WithNewVersion_ShouldMiss() {
+        InvoicePdfCache cache = new InvoicePdfCache(DataSize.ofKilobytes(64), DataSize.ofKilobytes(64), DataSize.ofMegabytes(1), dir);
+        cache.put(new InvoiceVersion(1L, 0, 0), pdf(1000));
+
+        assertNotNull(cache.get(new InvoiceVersion(1L, 0, 0)));
+        assertNull(cache.get(new InvoiceVersion(1L, 1, 0)));
+        assertNull(cache.get(new InvoiceVersion(1L, 0, 1)));
+        assertEquals(1.0 / 3, cache.hitRatio(), 0.001);
+    }
+
+    /**
+     * Test dat een PDF die uit het geheugen is verdrongen nog van schijf komt,
+     * en dat de schijf begrensd blijft.
+     */
+    @Test
+    void get_AfterMemoryEviction_ShouldComeFromDisk() {
+        InvoicePdfCache cache = new InvoicePdfCache(DataSize.ofBytes(0), DataSize.ofBytes(2500), DataSize.ofMegabytes(1), dir);
+        cache.put(new InvoiceVersion(1L, 0, 0), pdf(1000));
+        cache.put(new InvoiceVersion(2L, 0, 0), pdf(1000));
+        cache.put(new InvoiceVersion(3L, 0, 0), pdf(1000));
+
+        assertNull(cache.get(new InvoiceVersion(1L, 0, 0)));
+        assertArrayEquals(pdf(1000), cache.get(new InvoiceVersion(3L, 0, 0)));
+        assertEquals(2000, cache.diskBytes());
+    }
+
+    /**
+     * Test dat een PDF die alleen nog op schijf staat direct uit het bestand naar de
+     * response wordt gekopieerd, en dat een misser niets schrijft.
+     */
+    @Test
+    void copyTo_FromDisk_ShouldWriteCachedPdf() throws Exception {
+        InvoicePdfCache cache = new InvoicePdfCache(DataSize.ofBytes(0), DataSize.ofKilobytes(64), DataSize.ofMegabytes(1), dir);
+        cache.put(new InvoiceVersion(1L, 0, 0), pdf(1000));
+
+        ByteArrayOutputStream hit = new ByteArrayOutputStream();
+        assertTrue(cache.copyTo(new InvoiceVersion(1L, 0, 0), hit));
+        assertArrayEquals(pdf(1000), hit.toByteArray());
+
+        ByteArrayOutputStream miss = new ByteArrayOutputStream();
+        assertFalse(cache.copyTo(new InvoiceVersion(1L, 1, 0), miss));
+        assertEquals(0, miss.size());
+    }
+
+    /**
+     * Test dat een PDF boven de maximale grootte in geen van beide lagen terechtkomt.
+     */
+    @Test
+    void put_AboveMaxEntrySize_ShouldNotCache() {
+        InvoicePdfCache cache = new InvoicePdfCache(DataSize.ofKilobytes(64), DataSize.ofKilobytes(64), DataSize.ofBytes(1000), dir);
+        cache.put(new InvoiceVersion(1L, 0, 0), pdf(1000));
+        cache.put(new InvoiceVersion(2L, 0, 0), pdf(1001));
+
+        assertNotNull(cache.get(new InvoiceVersion(1L, 0, 0)));
+        assertNull(cache.get(new InvoiceVersion(2L, 0, 0)));
+        assertEquals(1000, cache.diskBytes());
+    }
+
+    /**
+     * Test dat invalidatie alle versies van de factuur uit beide lagen haalt.
+     */
+    @Test
+    void invalidate_ShouldRemoveAllVersionsFromBothTiers() throws Exception {
+        InvoicePdfCache cache = new InvoicePdfCache(DataSize.ofKilobytes(64), DataSize.ofKilobytes(64), DataSize.ofMegabytes(1), dir);
+        cache.put(new InvoiceVersion(1L, 0, 0), pdf(1000));
+        cache.put(new InvoiceVersion(1L, 1, 0), pdf(1000));
+        cache.put(new InvoiceVersion(2L, 0, 0), pdf(1000));
+
+        cache.invalidate(1L);
+
+        assertNull(cache.get(new InvoiceVersion(1L, 1, 0)));
+        assertNotNull(cache.get(new InvoiceVersion(2L, 0, 0)));
+        assertEquals(1000, cache.diskBytes());
+        try (var files = Files.list(dir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    private static byte[] pdf(int size) {
+        byte[] pdf = new byte[size];
+        pdf[0] = '%';
+        return pdf;
+    }
+}
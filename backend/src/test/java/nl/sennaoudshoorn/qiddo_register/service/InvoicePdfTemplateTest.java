@@ -0,0 +1,45 @@
+package nl.sennaoudshoorn.qiddo_register.service;
+
+import nl.sennaoudshoorn.qiddo_register.model.Invoice;
+import nl.sennaoudshoorn.qiddo_register.model.Parent;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvoicePdfTemplateTest {
+
+    /**
+     * Test de Nederlandse bedragnotatie, inclusief duizendtallen en afronding op centen.
+     */
+    @Test
+    void formatAmount_ShouldUseDutchNotation() {
+        assertEquals("€ 0,05", InvoicePdfTemplate.formatAmount(0.049));
+        assertEquals("€ 680,00", InvoicePdfTemplate.formatAmount(680));
+        assertEquals("€ 1.020,50", InvoicePdfTemplate.formatAmount(1020.5));
+        assertEquals("€ 1.234.567,89", InvoicePdfTemplate.formatAmount(1234567.89));
+        assertEquals("€ -12,30", InvoicePdfTemplate.formatAmount(-12.3));
+    }
+
+    /**
+     * Test dat één gedeelde template na elkaar meerdere geldige documenten kan renderen.
+     */
+    @Test
+    void render_SharedTemplate_ShouldProduceCompletePdfs() {
+        InvoicePdfTemplate template = new InvoicePdfTemplate();
+        Parent parent = new Parent("Lisa Jansen", LocalDate.of(1982, 8, 22), "Vrouw");
+        Invoice invoice = new Invoice(850.0, true, LocalDate.of(2023, 9, 1), parent);
+        invoice.setId(2L);
+
+        for (int i = 0; i < 2; i++) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            template.render(invoice, out);
+            String pdf = out.toString(StandardCharsets.ISO_8859_1);
+            assertTrue(pdf.startsWith("%PDF-"));
+            assertTrue(pdf.stripTrailing().endsWith("%%EOF"));
+        }
+    }
+}
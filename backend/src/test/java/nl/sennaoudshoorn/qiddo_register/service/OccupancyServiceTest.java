@@ -0,0 +1,138 @@
+package nl.sennaoudshoorn.qiddo_register.service;
+
+import nl.sennaoudshoorn.qiddo_register.dto.OccupancyTimeline;
+import nl.sennaoudshoorn.qiddo_register.model.Attendance;
+import nl.sennaoudshoorn.qiddo_register.model.Child;
+import nl.sennaoudshoorn.qiddo_register.model.Parent;
+import nl.sennaoudshoorn.qiddo_register.repository.AttendanceRepository;
+import nl.sennaoudshoorn.qiddo_register.repository.ChildRepository;
+import nl.sennaoudshoorn.qiddo_register.repository.ParentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class OccupancyServiceTest {
+
+    // Maandag
+    private static final LocalDate DAY = LocalDate.of(2023, 9, 4);
+
+    @Autowired
+    private OccupancyService occupancyService;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private ChildRepository childRepository;
+
+    @Autowired
+    private ParentRepository parentRepository;
+
+    private Child emma;
+    private Child lucas;
+    private Child sophie;
+
+    @BeforeEach
+    void setUp() {
+        Parent jan = parentRepository.save(new Parent("Jan de Vries", LocalDate.of(1980, 5, 15), "Man"));
+        emma = childRepository.save(new Child("Emma de Vries", LocalDate.of(2018, 2, 14), "Meisje", jan));
+        lucas = childRepository.save(new Child("Lucas de Vries", LocalDate.of(2019, 6, 25), "Jongen", jan));
+        sophie = childRepository.save(new Child("Sophie de Vries", LocalDate.of(2020, 3, 10), "Meisje", jan));
+    }
+
+    @AfterEach
+    void tearDown() {
+        attendanceRepository.deleteAll();
+        childRepository.deleteAll();
+        parentRepository.deleteAll();
+    }
+
+    /**
+     * Test de telling per uur: een kind dat de avond ervoor al binnen was, een wissel op
+     * hetzelfde moment die geen piek mag geven, en een kind dat nog binnen is.
+     */
+    @Test
+    void timeline_ShouldCountPresentChildrenPerSlot() {
+        attendanceRepository.saveAll(List.of(
+                attendance(emma, DAY.minusDays(1).atTime(22, 0), DAY.atTime(9, 0)),
+                attendance(lucas, DAY.atTime(8, 30), DAY.atTime(12, 0)),
+                attendance(sophie, DAY.atTime(12, 0), DAY.atTime(15, 0)),
+                attendance(emma, DAY.atTime(14, 0), null)));
+
+        OccupancyTimeline timeline = occupancyService.timeline(DAY, DAY, 60);
+
+        assertEquals(24, timeline.slots().size());
+        assertSlot(timeline, 0, 1, 1);   // Emma van de vorige avond
+        assertSlot(timeline, 8, 1, 2);   // Lucas erbij om 8:30
+        assertSlot(timeline, 9, 1, 1);   // Emma weg om 9:00
+        assertSlot(timeline, 12, 1, 1);  // Lucas weg en Sophie binnen om 12:00
+        assertSlot(timeline, 14, 2, 2);  // Emma terug om 14:00
+        assertSlot(timeline, 23, 1, 1);  // Emma nog binnen
+        assertEquals(2, timeline.peak());
+        assertEquals(DAY.atTime(8, 0), timeline.peakAt());
+    }
+
+    /**
+     * Test dat de piek per week (vanaf maandag) wordt bepaald.
+     */
+    @Test
+    void timeline_ShouldReportPeakPerWeek() {
+        attendanceRepository.saveAll(List.of(
+                attendance(emma, DAY.atTime(8, 0), DAY.atTime(17, 0)),
+                attendance(lucas, DAY.plusDays(8).atTime(8, 0), DAY.plusDays(8).atTime(17, 0)),
+                attendance(sophie, DAY.plusDays(8).atTime(9, 0), DAY.plusDays(8).atTime(10, 0))));
+
+        OccupancyTimeline timeline = occupancyService.timeline(DAY, DAY.plusDays(13), 30);
+
+        assertEquals(List.of(
+                new OccupancyTimeline.Week(DAY, 1, DAY.atTime(8, 0)),
+                new OccupancyTimeline.Week(DAY.plusDays(7), 2, DAY.plusDays(8).atTime(9, 0))), timeline.weeks());
+    }
+
+    /**
+     * Test dat een kind dat voor de periode binnenkwam en precies op het begin vertrekt
+     * niet meetelt, en de stand niet onder nul brengt.
+     */
+    @Test
+    void timeline_CheckOutExactlyAtStart_ShouldNotCount() {
+        attendanceRepository.saveAll(List.of(
+                attendance(emma, DAY.minusDays(1).atTime(22, 0), DAY.atStartOfDay()),
+                attendance(lucas, DAY.atTime(8, 0), DAY.atTime(9, 0))));
+
+        OccupancyTimeline timeline = occupancyService.timeline(DAY, DAY, 60);
+
+        assertSlot(timeline, 0, 0, 0);
+        assertSlot(timeline, 7, 0, 0);
+        assertSlot(timeline, 8, 1, 1);
+        assertSlot(timeline, 9, 0, 0);
+        assertEquals(1, timeline.peak());
+    }
+
+    @Test
+    void timeline_WithTooManySlots_ShouldBeRejected() {
+        assertThrows(ResponseStatusException.class, () -> occupancyService.timeline(DAY, DAY.plusYears(2), 1));
+        assertThrows(ResponseStatusException.class, () -> occupancyService.timeline(DAY, DAY, 7));
+    }
+
+    private static void assertSlot(OccupancyTimeline timeline, int index, int present, int peak) {
+        OccupancyTimeline.Slot slot = timeline.slots().get(index);
+        assertEquals(present, slot.present(), "aanwezig aan het begin van " + slot.start());
+        assertEquals(peak, slot.peak(), "piek in " + slot.start());
+    }
+
+    private static Attendance attendance(Child child, LocalDateTime checkIn, LocalDateTime checkOut) {
+        return new Attendance(checkIn, checkOut, child);
+    }
+}
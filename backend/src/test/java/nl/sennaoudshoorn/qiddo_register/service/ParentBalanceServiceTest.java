@@ -0,0 +1,134 @@
+package nl.sennaoudshoorn.qiddo_register.service;
+
+import nl.sennaoudshoorn.qiddo_register.dto.BalanceReconciliation;
+import nl.sennaoudshoorn.qiddo_register.dto.ParentBalanceLine;
+import nl.sennaoudshoorn.qiddo_register.model.Invoice;
+import nl.sennaoudshoorn.qiddo_register.model.Parent;
+import nl.sennaoudshoorn.qiddo_register.repository.InvoiceRepository;
+import nl.sennaoudshoorn.qiddo_register.repository.ParentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ParentBalanceServiceTest {
+
+    @Autowired
+    private ParentBalanceService balanceService;
+
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    @Autowired
+    private ParentRepository parentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Parent jan;
+    private Parent lisa;
+
+    // Andere tests verwijderen facturen buiten het grootboek om
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("delete from parent_balance");
+        jan = parentRepository.save(new Parent("Jan de Vries", LocalDate.of(1980, 5, 15), "Man"));
+        lisa = parentRepository.save(new Parent("Lisa Jansen", LocalDate.of(1982, 8, 22), "Vrouw"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        invoiceRepository.deleteAll();
+        parentRepository.deleteAll();
+        jdbcTemplate.update("delete from parent_balance");
+    }
+
+    /**
+     * Test dat aanmaken, wijzigen (bedrag, betaald, andere ouder) en verwijderen het saldo
+     * in hele centen bijhouden.
+     */
+    @Test
+    void invoiceWrites_ShouldKeepLedgerInCents() {
+        Invoice first = invoiceService.create(new Invoice(0.1, false, LocalDate.of(2024, 5, 1), jan));
+        Invoice second = invoiceService.create(new Invoice(0.2, false, LocalDate.of(2024, 6, 1), jan));
+        invoiceService.create(new Invoice(50.0, true, LocalDate.of(2024, 5, 1), lisa));
+
+        assertEquals(List.of(line(jan, 30, 2)), balanceService.findAll());
+        assertEquals(new BigDecimal("0.30"), balanceService.findAll().get(0).outstanding());
+
+        invoiceService.update(first.getId(), new Invoice(114.75, false, LocalDate.of(2024, 5, 1), jan));
+        invoiceService.update(second.getId(), new Invoice(0.2, false, LocalDate.of(2024, 6, 1), lisa));
+        assertEquals(List.of(line(jan, 11475, 1), line(lisa, 20, 1)), balanceService.findAll());
+
+        invoiceService.update(first.getId(), new Invoice(114.75, true, LocalDate.of(2024, 5, 1), jan));
+        invoiceService.delete(second.getId());
+        assertEquals(List.of(), balanceService.findAll());
+    }
+
+    /**
+     * Test dat een teruggedraaide transactie het grootboek niet raakt.
+     */
+    @Test
+    void rollback_ShouldLeaveLedgerUntouched() {
+        assertThrows(IllegalStateException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+            invoiceService.create(new Invoice(76.5, false, LocalDate.of(2024, 5, 1), jan));
+            throw new IllegalStateException("afgebroken");
+        }));
+
+        assertEquals(List.of(), balanceService.findAll());
+    }
+
+    /**
+     * Test dat de controle afwijkingen vindt en herstelt, en daarna niets meer vindt.
+     */
+    @Test
+    void reconcile_ShouldRepairDrift() {
+        invoiceService.create(new Invoice(76.5, false, LocalDate.of(2024, 5, 1), jan));
+        // Buiten de service om: het grootboek mist deze factuur
+        invoiceRepository.save(new Invoice(10.0, false, LocalDate.of(2024, 5, 1), lisa));
+        jdbcTemplate.update("update parent_balance set outstanding_cents = 1 where parent_id = ?", jan.getId());
+
+        BalanceReconciliation result = balanceService.reconcile();
+
+        assertEquals(List.of(jan.getId(), lisa.getId()), result.mismatchedParentIds());
+        assertEquals(List.of(line(jan, 7650, 1), line(lisa, 1000, 1)), balanceService.findAll());
+        assertEquals(List.of(), balanceService.reconcile().mismatchedParentIds());
+    }
+
+    /**
+     * Test dat opnieuw opbouwen hetzelfde grootboek oplevert als bijhouden.
+     */
+    @Test
+    void rebuild_ShouldMatchMaintainedLedger() {
+        invoiceService.create(new Invoice(76.5, false, LocalDate.of(2024, 5, 1), jan));
+        invoiceService.create(new Invoice(0.29, false, LocalDate.of(2024, 6, 1), jan));
+        invoiceService.create(new Invoice(10.0, true, LocalDate.of(2024, 5, 1), lisa));
+        List<ParentBalanceLine> maintained = balanceService.findAll();
+
+        assertEquals(1, balanceService.rebuild());
+        assertEquals(maintained, balanceService.findAll());
+        assertEquals(List.of(line(jan, 7679, 2)), maintained);
+    }
+
+    private static ParentBalanceLine line(Parent parent, long cents, int invoices) {
+        return new ParentBalanceLine(parent.getId(), parent.getNaam(), cents, invoices);
+    }
+}
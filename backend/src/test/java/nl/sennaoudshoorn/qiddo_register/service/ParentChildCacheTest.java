@@ -0,0 +1,201 @@
+package nl.sennaoudshoorn.qiddo_register.service;
+
+import nl.sennaoudshoorn.qiddo_register.config.CacheConfig;
+import nl.sennaoudshoorn.qiddo_register.model.Child;
+import nl.sennaoudshoorn.qiddo_register.model.Parent;
+import nl.sennaoudshoorn.qiddo_register.repository.ChildRepository;
+import nl.sennaoudshoorn.qiddo_register.repository.ParentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ParentChildCacheTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ChildService childService;
+
+    @Autowired
+    private ParentService parentService;
+
+    @Autowired
+    private ChildRepository childRepository;
+
+    @Autowired
+    private ParentRepository parentRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private PersonCache personCache;
+
+    private Parent jan;
+    private Child emma;
+
+    @BeforeEach
+    void setUp() {
+        jan = parentRepository.save(new Parent("Jan de Vries", LocalDate.of(1980, 5, 15), "Man"));
+        emma = childRepository.save(new Child("Emma de Vries", LocalDate.of(2018, 2, 14), "Meisje", jan));
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @AfterEach
+    void tearDown() {
+        childRepository.deleteAll();
+        parentRepository.deleteAll();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    /**
+     * Test dat een tweede lookup uit de cache komt en niet meer uit de database.
+     */
+    @Test
+    void getChildById_SecondCall_ShouldComeFromCache() {
+        childService.getChildById(emma.getId());
+        childRepository.deleteById(emma.getId());
+
+        assertTrue(childService.getChildById(emma.getId()).isPresent());
+        assertTrue(parentService.getParentById(jan.getId()).isPresent());
+    }
+
+    /**
+     * Test dat elke lezer een eigen kopie krijgt, zodat een wijziging aan een gelezen
+     * entity niet bij andere requests terechtkomt.
+     */
+    @Test
+    void getChildById_ShouldReturnDetachedCopies() {
+        Child first = childService.getChildById(emma.getId()).orElseThrow();
+        first.setNaam("Gewijzigd");
+        first.getParent().setNaam("Gewijzigd");
+
+        Child second = childService.getChildById(emma.getId()).orElseThrow();
+        assertNotSame(first, second);
+        assertEquals("Emma de Vries", second.getNaam());
+        assertEquals("Jan de Vries", second.getParent().getNaam());
+        assertNotSame(parentService.findById(jan.getId()), parentService.findById(jan.getId()));
+    }
+
+    /**
+     * Test dat een lezer die de oude rij las vóór een wijziging commit, die oude rij niet
+     * meer in de cache kan zetten.
+     */
+    @Test
+    void getChildById_ReadBeforeConcurrentUpdate_ShouldNotCacheStaleRow() {
+        Child update = new Child("Emma Jansen", LocalDate.of(2018, 2, 14), "Meisje", jan);
+
+        Child stale = personCache.get(CacheConfig.CHILDREN, emma.getId(), () -> {
+            Child old = childRepository.findById(emma.getId()).orElseThrow();
+            // Een schrijver commit terwijl deze lezer nog bezig is
+            childService.updateChild(emma.getId(), update);
+            return old;
+        }, Child::copy);
+
+        assertEquals("Emma de Vries", stale.getNaam());
+        assertEquals("Emma Jansen", childService.getChildById(emma.getId()).orElseThrow().getNaam());
+    }
+
+    /**
+     * Test dat het deactiveren van een kind de cache van de actieve kinderen leegt.
+     */
+    @Test
+    void updateChild_Deactivate_ShouldEvictActiveChildren() {
+        assertEquals(1, childService.getActiveChildren().size());
+
+        Child update = new Child("Emma de Vries", LocalDate.of(2018, 2, 14), "Meisje", jan);
+        update.setActive(false);
+        childService.updateChild(emma.getId(), update);
+
+        assertTrue(childService.getActiveChildren().isEmpty());
+        assertFalse(childService.getChildById(emma.getId()).orElseThrow().isActive());
+    }
+
+    /**
+     * Test dat een gewijzigde ouder ook in gecachte kinderen terugkomt.
+     */
+    @Test
+    void updateParent_ShouldRefreshCachedChildren() {
+        List<Child> before = childService.getActiveChildren();
+        assertEquals("Jan de Vries", before.get(0).getParent().getNaam());
+
+        Parent update = new Parent("Jan de Vries-Bakker", LocalDate.of(1980, 5, 15), "Man");
+        parentService.updateParent(jan.getId(), update);
+
+        assertEquals("Jan de Vries-Bakker", parentService.findById(jan.getId()).getNaam());
+        assertEquals("Jan de Vries-Bakker", childService.getActiveChildren().get(0).getParent().getNaam());
+    }
+
+    /**
+     * Test dat een wijziging alleen de geraakte entries weghaalt: de ouder, zijn kinderen
+     * en de lijst, maar niet een ander gezin dat al in de cache stond.
+     */
+    @Test
+    void updateParent_ShouldKeepUnrelatedEntries() {
+        Parent piet = parentRepository.save(new Parent("Piet Bakker", LocalDate.of(1978, 3, 3), "Man"));
+        Child lucas = childRepository.save(new Child("Lucas Bakker", LocalDate.of(2019, 6, 25), "Jongen", piet));
+        childService.getChildById(emma.getId());
+        childService.getChildById(lucas.getId());
+        parentService.findById(piet.getId());
+
+        parentService.updateParent(jan.getId(), new Parent("Jan de Vries-Bakker", LocalDate.of(1980, 5, 15), "Man"));
+        // Buiten de services om: alleen een entry die nog in de cache staat vindt deze rijen nog
+        childRepository.deleteById(lucas.getId());
+        parentRepository.deleteById(piet.getId());
+
+        assertEquals("Jan de Vries-Bakker", childService.getChildById(emma.getId()).orElseThrow().getParent().getNaam());
+        assertEquals("Lucas Bakker", childService.getChildById(lucas.getId()).orElseThrow().getNaam());
+        assertEquals("Piet Bakker", parentService.findById(piet.getId()).getNaam());
+    }
+
+    /**
+     * Test dat een verwijderd kind niet meer uit de cache komt.
+     */
+    @Test
+    void deleteChild_ShouldEvictChild() {
+        childService.getChildById(emma.getId());
+
+        assertTrue(childService.deleteChild(emma.getId()));
+
+        assertTrue(childService.getChildById(emma.getId()).isEmpty());
+    }
+
+    /**
+     * Test dat een kind dat via {@code /api/persons} wordt verwijderd ook uit de gecachte
+     * lijst van actieve kinderen verdwijnt.
+     */
+    @Test
+    void deleteThroughPersons_ShouldEvictActiveChildren() throws Exception {
+        mockMvc.perform(get("/api/children/active"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(emma.getId()));
+
+        mockMvc.perform(delete("/api/persons/" + emma.getId()))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/children/active"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[]"));
+        assertTrue(childService.getChildById(emma.getId()).isEmpty());
+    }
+}
@@ -0,0 +1,168 @@
+package nl.sennaoudshoorn.qiddo_register.service;
+
+import nl.sennaoudshoorn.qiddo_register.dto.PersonSearchHit;
+import nl.sennaoudshoorn.qiddo_register.model.Child;
+import nl.sennaoudshoorn.qiddo_register.model.Parent;
+import nl.sennaoudshoorn.qiddo_register.model.PersonDirectoryEntry;
+import nl.sennaoudshoorn.qiddo_register.repository.ChildRepository;
+import nl.sennaoudshoorn.qiddo_register.repository.ParentRepository;
+import nl.sennaoudshoorn.qiddo_register.repository.PersonDirectoryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class PersonDirectoryTest {
+
+    @Autowired
+    private PersonDirectory personDirectory;
+
+    @Autowired
+    private PersonDirectoryRepository directoryRepository;
+
+    @Autowired
+    private PersonSearchIndex searchIndex;
+
+    @Autowired
+    private ParentService parentService;
+
+    @Autowired
+    private ChildService childService;
+
+    @Autowired
+    private PersonService personService;
+
+    @Autowired
+    private ChildRepository childRepository;
+
+    @Autowired
+    private ParentRepository parentRepository;
+
+    // Andere tests ruimen via de repositories op, buiten de directory om
+    @BeforeEach
+    void setUp() {
+        directoryRepository.deleteAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        childRepository.deleteAll();
+        parentRepository.deleteAll();
+        directoryRepository.deleteAll();
+    }
+
+    /**
+     * Test dat aanmaken, wijzigen, deactiveren en verwijderen via de services direct in
+     * de directory terechtkomt.
+     */
+    @Test
+    void serviceWrites_ShouldKeepDirectoryInSync() {
+        Parent jan = parentService.save(new Parent("Jan de Vries", LocalDate.of(1980, 5, 15), "Man"));
+        Child emma = childService.createChild(new Child("Emma de Vries", LocalDate.of(2018, 2, 14), "Meisje", jan));
+        Child lucas = childService.createChild(new Child("Lucas de Vries", LocalDate.of(2019, 6, 25), "Jongen", jan));
+
+        assertEquals(List.of(
+                        entry(emma.getId(), "Emma de Vries", PersonDirectoryEntry.CHILD, true, jan.getId()),
+                        entry(jan.getId(), "Jan de Vries", PersonDirectoryEntry.PARENT, true, null),
+                        entry(lucas.getId(), "Lucas de Vries", PersonDirectoryEntry.CHILD, true, jan.getId())),
+                directory(null, null));
+
+        Child update = new Child("Emma Jansen", LocalDate.of(2018, 2, 14), "Meisje", jan);
+        update.setActive(false);
+        childService.updateChild(emma.getId(), update);
+        parentService.updateParent(jan.getId(), new Parent("Jan Jansen", LocalDate.of(1980, 5, 15), "Man"));
+
+        assertEquals(List.of(entry(lucas.getId(), "Lucas de Vries", PersonDirectoryEntry.CHILD, true, jan.getId())),
+                directory(PersonDirectoryEntry.CHILD, true));
+        assertEquals(List.of(entry(jan.getId(), "Jan Jansen", PersonDirectoryEntry.PARENT, true, null)),
+                directory(PersonDirectoryEntry.PARENT, null));
+
+        childService.deleteChild(emma.getId());
+        childService.deleteChild(lucas.getId());
+        parentService.deleteById(jan.getId());
+        assertEquals(0, directoryRepository.count());
+    }
+
+    /**
+     * Test dat een kind met een onbekend id via {@code /api/persons} een 404 geeft en
+     * niet onder een ander id wordt aangemaakt.
+     */
+    @Test
+    void saveChild_WithUnknownId_ShouldReturnNotFound() {
+        Parent jan = parentService.save(new Parent("Jan de Vries", LocalDate.of(1980, 5, 15), "Man"));
+        Child emma = new Child("Emma de Vries", LocalDate.of(2018, 2, 14), "Meisje", jan);
+        emma.setId(Long.MAX_VALUE);
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> personService.save(emma));
+        assertEquals(HttpStatus.NOT_FOUND, e.getStatusCode());
+        assertEquals(0, childRepository.count());
+        assertEquals(List.of(entry(jan.getId(), "Jan de Vries", PersonDirectoryEntry.PARENT, true, null)),
+                directory(null, null));
+    }
+
+    /**
+     * Test dat het opnieuw opbouwen ook personen oppikt die buiten de services om zijn opgeslagen.
+     */
+    @Test
+    void rebuild_ShouldIncludeRowsWrittenOutsideServices() {
+        Parent jan = parentRepository.save(new Parent("Jan de Vries", LocalDate.of(1980, 5, 15), "Man"));
+        Child emma = new Child("Emma de Vries", LocalDate.of(2018, 2, 14), "Meisje", jan);
+        emma.setActive(false);
+        emma = childRepository.save(emma);
+        assertEquals(0, directoryRepository.count());
+
+        assertEquals(2, personDirectory.rebuild());
+
+        assertEquals(List.of(
+                        entry(emma.getId(), "Emma de Vries", PersonDirectoryEntry.CHILD, false, jan.getId()),
+                        entry(jan.getId(), "Jan de Vries", PersonDirectoryEntry.PARENT, true, null)),
+                directory(null, null));
+    }
+
+    /**
+     * Test dat de zoekindex de schrijfacties van de services volgt.
+     */
+    @Test
+    void serviceWrites_ShouldReachSearchIndex() {
+        Parent jan = new Parent("Jan Müller", LocalDate.of(1980, 5, 15), "Man");
+        jan.setEmail("jan@muller.example");
+        jan = parentService.save(jan);
+        Child emma = childService.createChild(new Child("Emma Müller", LocalDate.of(2018, 2, 14), "Meisje", jan));
+
+        assertEquals(List.of(emma.getId(), jan.getId()), search("mull"));
+        assertEquals(List.of(jan.getId()), search("jan@muller"));
+
+        childService.updateChild(emma.getId(), new Child("Emma Jansen", LocalDate.of(2018, 2, 14), "Meisje", jan));
+        assertEquals(List.of(jan.getId()), search("mull"));
+
+        childService.deleteChild(emma.getId());
+        parentService.deleteById(jan.getId());
+        assertTrue(search("mull").isEmpty());
+        assertTrue(search("jansen").isEmpty());
+    }
+
+    private List<Long> search(String query) {
+        return searchIndex.search(query, null, 10).stream().map(PersonSearchHit::id).toList();
+    }
+
+    private List<String> directory(String role, Boolean active) {
+        return personDirectory.list(role, active).stream()
+                .map(e -> entry(e.getId(), e.getNaam(), e.getRole(), e.isActive(), e.getParentId()))
+                .toList();
+    }
+
+    private static String entry(Long id, String naam, String role, boolean active, Long parentId) {
+        return id + "/" + naam + "/" + role + "/" + active + "/" + parentId;
+    }
+}
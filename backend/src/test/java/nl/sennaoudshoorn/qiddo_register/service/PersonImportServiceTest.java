@@ -0,0 +1,132 @@
+package nl.sennaoudshoorn.qiddo_register.service;
+
+import nl.sennaoudshoorn.qiddo_register.dto.ImportResult;
+import nl.sennaoudshoorn.qiddo_register.dto.ImportRowError;
+import nl.sennaoudshoorn.qiddo_register.dto.PersonSearchHit;
+import nl.sennaoudshoorn.qiddo_register.model.Child;
+import nl.sennaoudshoorn.qiddo_register.model.Parent;
+import nl.sennaoudshoorn.qiddo_register.repository.ChildRepository;
+import nl.sennaoudshoorn.qiddo_register.repository.ParentRepository;
+import nl.sennaoudshoorn.qiddo_register.repository.PersonDirectoryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class PersonImportServiceTest {
+
+    @Autowired
+    private PersonImportService importService;
+
+    @Autowired
+    private ParentRepository parentRepository;
+
+    @Autowired
+    private ChildRepository childRepository;
+
+    @Autowired
+    private PersonDirectoryRepository directoryRepository;
+
+    @Autowired
+    private PersonSearchIndex searchIndex;
+
+    @AfterEach
+    void tearDown() {
+        childRepository.deleteAll();
+        parentRepository.deleteAll();
+        directoryRepository.deleteAll();
+    }
+
+    /**
+     * Test dat gezinnen over chunkgrenzen heen worden ingevoegd en kinderen aan de ouder
+     * erboven worden gekoppeld, met puntkomma's, BOM en velden tussen aanhalingstekens.
+     */
+    @Test
+    void importCsv_ShouldLinkChildrenToParentAbove() throws IOException {
+        ImportResult result = importService.importCsv(new StringReader("""
+                \uFEFFType;Naam;Geboortedatum;Email;Allergies;Active
+                OUDER;Jan de Vries;15-05-1980;jan@example.com;;
+                KIND;Emma de Vries;2018-02-14;;"Pinda's; noten";ja
+                KIND;Lucas de Vries;2019-06-25;;;ja
+
+                OUDER;Lisa Jansen;1982-08-22;;;
+                KIND;"Sophie ""Fie"" Jansen";2017-09-03;;"melk,
+                ei";nee
+                """));
+
+        assertEquals(new ImportResult(5, 2, 3, 0, List.of(), false), result);
+        List<Child> children = childRepository.findAll().stream()
+                .sorted(Comparator.comparing(Child::getId)).toList();
+        assertEquals(List.of("Emma de Vries", "Lucas de Vries", "Sophie \"Fie\" Jansen"),
+                children.stream().map(Child::getNaam).toList());
+        assertEquals(List.of("Jan de Vries", "Jan de Vries", "Lisa Jansen"),
+                children.stream().map(child -> child.getParent().getNaam()).toList());
+        assertEquals("Pinda's; noten", children.get(0).getAllergies());
+        assertEquals("melk,\nei", children.get(2).getAllergies());
+        assertFalse(children.get(2).isActive());
+        assertEquals(LocalDate.of(1980, 5, 15), parentRepository.findAll().stream()
+                .filter(parent -> parent.getNaam().equals("Jan de Vries")).findFirst().orElseThrow()
+                .getGeboortedatum());
+
+        assertEquals(5, directoryRepository.count());
+        assertEquals(List.of("Jan de Vries"),
+                searchIndex.search("jan@example", null, 10).stream().map(PersonSearchHit::naam).toList());
+    }
+
+    /**
+     * Test dat ongeldige regels per regel worden gerapporteerd en de rest gewoon wordt
+     * ingevoegd; kinderen van een afgewezen ouder worden ook afgewezen.
+     */
+    @Test
+    void importCsv_ShouldReportInvalidRows() throws IOException {
+        ImportResult result = importService.importCsv(new StringReader("""
+                type,naam,geboortedatum,email
+                KIND,Wees,2019-01-01,
+                OUDER,,1980-01-01,
+                KIND,Kind van niemand,2019-01-01,
+                OUDER,Peter Bakker,1978-03-10,peter.example.com
+                OUDER,Sanne van Dijk,1985-11-30,
+                KIND,Daan van Dijk,30-02-2018,
+                KIND,Mila van Dijk,2018-12-10,
+                HUISDIER,Bello,2020-01-01,
+                """));
+
+        assertEquals(List.of(
+                        new ImportRowError(2, "Kind zonder ouderregel erboven"),
+                        new ImportRowError(3, "Naam ontbreekt"),
+                        new ImportRowError(4, "Ouder op regel 3 is afgewezen"),
+                        new ImportRowError(5, "Ongeldig e-mailadres 'peter.example.com'"),
+                        new ImportRowError(7, "Geboortedatum '30-02-2018' niet te lezen"),
+                        new ImportRowError(9, "Onbekend type 'HUISDIER', verwacht OUDER of KIND")),
+                result.errors());
+        assertEquals(8, result.rows());
+        assertEquals(1, result.parents());
+        assertEquals(1, result.children());
+        assertEquals(6, result.rejected());
+        assertEquals(List.of("Sanne van Dijk"), parentRepository.findAll().stream().map(Parent::getNaam).toList());
+    }
+
+    /**
+     * Test dat een bestand zonder verplichte kolommen in zijn geheel wordt geweigerd.
+     */
+    @Test
+    void importCsv_MissingColumns_ShouldBeRejected() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> importService.importCsv(new StringReader("naam,email\nJan,jan@example.com\n")));
+
+        assertTrue(exception.getReason().contains("type"));
+        assertEquals(0, parentRepository.count());
+    }
+}
@@ -0,0 +1,96 @@
+package nl.sennaoudshoorn.qiddo_register.service;
+
+import nl.sennaoudshoorn.qiddo_register.dto.PersonSearchHit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersonSearchIndexTest {
+
+    private PersonSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new PersonSearchIndex(null);
+        index.put(new PersonSearchHit(1L, "Jan de Vries", "PARENT", true, null, "jan.devries@example.com",
+                "+31 6 12345678"));
+        index.put(new PersonSearchHit(2L, "Emma de Vries", "CHILD", true, 1L, null, null));
+        index.put(new PersonSearchHit(3L, "Zoë van den Berg", "CHILD", true, 4L, null, null));
+        index.put(new PersonSearchHit(4L, "Anouk van den Berg", "PARENT", true, null, "anouk@berg.nl", "020-1234567"));
+        index.put(new PersonSearchHit(5L, "Emmanuel Bakker", "CHILD", false, 6L, null, null));
+    }
+
+    /**
+     * Test dat zoeken op het begin van een woord werkt, zonder op accenten of
+     * hoofdletters te letten.
+     */
+    @Test
+    void search_ShouldMatchWordPrefixesIgnoringDiacritics() {
+        assertEquals(List.of(3L), ids("zoe"));
+        assertEquals(List.of(3L), ids("ZOË"));
+        assertEquals(List.of(2L, 1L), ids("vri"));
+        assertEquals(List.of(2L, 5L), ids("emm"));
+        assertEquals(List.of(2L), ids("emm vr"));
+        assertTrue(ids("ries").isEmpty());
+    }
+
+    /**
+     * Test dat tussenvoegsels los en aaneengeschreven gevonden worden, maar alleen meetellen
+     * als er niets anders is ingetypt.
+     */
+    @Test
+    void search_ShouldHandleTussenvoegsels() {
+        assertEquals(List.of(2L, 1L), ids("de vries"));
+        assertEquals(List.of(2L, 1L), ids("devries"));
+        assertEquals(List.of(4L, 3L), ids("vandenb"));
+        assertEquals(List.of(3L), ids("zoe van den"));
+        assertEquals(List.of(4L, 3L), ids("van den"));
+    }
+
+    /**
+     * Test dat een ouder op e-mailadres en telefoonnummer te vinden is.
+     */
+    @Test
+    void search_ShouldFindParentsByEmailAndPhone() {
+        assertEquals(List.of(1L), ids("jan.devries@"));
+        assertEquals(List.of(4L), ids("berg.nl"));
+        assertEquals(List.of(1L), ids("06 1234"));
+        assertEquals(List.of(1L), ids("+316123"));
+        assertEquals(List.of(4L), ids("020-12"));
+    }
+
+    /**
+     * Test dat volledige woorden voor prefixen gaan, actieve personen voor inactieve, en
+     * dat filter en limiet werken.
+     */
+    @Test
+    void search_ShouldRankFilterAndLimit() {
+        index.put(new PersonSearchHit(6L, "Emm Bakker", "PARENT", true, null, null, null));
+
+        assertEquals(List.of(6L, 2L, 5L), ids("emm"));
+        assertEquals(List.of(2L, 5L), index.search("emm", "CHILD", 10).stream().map(PersonSearchHit::id).toList());
+        assertEquals(1, index.search("emm", null, 1).size());
+        assertTrue(ids("  ").isEmpty());
+    }
+
+    /**
+     * Test dat een wijziging de oude woorden uit de index haalt.
+     */
+    @Test
+    void putAndRemove_ShouldReplaceIndexedWords() {
+        index.put(new PersonSearchHit(2L, "Emma Jansen", "CHILD", true, 1L, null, null));
+        assertEquals(List.of(1L), ids("vries"));
+        assertEquals(List.of(2L), ids("jans"));
+
+        index.remove(2L);
+        assertTrue(ids("jans").isEmpty());
+        assertEquals(4, index.size());
+    }
+
+    private List<Long> ids(String query) {
+        return index.search(query, null, 10).stream().map(PersonSearchHit::id).toList();
+    }
+}
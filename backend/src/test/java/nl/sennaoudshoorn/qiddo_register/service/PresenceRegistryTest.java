@@ -0,0 +1,89 @@
+package nl.sennaoudshoorn.qiddo_register.service;
+
+import nl.sennaoudshoorn.qiddo_register.event.AttendanceChangedEvent;
+import nl.sennaoudshoorn.qiddo_register.event.AttendanceSnapshot;
+import nl.sennaoudshoorn.qiddo_register.repository.AttendanceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PresenceRegistryTest {
+
+    private static final LocalDateTime MORNING = LocalDateTime.of(2024, 9, 2, 8, 0);
+
+    @Mock
+    private AttendanceRepository attendanceRepository;
+
+    private PresenceRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new PresenceRegistry(attendanceRepository);
+    }
+
+    /**
+     * Test dat de registry bij het opstarten gevuld wordt met de open aanwezigheden.
+     */
+    @Test
+    void afterSingletonsInstantiated_ShouldLoadOpenAttendances() {
+        when(attendanceRepository.findOpenSnapshots()).thenReturn(List.of(
+                new AttendanceSnapshot(1L, 6L, MORNING, null),
+                new AttendanceSnapshot(2L, 7L, MORNING.plusMinutes(10), null)));
+
+        registry.afterSingletonsInstantiated();
+
+        assertEquals(2, registry.getPresent().size());
+        assertTrue(registry.isPresent(6L));
+    }
+
+    /**
+     * Test een normale dag: check-in en daarna check-out van hetzelfde kind.
+     */
+    @Test
+    void checkInThenCheckOut_ShouldRemoveChild() {
+        AttendanceSnapshot checkIn = new AttendanceSnapshot(1L, 6L, MORNING, null);
+        registry.onAttendanceChanged(AttendanceChangedEvent.created(checkIn));
+        assertTrue(registry.isPresent(6L));
+
+        registry.onAttendanceChanged(AttendanceChangedEvent.updated(checkIn,
+                new AttendanceSnapshot(1L, 6L, MORNING, MORNING.plusHours(9))));
+        assertFalse(registry.isPresent(6L));
+        assertTrue(registry.getPresent().isEmpty());
+    }
+
+    /**
+     * Test dat een check-out die eerder verwerkt wordt dan de bijbehorende check-in
+     * (twee tablets tegelijk) het kind niet alsnog als aanwezig achterlaat.
+     */
+    @Test
+    void checkOutBeforeCheckIn_ShouldNotResurrectChild() {
+        AttendanceSnapshot checkIn = new AttendanceSnapshot(1L, 6L, MORNING, null);
+        registry.onAttendanceChanged(AttendanceChangedEvent.updated(checkIn,
+                new AttendanceSnapshot(1L, 6L, MORNING, MORNING.plusHours(9))));
+        registry.onAttendanceChanged(AttendanceChangedEvent.created(checkIn));
+
+        assertFalse(registry.isPresent(6L));
+    }
+
+    /**
+     * Test dat bij twee open aanwezigheden voor hetzelfde kind de laatste check-in telt,
+     * ongeacht de volgorde waarin de events binnenkomen.
+     */
+    @Test
+    void concurrentCheckIns_ShouldKeepLatest() {
+        AttendanceSnapshot later = new AttendanceSnapshot(2L, 6L, MORNING.plusMinutes(1), null);
+        registry.onAttendanceChanged(AttendanceChangedEvent.created(later));
+        registry.onAttendanceChanged(AttendanceChangedEvent.created(new AttendanceSnapshot(1L, 6L, MORNING, null)));
+
+        assertEquals(2L, registry.get(6L).orElseThrow().attendanceId());
+    }
+}
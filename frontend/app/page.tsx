@@ -23,16 +23,17 @@ export default function Home() {
   useEffect(() => {
     const fetchDashboardData = async () => {
       try {
-        // Haal alle data parallel op
+        const today = new Date().toISOString().split("T")[0]
+
+        // Haal alle data parallel op; van de aanwezigheid is alleen vandaag nodig
         const [children, parents, attendances, invoices] = await Promise.all([
           childrenApi.getAll(),
           parentsApi.getAll(),
-          attendanceApi.getAll(),
+          attendanceApi.getAll({ from: `${today}T00:00:00` }),
           invoiceApi.getAll(),
         ])
 
         // Bereken statistieken
-        const today = new Date().toISOString().split("T")[0]
         const presentToday = attendances.filter(
           (attendance) =>
             attendance.checkInTime.startsWith(today) &&
@@ -262,12 +262,32 @@ export const parentsApi = {
   },
 };
 
+// De backend geeft aanwezigheden per pagina terug (maximaal 500 per verzoek)
+const ATTENDANCE_PAGE_SIZE = 500;
+
+// Haalt alle pagina's op door de X-Next-Cursor header te volgen tot de laatste pagina
+async function getAllAttendancePages(
+  url: string,
+  params: { from?: string; to?: string } = {}
+) {
+  const attendances: Attendance[] = [];
+  let cursor: string | undefined;
+  do {
+    const response = await api.get<Attendance[]>(url, {
+      params: { ...params, limit: ATTENDANCE_PAGE_SIZE, cursor },
+    });
+    attendances.push(...response.data);
+    cursor = response.headers["x-next-cursor"] as string | undefined;
+  } while (cursor);
+  return attendances;
+}
+
 // API functies voor aanwezigheid
 export const attendanceApi = {
-  getAll: async () => {
+  // from en to (ISO datum-tijd) beperken de check-in tijd; zonder komt de hele historie
+  getAll: async (params: { from?: string; to?: string } = {}) => {
     try {
-      const response = await api.get<Attendance[]>("/attendances");
-      return response.data;
+      return await getAllAttendancePages("/attendances", params);
     } catch (error) {
       console.error("Error fetching all attendances:", error);
       throw error;
@@ -286,10 +306,7 @@ export const attendanceApi = {
 
   getByChildId: async (childId: number) => {
     try {
-      const response = await api.get<Attendance[]>(
-        `/attendances/child/${childId}`
-      );
-      return response.data;
+      return await getAllAttendancePages(`/attendances/child/${childId}`);
     } catch (error) {
       console.error(
         `Error fetching attendances for child ID ${childId}:`,